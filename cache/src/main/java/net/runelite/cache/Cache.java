@@ -44,6 +44,7 @@ public class Cache
 
 		options.addOption("u", "unpack", false, "unpack cache");
 		options.addOption("p", "pack", false, "pack cache");
+		options.addOption(null, "compact", false, "compact cache, reclaiming unused space");
 
 		options.addOption(null, "items", true, "directory to dump items to");
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
@@ -101,6 +102,24 @@ public class Cache
 			System.out.println(" done!");
 			return;
 		}
+		else if (cmd.hasOption("compact"))
+		{
+			if (cache == null)
+			{
+				System.err.println("Cache base must be specified to compact");
+				System.exit(-1);
+			}
+
+			System.out.print("Compacting cache " + cache + "...");
+
+			try (Store store = new Store(new File(cache)))
+			{
+				store.compact();
+			}
+
+			System.out.println(" done!");
+			return;
+		}
 
 		if (cache != null && tree != null)
 		{
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import net.runelite.cache.definitions.InterfaceDefinition;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.OverlayDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.UnderlayDefinition;
+import net.runelite.cache.definitions.loaders.InterfaceLoader;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.definitions.loaders.OverlayLoader;
+import net.runelite.cache.definitions.loaders.TextureLoader;
+import net.runelite.cache.definitions.loaders.UnderlayLoader;
+import net.runelite.cache.definitions.snapshot.DefinitionSnapshot;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Definitions of a store, decoded on first use and shared by everything
+ * using the store. Lookups by id are array accesses, and the cache is safe
+ * for concurrent use.
+ * <p>
+ * In soft mode definitions are only softly referenced, so they may be
+ * reclaimed under memory pressure and are decoded again when next
+ * requested.
+ * <p>
+ * The definitions returned are shared by every caller, and must not be
+ * modified.
+ * <p>
+ * Definitions are decoded from the archives as they were when first
+ * requested; call {@link #clear()} after modifying the archives.
+ * <p>
+ * With a snapshot directory set, the item, npc, object, underlay, overlay
+ * and texture definitions are read from {@link DefinitionSnapshot}s made
+ * from the current archives instead of being decoded. Snapshots are made
+ * the first time the definitions are requested and remade when the crc of
+ * their archive changes. Snapshots which can't be made or read are logged,
+ * and the definitions decoded instead.
+ */
+public class DefinitionCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(DefinitionCache.class);
+
+	private static final ItemLoader ITEM_LOADER = new ItemLoader();
+	private static final NpcLoader NPC_LOADER = new NpcLoader();
+	private static final ObjectLoader OBJECT_LOADER = new ObjectLoader();
+	private static final UnderlayLoader UNDERLAY_LOADER = new UnderlayLoader();
+	private static final OverlayLoader OVERLAY_LOADER = new OverlayLoader();
+	private static final TextureLoader TEXTURE_LOADER = new TextureLoader();
+	private static final InterfaceLoader INTERFACE_LOADER = new InterfaceLoader();
+
+	/**
+	 * The definition table of one archive, resolved the first time it is
+	 * needed and then read without locking. Each table is resolved under
+	 * its own lock, so making a snapshot for one table does not hold up
+	 * lookups in the others, and the table is only published once it is
+	 * complete.
+	 */
+	private class Table<T>
+	{
+		private final IndexType indexType;
+		private final int archiveId;
+		private final BiFunction<Integer, byte[], T> loader;
+		private final Class<T> type; // null if the definitions are never snapshotted
+		private final IntFunction<T> factory; // creates an empty definition with an id
+
+		private volatile DefinitionTable<T> table;
+
+		private Table(IndexType indexType, int archiveId, BiFunction<Integer, byte[], T> loader, Class<T> type, IntFunction<T> factory)
+		{
+			this.indexType = indexType;
+			this.archiveId = archiveId;
+			this.loader = loader;
+			this.type = type;
+			this.factory = factory;
+		}
+
+		DefinitionTable<T> get()
+		{
+			DefinitionTable<T> t = table;
+			if (t == null)
+			{
+				synchronized (this)
+				{
+					t = table;
+					if (t == null)
+					{
+						table = t = load(indexType, archiveId, loader, type, factory);
+					}
+				}
+			}
+			return t;
+		}
+
+		synchronized void clear()
+		{
+			table = null;
+		}
+	}
+
+	private final Store store;
+	private final boolean soft;
+
+	private final Table<ItemDefinition> items = new Table<>(IndexType.CONFIGS, ConfigType.ITEM.getId(), ITEM_LOADER::load, ItemDefinition.class, ItemDefinition::new);
+	private final Table<NpcDefinition> npcs = new Table<>(IndexType.CONFIGS, ConfigType.NPC.getId(), NPC_LOADER::load, NpcDefinition.class, NpcDefinition::new);
+	private final Table<ObjectDefinition> objects = new Table<>(IndexType.CONFIGS, ConfigType.OBJECT.getId(), OBJECT_LOADER::load, ObjectDefinition.class, id -> new ObjectDefinition());
+	private final Table<UnderlayDefinition> underlays = new Table<>(IndexType.CONFIGS, ConfigType.UNDERLAY.getId(), UNDERLAY_LOADER::load, UnderlayDefinition.class, id -> new UnderlayDefinition());
+	private final Table<OverlayDefinition> overlays = new Table<>(IndexType.CONFIGS, ConfigType.OVERLAY.getId(), OVERLAY_LOADER::load, OverlayDefinition.class, id -> new OverlayDefinition());
+	private final Table<TextureDefinition> textures = new Table<>(IndexType.TEXTURES, 0, TEXTURE_LOADER::load, TextureDefinition.class, id -> new TextureDefinition());
+	private final List<Table<?>> tables = Arrays.asList(items, npcs, objects, underlays, overlays, textures);
+
+	// interface definitions have an archive per interface
+	private final Map<Integer, Table<InterfaceDefinition>> interfaces = new ConcurrentHashMap<>();
+
+	private volatile File snapshotDirectory;
+
+	public DefinitionCache(Store store)
+	{
+		this(store, false);
+	}
+
+	public DefinitionCache(Store store, boolean soft)
+	{
+		this.store = store;
+		this.soft = soft;
+	}
+
+	public boolean isSoft()
+	{
+		return soft;
+	}
+
+	public File getSnapshotDirectory()
+	{
+		return snapshotDirectory;
+	}
+
+	/**
+	 * Set the directory definition snapshots are kept in, or null to
+	 * always decode definitions. This discards every decoded definition.
+	 *
+	 * @param snapshotDirectory
+	 */
+	public synchronized void setSnapshotDirectory(File snapshotDirectory)
+	{
+		this.snapshotDirectory = snapshotDirectory;
+		clear();
+	}
+
+	public ItemDefinition getItem(int id)
+	{
+		return items.get().get(id);
+	}
+
+	public List<ItemDefinition> getItems()
+	{
+		return items.get().getAll();
+	}
+
+	public NpcDefinition getNpc(int id)
+	{
+		return npcs.get().get(id);
+	}
+
+	public List<NpcDefinition> getNpcs()
+	{
+		return npcs.get().getAll();
+	}
+
+	public ObjectDefinition getObject(int id)
+	{
+		return objects.get().get(id);
+	}
+
+	public List<ObjectDefinition> getObjects()
+	{
+		return objects.get().getAll();
+	}
+
+	public UnderlayDefinition getUnderlay(int id)
+	{
+		return underlays.get().get(id);
+	}
+
+	public List<UnderlayDefinition> getUnderlays()
+	{
+		return underlays.get().getAll();
+	}
+
+	public OverlayDefinition getOverlay(int id)
+	{
+		return overlays.get().get(id);
+	}
+
+	public List<OverlayDefinition> getOverlays()
+	{
+		return overlays.get().getAll();
+	}
+
+	public TextureDefinition getTexture(int id)
+	{
+		return textures.get().get(id);
+	}
+
+	public List<TextureDefinition> getTextures()
+	{
+		return textures.get().getAll();
+	}
+
+	/**
+	 * @param widgetId the interface id in the upper 16 bits, and the
+	 * component in the lower
+	 * @return the interface component, or null if there is none
+	 */
+	public InterfaceDefinition getInterface(int widgetId)
+	{
+		return interfaces(widgetId >>> 16).get().get(widgetId & 0xFFFF);
+	}
+
+	public List<InterfaceDefinition> getInterfaces()
+	{
+		List<InterfaceDefinition> all = new ArrayList<>();
+		Index index = store.findIndex(IndexType.INTERFACES.getNumber());
+		if (index != null)
+		{
+			for (Archive archive : index.getArchives())
+			{
+				all.addAll(interfaces(archive.getArchiveId()).get().getAll());
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Discard every decoded definition.
+	 */
+	public synchronized void clear()
+	{
+		for (Table<?> table : tables)
+		{
+			table.clear();
+		}
+		interfaces.clear();
+	}
+
+	private Table<InterfaceDefinition> interfaces(int interfaceId)
+	{
+		// interface definitions are identified by their widget id
+		return interfaces.computeIfAbsent(interfaceId, i -> new Table<>(IndexType.INTERFACES, i,
+			(id, b) -> INTERFACE_LOADER.load(i << 16 | id, b), null, null));
+	}
+
+	/**
+	 * Called with the lock of the table being resolved held.
+	 *
+	 * @return the table of the archive, which is empty if there is no such
+	 * archive
+	 */
+	private <T> DefinitionTable<T> load(IndexType indexType, int archiveId, BiFunction<Integer, byte[], T> loader,
+		Class<T> type, IntFunction<T> factory)
+	{
+		Index index = store.findIndex(indexType.getNumber());
+		Archive archive = index != null ? index.getArchive(archiveId) : null;
+		if (archive == null)
+		{
+			return new DefinitionTable<>(0, id -> null, soft);
+		}
+
+		DefinitionTable<T> table = new DefinitionTable<>(archive, loader, soft);
+		File directory = snapshotDirectory;
+		if (directory != null && type != null)
+		{
+			table = snapshot(directory, archive, table, type, factory);
+		}
+		return table;
+	}
+
+	private <T> DefinitionTable<T> snapshot(File directory, Archive archive, DefinitionTable<T> table, Class<T> type, IntFunction<T> factory)
+	{
+		// snapshots are named by crc, as a snapshot which is mapped can't be
+		// replaced on every platform
+		String prefix = archive.getIndex().getId() + "-" + archive.getArchiveId() + "-";
+		File file = new File(directory, prefix + Integer.toHexString(archive.getCrc()) + ".dat");
+
+		try
+		{
+			DefinitionSnapshot<T> snapshot = DefinitionSnapshot.load(file, type, factory, archive.getCrc());
+			if (snapshot != null)
+			{
+				return new DefinitionTable<>(snapshot.getMaxId() + 1, snapshot::get, soft);
+			}
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.warn("unable to load definition snapshot {}", file, ex);
+		}
+
+		// the snapshot is missing or out of date, so decode everything and remake it
+		Map<Integer, T> definitions = new HashMap<>();
+		for (net.runelite.cache.fs.File f : archive.getFiles())
+		{
+			definitions.put(f.getFileId(), table.get(f.getFileId()));
+		}
+
+		try
+		{
+			directory.mkdirs();
+			DefinitionSnapshot.write(file, type, archive.getCrc(), definitions);
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			// such as a definition field the snapshot can't encode
+			logger.warn("unable to write definition snapshot {}", file, ex);
+			return table;
+		}
+
+		// remove the snapshots of earlier versions of the archive, which
+		// may fail if they are still mapped
+		File[] old = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".dat") && !name.equals(file.getName()));
+		if (old != null)
+		{
+			for (File f : old)
+			{
+				f.delete();
+			}
+		}
+
+		return table;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.File;
+
+/**
+ * The definitions of the files of one archive, decoded on first use and
+ * stored by file id. Safe for concurrent use; if two threads decode the
+ * same definition at once, both see the first one stored.
+ *
+ * @param <T> definition type
+ */
+class DefinitionTable<T>
+{
+	private static final Object MISSING = new Object();
+
+	private final IntFunction<T> source;
+	private final boolean soft;
+
+	private final AtomicReferenceArray<Object> definitions; // T, SoftReference<T> or MISSING
+
+	DefinitionTable(Archive archive, BiFunction<Integer, byte[], T> loader, boolean soft)
+	{
+		this(maxFileId(archive) + 1, id ->
+		{
+			File file = archive.getFile(id);
+			return file != null ? loader.apply(id, file.getContents()) : null;
+		}, soft);
+	}
+
+	/**
+	 * @param size one more than the highest id
+	 * @param source gives the definition with an id, or null if there is
+	 * none
+	 * @param soft
+	 */
+	DefinitionTable(int size, IntFunction<T> source, boolean soft)
+	{
+		this.source = source;
+		this.soft = soft;
+		definitions = new AtomicReferenceArray<>(size);
+	}
+
+	private static int maxFileId(Archive archive)
+	{
+		int max = -1;
+		for (File file : archive.getFiles())
+		{
+			max = Math.max(max, file.getFileId());
+		}
+		return max;
+	}
+
+	@SuppressWarnings("unchecked")
+	T get(int id)
+	{
+		if (id < 0 || id >= definitions.length())
+		{
+			return null;
+		}
+
+		Object o = definitions.get(id);
+		if (o == MISSING)
+		{
+			return null;
+		}
+
+		if (o instanceof SoftReference)
+		{
+			T def = ((SoftReference<T>) o).get();
+			if (def != null)
+			{
+				return def;
+			}
+		}
+		else if (o != null)
+		{
+			return (T) o;
+		}
+
+		T def = source.apply(id);
+		if (def == null)
+		{
+			definitions.set(id, MISSING);
+			return null;
+		}
+
+		if (definitions.compareAndSet(id, o, soft ? new SoftReference<>(def) : def))
+		{
+			return def;
+		}
+
+		return get(id); // another thread stored it first
+	}
+
+	/**
+	 * @return every definition, in file id order
+	 */
+	List<T> getAll()
+	{
+		List<T> all = new ArrayList<>();
+		for (int i = 0; i < definitions.length(); ++i)
+		{
+			T def = get(i);
+			if (def != null)
+			{
+				all.add(def);
+			}
+		}
+		return all;
+	}
+}
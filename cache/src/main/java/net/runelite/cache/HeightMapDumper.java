@@ -26,7 +26,9 @@ package net.runelite.cache;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
@@ -51,17 +53,24 @@ public class HeightMapDumper
 	public void load() throws IOException
 	{
 		regionLoader = new RegionLoader(store);
-		regionLoader.loadRegions();
 		regionLoader.calculateBounds();
 	}
 
-	public BufferedImage drawHeightMap(int z)
+	/**
+	 * Draw the height map of a plane. Regions are decoded as they are
+	 * drawn and are not kept in memory.
+	 *
+	 * @param z
+	 * @return
+	 * @throws IOException
+	 */
+	public BufferedImage drawHeightMap(int z) throws IOException
 	{
-		int minX = regionLoader.getLowestX().getBaseX();
-		int minY = regionLoader.getLowestY().getBaseY();
+		int minX = regionLoader.getLowestX();
+		int minY = regionLoader.getLowestY();
 
-		int maxX = regionLoader.getHighestX().getBaseX() + Region.X;
-		int maxY = regionLoader.getHighestY().getBaseY() + Region.Y;
+		int maxX = regionLoader.getHighestX() + Region.X;
+		int maxY = regionLoader.getHighestY() + Region.Y;
 
 		int dimX = maxX - minX;
 		int dimY = maxY - minY;
@@ -76,22 +85,29 @@ public class HeightMapDumper
 		return image;
 	}
 
-	private void draw(BufferedImage image, int z)
+	private void draw(BufferedImage image, int z) throws IOException
 	{
-		int max = Integer.MIN_VALUE;
-		int min = Integer.MAX_VALUE;
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int width = image.getWidth();
 
-		for (Region region : regionLoader.getRegions())
+		AtomicInteger max = new AtomicInteger(Integer.MIN_VALUE);
+		AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
+
+		// regions are drawn concurrently, but cover disjoint areas of the image
+		regionLoader.forEachRegion(region ->
 		{
 			int baseX = region.getBaseX();
 			int baseY = region.getBaseY();
 
 			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
+			int drawBaseX = baseX - regionLoader.getLowestX();
 
 			// to pixel Y. top most y is 0, but the top most
 			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
+			int drawBaseY = regionLoader.getHighestY() - baseY;
+
+			int regionMax = Integer.MIN_VALUE;
+			int regionMin = Integer.MAX_VALUE;
 
 			for (int x = 0; x < Region.X; ++x)
 			{
@@ -102,21 +118,24 @@ public class HeightMapDumper
 					int drawY = drawBaseY + (Region.Y - 1 - y);
 
 					int height = region.getTileHeight(z, x, y);
-					if (height > max)
+					if (height > regionMax)
 					{
-						max = height;
+						regionMax = height;
 					}
-					if (height < min)
+					if (height < regionMin)
 					{
-						min = height;
+						regionMin = height;
 					}
 
-					int rgb = toColor(height);
+					int rgb = toColor(height) & 0xFFFFFF;
 
-					drawMapSquare(image, drawX, drawY, rgb);
+					drawMapSquare(pixels, width, drawX, drawY, rgb);
 				}
 			}
-		}
+
+			max.accumulateAndGet(regionMax, Math::max);
+			min.accumulateAndGet(regionMin, Math::min);
+		});
 		System.out.println("max " + max);
 		System.out.println("min " + min);
 	}
@@ -133,7 +152,7 @@ public class HeightMapDumper
 		return new Color(color, color, color).getRGB();
 	}
 
-	private void drawMapSquare(BufferedImage image, int x, int y, int rgb)
+	private void drawMapSquare(int[] pixels, int width, int x, int y, int rgb)
 	{
 		x *= MAP_SCALE;
 		y *= MAP_SCALE;
@@ -142,7 +161,7 @@ public class HeightMapDumper
 		{
 			for (int j = 0; j < MAP_SCALE; ++j)
 			{
-				image.setRGB(x + i, y + j, rgb);
+				pixels[(y + j) * width + x + i] = rgb;
 			}
 		}
 	}
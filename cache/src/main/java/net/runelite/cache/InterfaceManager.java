@@ -30,44 +30,36 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.cache.definitions.InterfaceDefinition;
-import net.runelite.cache.definitions.exporters.InterfaceExporter;
-import net.runelite.cache.definitions.loaders.InterfaceLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.Index;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.Namer;
 
 public class InterfaceManager
 {
-	private final Store store;
+	private final DefinitionCache cache;
 	private final List<InterfaceDefinition> interfaces = new ArrayList<>();
 	private final Namer namer = new Namer();
 
 	public InterfaceManager(Store store)
 	{
-		this.store = store;
+		this(new DefinitionCache(store));
 	}
 
-	public void load()
+	/**
+	 * Use definitions from a cache which may be shared with other users
+	 * of the store. The definitions are then shared too, and must not be
+	 * modified.
+	 *
+	 * @param cache
+	 */
+	public InterfaceManager(DefinitionCache cache)
 	{
-		InterfaceLoader loader = new InterfaceLoader();
-
-		Index index = store.getIndex(IndexType.INTERFACES);
-
-		for (Archive archive : index.getArchives())
-		{
-			int archiveId = archive.getArchiveId();
-
-			for (net.runelite.cache.fs.File file : archive.getFiles())
-			{
-				int fileId = file.getFileId();
-
-				int widgetId = (archiveId << 16) + fileId;
+		this.cache = cache;
+	}
 
-				InterfaceDefinition iface = loader.load(widgetId, file.getContents());
-				interfaces.add(iface);
-			}
-		}
+	public void load()
+	{
+		interfaces.addAll(cache.getInterfaces());
 	}
 
 	public List<InterfaceDefinition> getItems()
@@ -77,15 +69,19 @@ public class InterfaceManager
 
 	public void export(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (InterfaceDefinition def : interfaces)
-		{
-			InterfaceExporter exporter = new InterfaceExporter(def);
+		JsonExporter.export(interfaces, out, def -> def.id);
+	}
 
-			File targ = new File(out, def.id + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Export every definition to a single file.
+	 *
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public void export(File file, JsonExporter.Format format) throws IOException
+	{
+		JsonExporter.export(interfaces, file, format);
 	}
 
 	public void java(File java) throws IOException
@@ -30,36 +30,36 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.cache.definitions.ItemDefinition;
-import net.runelite.cache.definitions.exporters.ItemExporter;
-import net.runelite.cache.definitions.loaders.ItemLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.Index;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.Namer;
 
 public class ItemManager
 {
-	private final Store store;
+	private final DefinitionCache cache;
 	private final List<ItemDefinition> items = new ArrayList<>();
 	private final Namer namer = new Namer();
 
 	public ItemManager(Store store)
 	{
-		this.store = store;
+		this(new DefinitionCache(store));
 	}
 
-	public void load()
+	/**
+	 * Use definitions from a cache which may be shared with other users
+	 * of the store. The definitions are then shared too, and must not be
+	 * modified.
+	 *
+	 * @param cache
+	 */
+	public ItemManager(DefinitionCache cache)
 	{
-		ItemLoader loader = new ItemLoader();
-
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.ITEM.getId());
+		this.cache = cache;
+	}
 
-		for (net.runelite.cache.fs.File f : archive.getFiles())
-		{
-			ItemDefinition def = loader.load(f.getFileId(), f.getContents());
-			items.add(def);
-		}
+	public void load()
+	{
+		items.addAll(cache.getItems());
 	}
 
 	public List<ItemDefinition> getItems()
@@ -69,15 +69,19 @@ public class ItemManager
 
 	public void export(File out) throws IOException
 	{
-		out.mkdirs();
+		JsonExporter.export(items, out, def -> def.id);
+	}
 
-		for (ItemDefinition def : items)
-		{
-			ItemExporter exporter = new ItemExporter(def);
-			
-			File targ = new File(out, def.id + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Export every definition to a single file.
+	 *
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public void export(File file, JsonExporter.Format format) throws IOException
+	{
+		JsonExporter.export(items, file, format);
 	}
 
 	public void java(File java) throws IOException
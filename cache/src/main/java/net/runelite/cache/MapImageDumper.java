@@ -30,27 +30,27 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.definitions.OverlayDefinition;
 import net.runelite.cache.definitions.SpriteDefinition;
 import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.UnderlayDefinition;
-import net.runelite.cache.definitions.loaders.ObjectLoader;
-import net.runelite.cache.definitions.loaders.OverlayLoader;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
-import net.runelite.cache.definitions.loaders.TextureLoader;
-import net.runelite.cache.definitions.loaders.UnderlayLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.File;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.io.InputStream;
-import net.runelite.cache.region.Location;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
 import net.runelite.cache.util.Djb2;
@@ -61,104 +61,255 @@ public class MapImageDumper
 {
 	private static final Logger logger = LoggerFactory.getLogger(MapImageDumper.class);
 
-	private static final int MAP_SCALE = 2; // this squared is the number of pixels per map square
+	static final int MAP_SCALE = 2; // this squared is the number of pixels per map square
 	private static final int MAPICON_MAX_WIDTH = 5; // scale minimap icons down to this size so they fit..
 	private static final int MAPICON_MAX_HEIGHT = 6;
+	static final int ICON_MARGIN = 32; // map icons may extend beyond their region by up to this many pixels
+	static final int WORLD_HEIGHT = 256 * Region.Y; // in map squares
 
 	private final Store store;
+	private final DefinitionCache cache;
 
-	private final List<UnderlayDefinition> underlays = new ArrayList<>();
-	private final List<OverlayDefinition> overlays = new ArrayList<>();
-	private final List<TextureDefinition> textures = new ArrayList<>();
 	private final Multimap<Integer, SpriteDefinition> sprites = HashMultimap.create();
 	private final Map<SpriteDefinition, Integer> averageColors = new HashMap<>();
 	private final Map<Integer, Image> scaledMapIcons = new HashMap<>();
-	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
 	private final Map<Integer, Image> mapFunctions = new HashMap<>(); // quest, water, etc
 
+	// colors indexed by underlay/overlay id, or -1 if there is no definition
+	private int[] underlayColors;
+	private int[] overlayColors;
+
 	private RegionLoader regionLoader;
+	// position + 1 of each region in regionLoader.getRegions(), indexed by region id, or 0 if not loaded
+	private int[] regionPositions;
 
 	private boolean labelRegions;
 	private boolean outlineRegions;
 
 	public MapImageDumper(Store store)
+	{
+		this(store, new DefinitionCache(store));
+	}
+
+	public MapImageDumper(Store store, DefinitionCache cache)
 	{
 		this.store = store;
+		this.cache = cache;
 	}
 
 	public void load() throws IOException
 	{
-		loadUnderlays(store);
-		loadOverlays(store);
-		loadTextures(store);
 		loadSprites(store);
-		loadObjects(store);
+
+		buildColors();
 
 		loadRegions(store);
 	}
 
 	public BufferedImage drawMap(int z) throws IOException
 	{
-		int minX = regionLoader.getLowestX().getBaseX();
-		int minY = regionLoader.getLowestY().getBaseY();
+		int dimX = getWidth();
+		int dimY = getHeight();
 
-		int maxX = regionLoader.getHighestX().getBaseX() + Region.X;
-		int maxY = regionLoader.getHighestY().getBaseY() + Region.Y;
+		logger.info("Map image dimensions: {}px x {}px, {}px per map square ({} MB)", dimX, dimY, MAP_SCALE, (dimX * dimY / 1024 / 1024));
 
-		int dimX = maxX - minX;
-		int dimY = maxY - minY;
+		BufferedImage image = new BufferedImage(dimX, dimY, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
-		dimX *= MAP_SCALE;
-		dimY *= MAP_SCALE;
+		// regions cover disjoint areas of the image, so can be drawn at the same time
+		regionLoader.getRegions().parallelStream()
+			.forEach(region -> drawTerrain(pixels, dimX, dimY, 0, 0, region, z));
 
-		logger.info("Map image dimensions: {}px x {}px, {}px per map square ({} MB)", dimX, dimY, MAP_SCALE, (dimX * dimY / 1024 / 1024));
+		drawGraphics(image, 0, 0, z, regionLoader.getRegions());
 
-		BufferedImage image = new BufferedImage(dimX, dimY, BufferedImage.TYPE_INT_RGB);
+		return image;
+	}
 
-		drawUnderlay(image, z);
-		drawOverlay(image, z);
+	/**
+	 * Draw the map in tiles of tileSize by tileSize pixels, writing each to
+	 * outDir as z-x-y.png, where x and y are the tile column and row. Tiles
+	 * are drawn in parallel and the whole map is never held in memory.
+	 *
+	 * @param z
+	 * @param tileSize
+	 * @param outDir
+	 * @throws IOException
+	 */
+	public void drawTiles(int z, int tileSize, java.io.File outDir) throws IOException
+	{
+		int dimX = getWidth();
+		int dimY = getHeight();
 
-		// objects
-		for (Region region : regionLoader.getRegions())
-		{
-			int baseX = region.getBaseX();
-			int baseY = region.getBaseY();
+		int tilesX = (dimX + tileSize - 1) / tileSize;
+		int tilesY = (dimY + tileSize - 1) / tileSize;
 
-			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
+		logger.info("Drawing {} x {} tiles of {}px for plane {}", tilesX, tilesY, tileSize, z);
+
+		try
+		{
+			IntStream.range(0, tilesX * tilesY).parallel().forEach(i ->
+			{
+				int tileX = i % tilesX;
+				int tileY = i / tilesX;
 
-			// to pixel Y. top most y is 0, but the top most
-			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
+				BufferedImage tile = drawTile(z, tileX * tileSize, tileY * tileSize, tileSize);
 
-			Graphics2D graphics = image.createGraphics();
-			
-			drawObjects(graphics, region, z, drawBaseX, drawBaseY);
+				try
+				{
+					ImageIO.write(tile, "png", new java.io.File(outDir, z + "-" + tileX + "-" + tileY + ".png"));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
 
-			graphics.dispose();
+	/**
+	 * Draw a square area of the map.
+	 *
+	 * @param z
+	 * @param originX pixel x of the left edge of the tile
+	 * @param originY pixel y of the top edge of the tile
+	 * @param tileSize
+	 * @return
+	 */
+	public BufferedImage drawTile(int z, int originX, int originY, int tileSize)
+	{
+		BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		// only the regions whose squares fall within the tile bounds, widened
+		// by the icon margin, can overlap it
+		int regionSize = Region.X * MAP_SCALE;
+		int minRegionX = Math.max(0, Math.floorDiv(regionLoader.getLowestX() * MAP_SCALE + originX - ICON_MARGIN, regionSize) - 1);
+		int maxRegionX = Math.min(255, Math.floorDiv(regionLoader.getLowestX() * MAP_SCALE + originX + tileSize + ICON_MARGIN, regionSize));
+		int minRegionY = Math.max(0, Math.floorDiv(regionLoader.getHighestY() * MAP_SCALE - originY - tileSize - ICON_MARGIN, regionSize));
+		int maxRegionY = Math.min(255, Math.floorDiv(regionLoader.getHighestY() * MAP_SCALE - originY + ICON_MARGIN, regionSize) + 1);
+
+		List<Region> loaded = regionLoader.getRegions();
+		int[] positions = new int[(maxRegionX - minRegionX + 1) * (maxRegionY - minRegionY + 1)];
+		int count = 0;
+		for (int x = minRegionX; x <= maxRegionX; ++x)
+		{
+			for (int y = minRegionY; y <= maxRegionY; ++y)
+			{
+				int position = regionPositions[x << 8 | y];
+				if (position != 0)
+				{
+					positions[count++] = position - 1;
+				}
+			}
 		}
 
-		// map icons
-		for (Region region : regionLoader.getRegions())
+		// draw in load order, as drawMap does
+		Arrays.sort(positions, 0, count);
+
+		List<Region> regions = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
 		{
-			int baseX = region.getBaseX();
-			int baseY = region.getBaseY();
+			Region region = loaded.get(positions[i]);
+			int regionX = getDrawBaseX(region) * MAP_SCALE;
+			int regionY = getDrawBaseY(region) * MAP_SCALE;
+
+			// include regions just outside of the tile whose icons may overlap it
+			if (regionX + Region.X * MAP_SCALE + ICON_MARGIN > originX && regionX - ICON_MARGIN < originX + tileSize
+				&& regionY + Region.Y * MAP_SCALE + ICON_MARGIN > originY && regionY - ICON_MARGIN < originY + tileSize)
+			{
+				regions.add(region);
+				drawTerrain(pixels, tileSize, tileSize, originX, originY, region, z);
+			}
+		}
 
-			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
+		drawGraphics(image, originX, originY, z, regions);
 
-			// to pixel Y. top most y is 0, but the top most
-			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
+		return image;
+	}
 
-			Graphics2D graphics = image.createGraphics();
+	/**
+	 * Draw a square area of the map, positioned in world pixels rather than
+	 * relative to the regions loaded. World pixel (0, 0) is the north west
+	 * corner of the world, so the position of an area does not change when
+	 * regions are added to or removed from the cache.
+	 *
+	 * @param z
+	 * @param worldX world pixel x of the left edge of the tile
+	 * @param worldY world pixel y of the top edge of the tile
+	 * @param tileSize
+	 * @return
+	 */
+	public BufferedImage drawWorldTile(int z, int worldX, int worldY, int tileSize)
+	{
+		int originX = worldX - regionLoader.getLowestX() * MAP_SCALE;
+		int originY = worldY - (WORLD_HEIGHT - Region.Y - regionLoader.getHighestY()) * MAP_SCALE;
+		return drawTile(z, originX, originY, tileSize);
+	}
+
+	private int getWidth()
+	{
+		int minX = regionLoader.getLowestX();
+		int maxX = regionLoader.getHighestX() + Region.X;
+		return (maxX - minX) * MAP_SCALE;
+	}
+
+	private int getHeight()
+	{
+		int minY = regionLoader.getLowestY();
+		int maxY = regionLoader.getHighestY() + Region.Y;
+		return (maxY - minY) * MAP_SCALE;
+	}
+
+	private int getDrawBaseX(Region region)
+	{
+		// to map square X
+		return region.getBaseX() - regionLoader.getLowestX();
+	}
+
+	private int getDrawBaseY(Region region)
+	{
+		// to map square Y. top most y is 0, but the top most
+		// region has the greatest y, so invert
+		return regionLoader.getHighestY() - region.getBaseY();
+	}
+
+	/**
+	 * Draw the objects, map icons and region labels and outlines of the
+	 * given regions.
+	 *
+	 * @param image
+	 * @param originX pixel x of the image within the map
+	 * @param originY pixel y of the image within the map
+	 * @param z
+	 * @param regions
+	 */
+	private void drawGraphics(BufferedImage image, int originX, int originY, int z, List<Region> regions)
+	{
+		Graphics2D graphics = image.createGraphics();
+		graphics.translate(-originX, -originY);
+
+		// objects
+		for (Region region : regions)
+		{
+			drawObjects(graphics, region, z, getDrawBaseX(region), getDrawBaseY(region));
+		}
+
+		// map icons
+		for (Region region : regions)
+		{
+			int drawBaseX = getDrawBaseX(region);
+			int drawBaseY = getDrawBaseY(region);
 
 			drawMapIcons(graphics, region, z, drawBaseX, drawBaseY);
 
 			if (labelRegions)
 			{
 				graphics.setColor(Color.WHITE);
-				String str = baseX + "," + baseY + " (" + region.getRegionX() + "," + region.getRegionY() + ")";
+				String str = region.getBaseX() + "," + region.getBaseY() + " (" + region.getRegionX() + "," + region.getRegionY() + ")";
 				graphics.drawString(str, drawBaseX * MAP_SCALE, drawBaseY * MAP_SCALE + graphics.getFontMetrics().getHeight());
 			}
 
@@ -167,148 +318,156 @@ public class MapImageDumper
 				graphics.setColor(Color.WHITE);
 				graphics.drawRect(drawBaseX * MAP_SCALE, drawBaseY * MAP_SCALE, Region.X * MAP_SCALE, Region.Y * MAP_SCALE);
 			}
-
-			graphics.dispose();
 		}
 
-		return image;
+		graphics.dispose();
 	}
-	
-	private void drawUnderlay(BufferedImage image, int z)
+
+	/**
+	 * Draw the underlays and overlays of a region into a pixel buffer,
+	 * clipped to the buffer.
+	 *
+	 * @param pixels
+	 * @param width width of the buffer
+	 * @param height height of the buffer
+	 * @param originX pixel x of the buffer within the map
+	 * @param originY pixel y of the buffer within the map
+	 * @param region
+	 * @param z
+	 */
+	private void drawTerrain(int[] pixels, int width, int height, int originX, int originY, Region region, int z)
 	{
-		// pass 1
-		for (Region region : regionLoader.getRegions())
-		{
-			int baseX = region.getBaseX();
-			int baseY = region.getBaseY();
+		int regionX = getDrawBaseX(region) * MAP_SCALE - originX;
+		int regionY = getDrawBaseY(region) * MAP_SCALE - originY;
 
-			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
+		if (regionX >= width || regionY >= height || regionX + Region.X * MAP_SCALE <= 0 || regionY + Region.Y * MAP_SCALE <= 0)
+		{
+			return;
+		}
 
-			// to pixel Y. top most y is 0, but the top most
-			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
+		for (int x = 0; x < Region.X; ++x)
+		{
+			int drawX = regionX + x * MAP_SCALE;
 
-			for (int x = 0; x < Region.X; ++x)
+			for (int y = 0; y < Region.Y; ++y)
 			{
-				int drawX = drawBaseX + x;
+				int drawY = regionY + (Region.Y - 1 - y) * MAP_SCALE;
 
-				for (int y = 0; y < Region.Y; ++y)
-				{
-					int drawY = drawBaseY + (Region.Y - 1 - y);
+				int overlayId = region.getOverlayId(z, x, y) - 1;
+				int underlayId = region.getUnderlayId(z, x, y) - 1;
 
-					int overlayId = region.getOverlayId(z, x, y) - 1;
-					int underlayId = region.getUnderlayId(z, x, y) - 1;
-					int rgb = 0;
-					
-					if (overlayId > -1)
+				// overlays are drawn over the underlay, entirely covering it
+				int rgb = color(overlayColors, overlayId);
+				if (rgb == -1)
+				{
+					rgb = color(underlayColors, underlayId);
+					if (rgb == -1)
 					{
-						OverlayDefinition overlay = findOverlay(overlayId);
-						if (!overlay.isHideUnderlay() && underlayId > -1)
-						{
-							UnderlayDefinition underlay = findUnderlay(underlayId);
-							rgb = underlay.getColor();
-						}
+						rgb = 0;
 					}
-					else if (underlayId > -1)
+				}
+
+				for (int j = 0; j < MAP_SCALE; ++j)
+				{
+					int py = drawY + j;
+					if (py < 0 || py >= height)
 					{
-						UnderlayDefinition underlay = findUnderlay(underlayId);
-						rgb = underlay.getColor();
+						continue;
 					}
 
-					drawMapSquare(image, drawX, drawY, rgb);
+					int row = py * width;
+					for (int i = 0; i < MAP_SCALE; ++i)
+					{
+						int px = drawX + i;
+						if (px >= 0 && px < width)
+						{
+							pixels[row + px] = rgb;
+						}
+					}
 				}
 			}
 		}
 	}
-	
-	private void drawOverlay(BufferedImage image, int z)
-	{
-		for (Region region : regionLoader.getRegions())
-		{
-			int baseX = region.getBaseX();
-			int baseY = region.getBaseY();
-
-			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
-
-			// to pixel Y. top most y is 0, but the top most
-			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
 
-			for (int x = 0; x < Region.X; ++x)
-			{
-				int drawX = drawBaseX + x;
+	private static int color(int[] colors, int id)
+	{
+		return id > -1 && id < colors.length ? colors[id] : -1;
+	}
 
-				for (int y = 0; y < Region.Y; ++y)
-				{
-					int drawY = drawBaseY + (Region.Y - 1 - y);
+	/**
+	 * Build the color of each underlay and overlay, so drawing does not
+	 * need to look up their definitions.
+	 */
+	private void buildColors()
+	{
+		List<UnderlayDefinition> underlays = cache.getUnderlays();
+		List<OverlayDefinition> overlays = cache.getOverlays();
 
-					int overlayId = region.getOverlayId(z, x, y) - 1;
+		int maxUnderlay = -1;
+		for (UnderlayDefinition underlay : underlays)
+		{
+			maxUnderlay = Math.max(maxUnderlay, underlay.getId());
+		}
 
-					if (overlayId > -1)
-					{
-						OverlayDefinition overlay = findOverlay(overlayId);
+		underlayColors = new int[maxUnderlay + 1];
+		Arrays.fill(underlayColors, -1);
+		for (UnderlayDefinition underlay : underlays)
+		{
+			underlayColors[underlay.getId()] = underlay.getColor() & 0xFFFFFF;
+		}
 
-						int rgb = 0;
-						if (overlay.isHideUnderlay())
-						{
-							rgb = overlay.getRgbColor();
-						}
+		int maxOverlay = -1;
+		for (OverlayDefinition overlay : overlays)
+		{
+			maxOverlay = Math.max(maxOverlay, overlay.getId());
+		}
 
-						if (overlay.getSecondaryRgbColor() > -1)
-						{
-							rgb = overlay.getSecondaryRgbColor();
-						}
+		overlayColors = new int[maxOverlay + 1];
+		Arrays.fill(overlayColors, -1);
+		for (OverlayDefinition overlay : overlays)
+		{
+			int rgb = 0;
+			if (overlay.isHideUnderlay())
+			{
+				rgb = overlay.getRgbColor();
+			}
 
-						if (overlay.getTexture() > -1)
-						{
-							TextureDefinition texture = findTexture(overlay.getTexture());
-							assert texture.getFileIds().length == 1;
+			if (overlay.getSecondaryRgbColor() > -1)
+			{
+				rgb = overlay.getSecondaryRgbColor();
+			}
 
-							SpriteDefinition sprite = findSprite(texture.getFileIds()[0], 0);
-							assert sprite != null;
+			if (overlay.getTexture() > -1)
+			{
+				TextureDefinition texture = findTexture(overlay.getTexture());
+				assert texture.getFileIds().length == 1;
 
-							rgb = averageColors.get(sprite);
-						}
+				SpriteDefinition sprite = findSprite(texture.getFileIds()[0], 0);
+				assert sprite != null;
 
-						drawMapSquare(image, drawX, drawY, rgb);
-					}
-				}
+				rgb = averageColors.get(sprite);
 			}
-		}
-	}
 
-	private void drawMapSquare(BufferedImage image, int x, int y, int rgb)
-	{
-		x *= MAP_SCALE;
-		y *= MAP_SCALE;
-
-		for (int i = 0; i < MAP_SCALE; ++i)
-		{
-			for (int j = 0; j < MAP_SCALE; ++j)
-			{
-				image.setRGB(x + i, y + j, rgb);
-			}
+			overlayColors[overlay.getId()] = rgb & 0xFFFFFF;
 		}
 	}
 
 	private void drawObjects(Graphics2D graphics, Region region, int z, int drawBaseX, int drawBaseY)
 	{
-		for (Location location : region.getLocations())
+		for (int i = 0; i < region.getLocationCount(); ++i)
 		{
 			// regions include locations on all planes, so check
-			if (location.getPosition().getZ() != z)
+			if (region.getLocationZ(i) != z)
 			{
 				continue;
 			}
 
-			ObjectDefinition od = findObject(location.getId());
+			ObjectDefinition od = findObject(region.getLocationId(i));
 
 			assert od != null;
 
-			int localX = location.getPosition().getX() - region.getBaseX();
-			int localY = location.getPosition().getY() - region.getBaseY();
+			int localX = region.getLocationX(i) - region.getBaseX();
+			int localY = region.getLocationY(i) - region.getBaseY();
 
 			int drawX = drawBaseX + localX;
 			int drawY = drawBaseY + (Region.Y - 1 - localY);
@@ -323,16 +482,16 @@ public class MapImageDumper
 
 	private void drawMapIcons(Graphics2D graphics, Region region, int z, int drawBaseX, int drawBaseY)
 	{
-		for (Location location : region.getLocations())
+		for (int i = 0; i < region.getLocationCount(); ++i)
 		{
 			// draw map icons from all planes
 
-			ObjectDefinition od = findObject(location.getId());
+			ObjectDefinition od = findObject(region.getLocationId(i));
 
 			assert od != null;
 
-			int localX = location.getPosition().getX() - region.getBaseX();
-			int localY = location.getPosition().getY() - region.getBaseY();
+			int localX = region.getLocationX(i) - region.getBaseX();
+			int localY = region.getLocationY(i) - region.getBaseY();
 
 			int drawX = drawBaseX + localX;
 			int drawY = drawBaseY + (Region.Y - 1 - localY);
@@ -351,89 +510,22 @@ public class MapImageDumper
 		regionLoader.loadRegions();
 		regionLoader.calculateBounds();
 
-		logger.info("North most region: {}", regionLoader.getLowestY().getBaseY());
-		logger.info("South most region: {}", regionLoader.getHighestY().getBaseY());
-		logger.info("West most region:  {}", regionLoader.getLowestX().getBaseX());
-		logger.info("East most region:  {}", regionLoader.getHighestX().getBaseX());
-	}
-
-	private void loadUnderlays(Store store)
-	{
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.UNDERLAY.getId());
-
-		for (File file : archive.getFiles())
+		List<Region> regions = regionLoader.getRegions();
+		regionPositions = new int[256 * 256];
+		for (int i = 0; i < regions.size(); ++i)
 		{
-			UnderlayLoader loader = new UnderlayLoader();
-			UnderlayDefinition underlay = loader.load(file.getFileId(), file.getContents());
-
-			underlays.add(underlay);
+			regionPositions[regions.get(i).getRegionID()] = i + 1;
 		}
-	}
 
-	private UnderlayDefinition findUnderlay(int id)
-	{
-		for (UnderlayDefinition u : underlays)
-		{
-			if (u.getId() == id)
-			{
-				return u;
-			}
-		}
-		return null;
-	}
-
-	private void loadOverlays(Store store)
-	{
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OVERLAY.getId());
-
-		for (File file : archive.getFiles())
-		{
-			OverlayLoader loader = new OverlayLoader();
-			OverlayDefinition underlay = loader.load(file.getFileId(), file.getContents());
-
-			overlays.add(underlay);
-		}
-	}
-
-	private OverlayDefinition findOverlay(int id)
-	{
-		for (OverlayDefinition u : overlays)
-		{
-			if (u.getId() == id)
-			{
-				return u;
-			}
-		}
-		return null;
-	}
-
-	private void loadTextures(Store store)
-	{
-		Index index = store.getIndex(IndexType.TEXTURES);
-		Archive archive = index.getArchive(0);
-
-		for (File file : archive.getFiles())
-		{
-			TextureLoader loader = new TextureLoader();
-			TextureDefinition texture = loader.load(file.getFileId(), file.getContents());
-
-			textures.add(texture);
-		}
+		logger.info("North most region: {}", regionLoader.getLowestY());
+		logger.info("South most region: {}", regionLoader.getHighestY());
+		logger.info("West most region:  {}", regionLoader.getLowestX());
+		logger.info("East most region:  {}", regionLoader.getHighestX());
 	}
 
 	private TextureDefinition findTexture(int id)
 	{
-		for (TextureDefinition t : textures)
-		{
-			if (t.getId() == id)
-			{
-				return t;
-			}
-		}
-
-		return null;
+		return cache.getTexture(id);
 	}
 
 	private void loadSprites(Store store)
@@ -470,8 +562,12 @@ public class MapImageDumper
 					BufferedImage spriteImage = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
 					spriteImage.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
 
-					// scale image down so it fits
-					Image scaledImage = spriteImage.getScaledInstance(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, 0);
+					// scale image down so it fits. Scale eagerly rather than with
+					// getScaledInstance(), which produces images asynchronously
+					BufferedImage scaledImage = new BufferedImage(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+					Graphics2D g = scaledImage.createGraphics();
+					g.drawImage(spriteImage, 0, 0, MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, null);
+					g.dispose();
 
 					assert scaledMapIcons.containsKey(sprite.getFrame()) == false;
 					scaledMapIcons.put(sprite.getFrame(), scaledImage);
@@ -528,23 +624,9 @@ public class MapImageDumper
 		return color.getRGB();
 	}
 
-	private void loadObjects(Store store)
-	{
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OBJECT.getId());
-
-		ObjectLoader loader = new ObjectLoader();
-
-		for (File f : archive.getFiles())
-		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.put(def.getId(), def);
-		}
-	}
-
 	private ObjectDefinition findObject(int id)
 	{
-		return objects.get(id);
+		return cache.getObject(id);
 	}
 
 	public boolean isLabelRegions()
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.imageio.ImageIO;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.region.Region;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the world map as a pyramid of tiles, laid out as
+ * plane/zoom/x/y.png as used by slippy map viewers. The highest zoom level
+ * is drawn by {@link MapImageDumper} and each lower level is built by
+ * downscaling the four tiles beneath it.
+ * <p>
+ * The crc and revision of each region's map and landscape archives are
+ * recorded in a manifest, and later exports only redraw the tiles of
+ * regions whose archives have changed, been added or been removed.
+ * Changes to other indexes, such as object or overlay definitions, are not
+ * detected - delete the manifest to force a full export.
+ */
+public class MapTileExporter
+{
+	private static final Logger logger = LoggerFactory.getLogger(MapTileExporter.class);
+
+	static final String MANIFEST = "manifest.json";
+
+	private static final int MAX_REGION = 32768;
+	private static final int REGION_SIZE = Region.X * MapImageDumper.MAP_SCALE; // in pixels
+
+	private final Store store;
+	private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	private int tileSize = 256;
+	private int zoomLevels = 4;
+
+	public MapTileExporter(Store store)
+	{
+		this.store = store;
+	}
+
+	public int getTileSize()
+	{
+		return tileSize;
+	}
+
+	public void setTileSize(int tileSize)
+	{
+		this.tileSize = tileSize;
+	}
+
+	public int getZoomLevels()
+	{
+		return zoomLevels;
+	}
+
+	public void setZoomLevels(int zoomLevels)
+	{
+		this.zoomLevels = zoomLevels;
+	}
+
+	/**
+	 * Export the tiles of every plane to outDir, redrawing only the tiles
+	 * which have changed since the last export to outDir.
+	 *
+	 * @param outDir
+	 * @return the number of regions which had changed
+	 * @throws IOException
+	 */
+	public int export(java.io.File outDir) throws IOException
+	{
+		Manifest previous = readManifest(new java.io.File(outDir, MANIFEST));
+		Manifest current = buildManifest(store.getIndex(IndexType.MAPS));
+		current.tileSize = tileSize;
+		current.zoomLevels = zoomLevels;
+
+		Set<Integer> changed = changedRegions(previous, current);
+		if (changed.isEmpty())
+		{
+			logger.info("No regions have changed");
+			return 0;
+		}
+
+		logger.info("{} of {} regions have changed", changed.size(), current.regions.size());
+
+		// tiles which contain any region, and the ones which must be redrawn
+		Set<Integer> tiles = new HashSet<>();
+		for (int regionId : current.regions.keySet())
+		{
+			tiles.addAll(getTiles(regionId));
+		}
+
+		Set<Integer> dirty = new HashSet<>();
+		for (int regionId : changed)
+		{
+			dirty.addAll(getTiles(regionId));
+		}
+
+		MapImageDumper dumper = new MapImageDumper(store);
+		dumper.load();
+
+		int maxZoom = zoomLevels - 1;
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			java.io.File planeDir = new java.io.File(outDir, Integer.toString(z));
+			int plane = z;
+
+			try
+			{
+				dirty.parallelStream().forEach(tile ->
+				{
+					java.io.File file = getTileFile(planeDir, maxZoom, tile);
+					if (!tiles.contains(tile))
+					{
+						file.delete();
+						return;
+					}
+
+					BufferedImage image = dumper.drawWorldTile(plane, tileX(tile) * tileSize, tileY(tile) * tileSize, tileSize);
+					writeTile(image, file);
+				});
+
+				Set<Integer> children = dirty;
+				for (int zoom = maxZoom - 1; zoom >= 0; --zoom)
+				{
+					Set<Integer> parents = new HashSet<>();
+					for (int tile : children)
+					{
+						parents.add(tile(tileX(tile) >> 1, tileY(tile) >> 1));
+					}
+
+					int childZoom = zoom + 1;
+					java.io.File zoomDir = getZoomDir(planeDir, zoom);
+					parents.parallelStream().forEach(tile -> drawParent(planeDir, childZoom, tile, zoomDir));
+
+					children = parents;
+				}
+			}
+			catch (UncheckedIOException ex)
+			{
+				throw ex.getCause();
+			}
+		}
+
+		// written last, so that an interrupted export is redone
+		try (Writer writer = Files.newBufferedWriter(new java.io.File(outDir, MANIFEST).toPath(), StandardCharsets.UTF_8))
+		{
+			gson.toJson(current, writer);
+		}
+
+		return changed.size();
+	}
+
+	private void drawParent(java.io.File planeDir, int childZoom, int tile, java.io.File zoomDir)
+	{
+		BufferedImage image = null;
+		Graphics2D graphics = null;
+
+		for (int i = 0; i < 4; ++i)
+		{
+			int dx = i & 1, dy = i >> 1;
+			java.io.File childFile = getTileFile(planeDir, childZoom, tile((tileX(tile) << 1) + dx, (tileY(tile) << 1) + dy));
+			if (!childFile.exists())
+			{
+				continue;
+			}
+
+			BufferedImage child;
+			try
+			{
+				child = ImageIO.read(childFile);
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+
+			if (image == null)
+			{
+				image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+				graphics = image.createGraphics();
+				graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			}
+
+			int half = tileSize / 2;
+			graphics.drawImage(child, dx * half, dy * half, half, half, null);
+		}
+
+		java.io.File file = new java.io.File(new java.io.File(zoomDir, Integer.toString(tileX(tile))), tileY(tile) + ".png");
+		if (image == null)
+		{
+			// every child has been removed
+			file.delete();
+			return;
+		}
+
+		graphics.dispose();
+		writeTile(image, file);
+	}
+
+	private static void writeTile(BufferedImage image, java.io.File file)
+	{
+		try
+		{
+			file.getParentFile().mkdirs();
+			ImageIO.write(image, "png", file);
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static java.io.File getZoomDir(java.io.File planeDir, int zoom)
+	{
+		return new java.io.File(planeDir, Integer.toString(zoom));
+	}
+
+	private static java.io.File getTileFile(java.io.File planeDir, int zoom, int tile)
+	{
+		java.io.File xDir = new java.io.File(getZoomDir(planeDir, zoom), Integer.toString(tileX(tile)));
+		return new java.io.File(xDir, tileY(tile) + ".png");
+	}
+
+	/**
+	 * Get the tiles of the highest zoom level which a region is drawn on,
+	 * including those its map icons may overlap.
+	 *
+	 * @param regionId
+	 * @return
+	 */
+	Set<Integer> getTiles(int regionId)
+	{
+		int regionX = regionId >> 8;
+		int regionY = regionId & 0xFF;
+
+		// world pixels, with y increasing southward
+		int left = regionX * REGION_SIZE - MapImageDumper.ICON_MARGIN;
+		int top = (255 - regionY) * REGION_SIZE - MapImageDumper.ICON_MARGIN;
+		int right = (regionX + 1) * REGION_SIZE + MapImageDumper.ICON_MARGIN - 1;
+		int bottom = (256 - regionY) * REGION_SIZE + MapImageDumper.ICON_MARGIN - 1;
+
+		Set<Integer> tiles = new HashSet<>();
+		for (int x = Math.max(left, 0) / tileSize; x <= right / tileSize; ++x)
+		{
+			for (int y = Math.max(top, 0) / tileSize; y <= bottom / tileSize; ++y)
+			{
+				tiles.add(tile(x, y));
+			}
+		}
+		return tiles;
+	}
+
+	private static int tile(int x, int y)
+	{
+		return x << 16 | y;
+	}
+
+	private static int tileX(int tile)
+	{
+		return tile >>> 16;
+	}
+
+	private static int tileY(int tile)
+	{
+		return tile & 0xFFFF;
+	}
+
+	/**
+	 * Get the regions which must be redrawn to go from the previous
+	 * manifest to the current one.
+	 *
+	 * @param previous the previous manifest, or null
+	 * @param current
+	 * @return
+	 */
+	static Set<Integer> changedRegions(Manifest previous, Manifest current)
+	{
+		if (previous == null || previous.tileSize != current.tileSize || previous.zoomLevels != current.zoomLevels)
+		{
+			return new HashSet<>(current.regions.keySet());
+		}
+
+		Set<Integer> changed = new HashSet<>();
+		for (Map.Entry<Integer, RegionManifest> entry : current.regions.entrySet())
+		{
+			if (!entry.getValue().equals(previous.regions.get(entry.getKey())))
+			{
+				changed.add(entry.getKey());
+			}
+		}
+
+		for (int regionId : previous.regions.keySet())
+		{
+			if (!current.regions.containsKey(regionId))
+			{
+				changed.add(regionId);
+			}
+		}
+
+		return changed;
+	}
+
+	static Manifest buildManifest(Index index)
+	{
+		Manifest manifest = new Manifest();
+
+		for (int i = 0; i < MAX_REGION; ++i)
+		{
+			int x = i >> 8;
+			int y = i & 0xFF;
+
+			Archive map = index.findArchiveByName("m" + x + "_" + y);
+			Archive land = index.findArchiveByName("l" + x + "_" + y);
+
+			if (map == null || land == null)
+			{
+				continue;
+			}
+
+			RegionManifest region = new RegionManifest();
+			region.mapCrc = map.getCrc();
+			region.mapRevision = map.getRevision();
+			region.landCrc = land.getCrc();
+			region.landRevision = land.getRevision();
+			manifest.regions.put(i, region);
+		}
+
+		return manifest;
+	}
+
+	private Manifest readManifest(java.io.File file) throws IOException
+	{
+		if (!file.exists())
+		{
+			return null;
+		}
+
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			return gson.fromJson(reader, Manifest.class);
+		}
+	}
+
+	static class Manifest
+	{
+		int tileSize;
+		int zoomLevels;
+		Map<Integer, RegionManifest> regions = new TreeMap<>();
+	}
+
+	static class RegionManifest
+	{
+		int mapCrc;
+		int mapRevision;
+		int landCrc;
+		int landRevision;
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof RegionManifest))
+			{
+				return false;
+			}
+
+			RegionManifest other = (RegionManifest) obj;
+			return mapCrc == other.mapCrc && mapRevision == other.mapRevision
+				&& landCrc == other.landCrc && landRevision == other.landRevision;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(mapCrc, mapRevision, landCrc, landRevision);
+		}
+	}
+}
@@ -30,49 +30,53 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.cache.definitions.NpcDefinition;
-import net.runelite.cache.definitions.exporters.NpcExporter;
-import net.runelite.cache.definitions.loaders.NpcLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.Index;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.Namer;
 
 public class NpcManager
 {
-	private final Store store;
+	private final DefinitionCache cache;
 	private final List<NpcDefinition> npcs = new ArrayList<>();
 	private final Namer namer = new Namer();
 
 	public NpcManager(Store store)
 	{
-		this.store = store;
+		this(new DefinitionCache(store));
 	}
 
-	public void load() throws IOException
+	/**
+	 * Use definitions from a cache which may be shared with other users
+	 * of the store. The definitions are then shared too, and must not be
+	 * modified.
+	 *
+	 * @param cache
+	 */
+	public NpcManager(DefinitionCache cache)
 	{
-		NpcLoader loader = new NpcLoader();
-
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.NPC.getId());
+		this.cache = cache;
+	}
 
-		for (net.runelite.cache.fs.File f : archive.getFiles())
-		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.add(npc);
-		}
+	public void load() throws IOException
+	{
+		npcs.addAll(cache.getNpcs());
 	}
 
 	public void dump(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (NpcDefinition def : npcs)
-		{
-			NpcExporter exporter = new NpcExporter(def);
+		JsonExporter.export(npcs, out, def -> def.id);
+	}
 
-			File targ = new File(out, def.id + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Export every definition to a single file.
+	 *
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public void dump(File file, JsonExporter.Format format) throws IOException
+	{
+		JsonExporter.export(npcs, file, format);
 	}
 
 	public void java(File java) throws IOException
@@ -30,36 +30,36 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.cache.definitions.ObjectDefinition;
-import net.runelite.cache.definitions.exporters.ObjectExporter;
-import net.runelite.cache.definitions.loaders.ObjectLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.Index;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.Namer;
 
 public class ObjectManager
 {
-	private final Store store;
+	private final DefinitionCache cache;
 	private final List<ObjectDefinition> objects = new ArrayList<>();
 	private final Namer namer = new Namer();
 
 	public ObjectManager(Store store)
 	{
-		this.store = store;
+		this(new DefinitionCache(store));
 	}
 
-	public void load() throws IOException
+	/**
+	 * Use definitions from a cache which may be shared with other users
+	 * of the store. The definitions are then shared too, and must not be
+	 * modified.
+	 *
+	 * @param cache
+	 */
+	public ObjectManager(DefinitionCache cache)
 	{
-		ObjectLoader loader = new ObjectLoader();
-
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OBJECT.getId());
+		this.cache = cache;
+	}
 
-		for (net.runelite.cache.fs.File f : archive.getFiles())
-		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.add(def);
-		}
+	public void load() throws IOException
+	{
+		objects.addAll(cache.getObjects());
 	}
 
 	public List<ObjectDefinition> getObjects()
@@ -69,15 +69,19 @@ public class ObjectManager
 
 	public void dump(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (ObjectDefinition def : objects)
-		{
-			ObjectExporter exporter = new ObjectExporter(def);
+		JsonExporter.export(objects, out, def -> def.getId());
+	}
 
-			File targ = new File(out, def.getId() + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Export every definition to a single file.
+	 *
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public void dump(File file, JsonExporter.Format format) throws IOException
+	{
+		JsonExporter.export(objects, file, format);
 	}
 
 	public void java(File java) throws IOException
@@ -27,34 +27,33 @@ package net.runelite.cache;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.cache.definitions.TextureDefinition;
-import net.runelite.cache.definitions.loaders.TextureLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.File;
-import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
 
 public class TextureManager
 {
-	private final Store store;
+	private final DefinitionCache cache;
 	private final List<TextureDefinition> textures = new ArrayList<>();
 
 	public TextureManager(Store store)
 	{
-		this.store = store;
+		this(new DefinitionCache(store));
 	}
 
-	public void load()
+	/**
+	 * Use definitions from a cache which may be shared with other users
+	 * of the store. The definitions are then shared too, and must not be
+	 * modified.
+	 *
+	 * @param cache
+	 */
+	public TextureManager(DefinitionCache cache)
 	{
-		Index index = store.getIndex(IndexType.TEXTURES);
-		Archive archive = index.getArchive(0);
-
-		TextureLoader loader = new TextureLoader();
+		this.cache = cache;
+	}
 
-		for (File file : archive.getFiles())
-		{
-			TextureDefinition texture = loader.load(file.getFileId(), file.getContents());
-			textures.add(texture);
-		}
+	public void load()
+	{
+		textures.addAll(cache.getTextures());
 	}
 
 	public List<TextureDefinition> getTextures()
@@ -64,13 +63,6 @@ public class TextureManager
 
 	public TextureDefinition findTexture(int id)
 	{
-		for (TextureDefinition td : textures)
-		{
-			if (td.getId() == id)
-			{
-				return td;
-			}
-		}
-		return null;
+		return cache.getTexture(id);
 	}
 }
@@ -1,7 +1,6 @@
 package net.runelite.cache.definitions;
 
-import net.runelite.cache.models.FaceNormal;
-import net.runelite.cache.models.VertexNormal;
+import net.runelite.cache.models.Vector3f;
 
 public class ModelDefinition
 {
@@ -11,7 +10,11 @@ public class ModelDefinition
 	public int[] vertexPositionsX;
 	public int[] vertexPositionsY;
 	public int[] vertexPositionsZ;
-	public transient VertexNormal[] vertexNormals;
+	// sum of the normals of the faces of each vertex, and the number of faces
+	public transient int[] vertexNormalsX;
+	public transient int[] vertexNormalsY;
+	public transient int[] vertexNormalsZ;
+	public transient int[] vertexNormalsMagnitude;
 
 	public int faceCount;
 	public int[] faceVertexIndices1;
@@ -21,14 +24,19 @@ public class ModelDefinition
 	public short[] faceColors;
 	public byte[] faceRenderPriorities;
 	public byte[] faceRenderTypes;
-	public transient FaceNormal[] faceNormals;
+	// normals of faces with render type 1, or null if there are none
+	public transient int[] faceNormalsX;
+	public transient int[] faceNormalsY;
+	public transient int[] faceNormalsZ;
 
 	public int textureTriangleCount;
 	public short[] textureTriangleVertexIndices1;
 	public short[] textureTriangleVertexIndices2;
 	public short[] textureTriangleVertexIndices3;
-	public transient float[][] faceTextureUCoordinates;
-	public transient float[][] faceTextureVCoordinates;
+	// coordinates of the 3 vertices of each face, at face * 3, or null if
+	// the model has no textures
+	public transient float[] faceTextureUCoordinates;
+	public transient float[] faceTextureVCoordinates;
 	public short[] texturePrimaryColors;
 	public short[] faceTextures;
 	public byte[] textureCoordinates;
@@ -58,20 +66,17 @@ public class ModelDefinition
 
 	public void computeNormals()
 	{
-		if (this.vertexNormals != null)
+		if (this.vertexNormalsX != null)
 		{
 			return;
 		}
 
-		this.vertexNormals = new VertexNormal[this.vertexCount];
+		int[] normalsX = new int[this.vertexCount];
+		int[] normalsY = new int[this.vertexCount];
+		int[] normalsZ = new int[this.vertexCount];
+		int[] magnitudes = new int[this.vertexCount];
 
-		int var1;
-		for (var1 = 0; var1 < this.vertexCount; ++var1)
-		{
-			this.vertexNormals[var1] = new VertexNormal();
-		}
-
-		for (var1 = 0; var1 < this.faceCount; ++var1)
+		for (int var1 = 0; var1 < this.faceCount; ++var1)
 		{
 			int vertexA = this.faceVertexIndices1[var1];
 			int vertexB = this.faceVertexIndices2[var1];
@@ -119,37 +124,65 @@ public class ModelDefinition
 
 			if (var15 == 0)
 			{
-				VertexNormal var16 = this.vertexNormals[vertexA];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
-
-				var16 = this.vertexNormals[vertexB];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
-
-				var16 = this.vertexNormals[vertexC];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
+				normalsX[vertexA] += var11;
+				normalsY[vertexA] += var12;
+				normalsZ[vertexA] += var13;
+				++magnitudes[vertexA];
+
+				normalsX[vertexB] += var11;
+				normalsY[vertexB] += var12;
+				normalsZ[vertexB] += var13;
+				++magnitudes[vertexB];
+
+				normalsX[vertexC] += var11;
+				normalsY[vertexC] += var12;
+				normalsZ[vertexC] += var13;
+				++magnitudes[vertexC];
 			}
 			else if (var15 == 1)
 			{
-				if (this.faceNormals == null)
+				if (this.faceNormalsX == null)
 				{
-					this.faceNormals = new FaceNormal[this.faceCount];
+					this.faceNormalsX = new int[this.faceCount];
+					this.faceNormalsY = new int[this.faceCount];
+					this.faceNormalsZ = new int[this.faceCount];
 				}
 
-				FaceNormal var17 = this.faceNormals[var1] = new FaceNormal();
-				var17.x = var11;
-				var17.y = var12;
-				var17.z = var13;
+				this.faceNormalsX[var1] = var11;
+				this.faceNormalsY[var1] = var12;
+				this.faceNormalsZ[var1] = var13;
 			}
 		}
+
+		this.vertexNormalsY = normalsY;
+		this.vertexNormalsZ = normalsZ;
+		this.vertexNormalsMagnitude = magnitudes;
+		this.vertexNormalsX = normalsX; // set last, as it marks the normals computed
+	}
+
+	/**
+	 * Get the normal of a vertex, scaled to unit length.
+	 *
+	 * @param vertex
+	 * @return
+	 */
+	public Vector3f getVertexNormal(int vertex)
+	{
+		int x = vertexNormalsX[vertex];
+		int y = vertexNormalsY[vertex];
+		int z = vertexNormalsZ[vertex];
+
+		int length = (int) Math.sqrt((double) (x * x + y * y + z * z));
+		if (length == 0)
+		{
+			length = 1;
+		}
+
+		Vector3f v = new Vector3f();
+		v.x = (float) x / length;
+		v.y = (float) y / length;
+		v.z = (float) z / length;
+		return v;
 	}
 
 	/**
@@ -157,8 +190,13 @@ public class ModelDefinition
 	 */
 	public void computeTextureUVCoordinates()
 	{
-		this.faceTextureUCoordinates = new float[faceCount][];
-		this.faceTextureVCoordinates = new float[faceCount][];
+		if (faceTextures == null)
+		{
+			return;
+		}
+
+		float[] u = this.faceTextureUCoordinates = new float[faceCount * 3];
+		float[] v = this.faceTextureVCoordinates = new float[faceCount * 3];
 
 		for (int i = 0; i < faceCount; i++)
 		{
@@ -172,31 +210,22 @@ public class ModelDefinition
 				textureCoordinate = textureCoordinates[i];
 			}
 
-			int textureIdx;
-			if (faceTextures == null)
-			{
-				textureIdx = -1;
-			}
-			else
-			{
-				textureIdx = faceTextures[i] & 0xFFFF;
-			}
+			int textureIdx = faceTextures[i] & 0xFFFF;
 
 			if (textureIdx != -1)
 			{
-				float[] u = new float[3];
-				float[] v = new float[3];
+				int uv = i * 3;
 
 				if (textureCoordinate == -1)
 				{
-					u[0] = 0.0F;
-					v[0] = 1.0F;
+					u[uv] = 0.0F;
+					v[uv] = 1.0F;
 
-					u[1] = 1.0F;
-					v[1] = 1.0F;
+					u[uv + 1] = 1.0F;
+					v[uv + 1] = 1.0F;
 
-					u[2] = 0.0F;
-					v[2] = 0.0F;
+					u[uv + 2] = 0.0F;
+					v[uv + 2] = 0.0F;
 				}
 				else
 				{
@@ -246,23 +275,20 @@ public class ModelDefinition
 						float f_902_ = f_885_ * f_898_ - f_886_ * f_897_;
 						float f_903_ = 1.0F / (f_900_ * f_882_ + f_901_ * f_883_ + f_902_ * f_884_);
 
-						u[0] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
-						u[1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
-						u[2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
+						u[uv] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
+						u[uv + 1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
+						u[uv + 2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
 
 						f_900_ = f_883_ * f_899_ - f_884_ * f_898_;
 						f_901_ = f_884_ * f_897_ - f_882_ * f_899_;
 						f_902_ = f_882_ * f_898_ - f_883_ * f_897_;
 						f_903_ = 1.0F / (f_900_ * f_885_ + f_901_ * f_886_ + f_902_ * f_887_);
 
-						v[0] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
-						v[1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
-						v[2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
+						v[uv] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
+						v[uv + 1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
+						v[uv + 2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
 					}
 				}
-
-				this.faceTextureUCoordinates[i] = u;
-				this.faceTextureVCoordinates[i] = v;
 			}
 		}
 	}
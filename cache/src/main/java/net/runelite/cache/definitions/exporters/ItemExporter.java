@@ -24,37 +24,26 @@
  */
 package net.runelite.cache.definitions.exporters;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import net.runelite.cache.definitions.ItemDefinition;
 
 public class ItemExporter
 {
 	private final ItemDefinition item;
-	private final Gson gson;
 
 	public ItemExporter(ItemDefinition item)
 	{
 		this.item = item;
-
-		GsonBuilder builder = new GsonBuilder()
-			.setPrettyPrinting();
-		gson = builder.create();
 	}
 
 	public String export()
 	{
-		return gson.toJson(item);
+		return JsonExporter.getGson().toJson(item);
 	}
 
 	public void exportTo(File file) throws IOException
 	{
-		try (FileWriter fw = new FileWriter(file))
-		{
-			fw.write(export());
-		}
+		JsonExporter.write(item, file);
 	}
 }
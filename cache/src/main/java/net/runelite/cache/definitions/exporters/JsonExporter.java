@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.exporters;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exports definitions as json. Definitions are streamed straight to
+ * buffered files through a serializer shared by every thread, rather than
+ * being built into strings first.
+ */
+public final class JsonExporter
+{
+	public enum Format
+	{
+		/**
+		 * One definition per line.
+		 */
+		NDJSON,
+		/**
+		 * A single pretty printed array of every definition.
+		 */
+		ARRAY
+	}
+
+	// Gson instances are thread safe
+	private static final Gson GSON = new GsonBuilder()
+		.setPrettyPrinting()
+		.create();
+	private static final Gson COMPACT = new Gson();
+
+	private JsonExporter()
+	{
+	}
+
+	public static Gson getGson()
+	{
+		return GSON;
+	}
+
+	/**
+	 * Write a definition to a file.
+	 *
+	 * @param definition
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(Object definition, File file) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+			JsonWriter jsonWriter = GSON.newJsonWriter(writer))
+		{
+			GSON.toJson(definition, definition.getClass(), jsonWriter);
+		}
+	}
+
+	/**
+	 * Write each definition to its own file named after its id, in
+	 * parallel.
+	 *
+	 * @param definitions
+	 * @param outDir
+	 * @param id function giving the id of a definition
+	 * @param <T>
+	 * @throws IOException
+	 */
+	public static <T> void export(Collection<T> definitions, File outDir, ToIntFunction<T> id) throws IOException
+	{
+		outDir.mkdirs();
+
+		try
+		{
+			definitions.parallelStream().forEach(def ->
+			{
+				try
+				{
+					write(def, new File(outDir, id.applyAsInt(def) + ".json"));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+
+	/**
+	 * Write every definition to a single file, in order.
+	 *
+	 * @param definitions
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public static void export(Collection<?> definitions, File file, Format format) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+		{
+			switch (format)
+			{
+				case NDJSON:
+					writeLines(definitions, writer);
+					break;
+				case ARRAY:
+					writeArray(definitions, writer);
+					break;
+			}
+		}
+	}
+
+	private static void writeLines(Collection<?> definitions, Writer writer) throws IOException
+	{
+		// definitions are serialized in parallel, and written in order
+		try
+		{
+			definitions.parallelStream()
+				.map(COMPACT::toJson)
+				.forEachOrdered(line ->
+				{
+					try
+					{
+						writer.write(line);
+						writer.write('\n');
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+
+	private static void writeArray(Collection<?> definitions, Writer writer) throws IOException
+	{
+		JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+		jsonWriter.beginArray();
+		for (Object def : definitions)
+		{
+			GSON.toJson(def, def.getClass(), jsonWriter);
+		}
+		jsonWriter.endArray();
+		jsonWriter.flush();
+	}
+}
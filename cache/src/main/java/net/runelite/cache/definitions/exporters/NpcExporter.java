@@ -24,37 +24,26 @@
  */
 package net.runelite.cache.definitions.exporters;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import net.runelite.cache.definitions.NpcDefinition;
 
 public class NpcExporter
 {
 	private final NpcDefinition npc;
-	private final Gson gson;
 
 	public NpcExporter(NpcDefinition npc)
 	{
 		this.npc = npc;
-
-		GsonBuilder builder = new GsonBuilder()
-			.setPrettyPrinting();
-		gson = builder.create();
 	}
 
 	public String export()
 	{
-		return gson.toJson(npc);
+		return JsonExporter.getGson().toJson(npc);
 	}
 
 	public void exportTo(File file) throws IOException
 	{
-		try (FileWriter fw = new FileWriter(file))
-		{
-			fw.write(export());
-		}
+		JsonExporter.write(npc, file);
 	}
 }
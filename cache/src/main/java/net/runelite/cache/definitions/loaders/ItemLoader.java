@@ -27,113 +27,59 @@ package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.io.InputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class ItemLoader
 {
-	private static final Logger logger = LoggerFactory.getLogger(ItemLoader.class);
+	private static final OpcodeTable<ItemDefinition> OPCODES = new OpcodeTable<>("item");
 
-	public ItemDefinition load(int id, byte[] b)
+	static
 	{
-		ItemDefinition def = new ItemDefinition(id);
-		InputStream is = new InputStream(b);
-		
-		while (true)
-		{
-			int opcode = is.readUnsignedByte();
-			if (opcode == 0)
-			{
-				break;
-			}
-
-			this.decodeValues(opcode, def, is);
-		}
-
-		return def;
-	}
-
-	private void decodeValues(int opcode, ItemDefinition def, InputStream stream)
-	{
-		if (opcode == 1)
-		{
-			def.inventoryModel = stream.readUnsignedShort();
-		}
-		else if (opcode == 2)
-		{
-			def.name = stream.readString();
-		}
-		else if (opcode == 4)
-		{
-			def.zoom2d = stream.readUnsignedShort();
-		}
-		else if (opcode == 5)
-		{
-			def.xan2d = stream.readUnsignedShort();
-		}
-		else if (opcode == 6)
-		{
-			def.yan2d = stream.readUnsignedShort();
-		}
-		else if (opcode == 7)
+		OPCODES.add(1, (def, stream, opcode) -> def.inventoryModel = stream.readUnsignedShort());
+		OPCODES.add(2, (def, stream, opcode) -> def.name = stream.readString());
+		OPCODES.add(4, (def, stream, opcode) -> def.zoom2d = stream.readUnsignedShort());
+		OPCODES.add(5, (def, stream, opcode) -> def.xan2d = stream.readUnsignedShort());
+		OPCODES.add(6, (def, stream, opcode) -> def.yan2d = stream.readUnsignedShort());
+		OPCODES.add(7, (def, stream, opcode) ->
 		{
 			def.xOffset2d = stream.readUnsignedShort();
 			if (def.xOffset2d > 32767)
 			{
 				def.xOffset2d -= 65536;
 			}
-		}
-		else if (opcode == 8)
+		});
+		OPCODES.add(8, (def, stream, opcode) ->
 		{
 			def.yOffset2d = stream.readUnsignedShort();
 			if (def.yOffset2d > 32767)
 			{
 				def.yOffset2d -= 65536;
 			}
-		}
-		else if (opcode == 11)
-		{
-			def.stackable = 1;
-		}
-		else if (opcode == 12)
-		{
-			def.cost = stream.readInt();
-		}
-		else if (16 == opcode)
-		{
-			def.members = true;
-		}
-		else if (opcode == 23)
+		});
+		OPCODES.add(11, (def, stream, opcode) -> def.stackable = 1);
+		OPCODES.add(12, (def, stream, opcode) -> def.cost = stream.readInt());
+		OPCODES.add(16, (def, stream, opcode) -> def.members = true);
+		OPCODES.add(23, (def, stream, opcode) ->
 		{
 			def.maleModel0 = stream.readUnsignedShort();
 			def.maleOffset = stream.readUnsignedByte();
-		}
-		else if (opcode == 24)
-		{
-			def.maleModel1 = stream.readUnsignedShort();
-		}
-		else if (opcode == 25)
+		});
+		OPCODES.add(24, (def, stream, opcode) -> def.maleModel1 = stream.readUnsignedShort());
+		OPCODES.add(25, (def, stream, opcode) ->
 		{
 			def.femaleModel0 = stream.readUnsignedShort();
 			def.femaleOffset = stream.readUnsignedByte();
-		}
-		else if (opcode == 26)
-		{
-			def.femaleModel1 = stream.readUnsignedShort();
-		}
-		else if (opcode >= 30 && opcode < 35)
+		});
+		OPCODES.add(26, (def, stream, opcode) -> def.femaleModel1 = stream.readUnsignedShort());
+		OPCODES.add(30, 35, (def, stream, opcode) ->
 		{
 			def.options[opcode - 30] = stream.readString();
 			if (def.options[opcode - 30].equalsIgnoreCase("Hidden"))
 			{
 				def.options[opcode - 30] = null;
 			}
-		}
-		else if (opcode >= 35 && opcode < 40)
-		{
-			def.interfaceOptions[opcode - 35] = stream.readString();
-		}
-		else if (opcode == 40)
+		});
+		OPCODES.add(35, 40, (def, stream, opcode) -> def.interfaceOptions[opcode - 35] = stream.readString());
+		OPCODES.add(40, (def, stream, opcode) ->
 		{
 			int var5 = stream.readUnsignedByte();
 			def.colorFind = new short[var5];
@@ -144,9 +90,8 @@ public class ItemLoader
 				def.colorFind[var4] = (short) stream.readUnsignedShort();
 				def.colorReplace[var4] = (short) stream.readUnsignedShort();
 			}
-
-		}
-		else if (opcode == 41)
+		});
+		OPCODES.add(41, (def, stream, opcode) ->
 		{
 			int var5 = stream.readUnsignedByte();
 			def.textureFind = new short[var5];
@@ -157,53 +102,19 @@ public class ItemLoader
 				def.textureFind[var4] = (short) stream.readUnsignedShort();
 				def.textureReplace[var4] = (short) stream.readUnsignedShort();
 			}
-
-		}
-		else if (opcode == 42)
-		{
-			def.shiftClickDropIndex = stream.readByte();
-		}
-		else if (opcode == 65)
-		{
-			def.isTradeable = true;
-		}
-		else if (opcode == 78)
-		{
-			def.maleModel2 = stream.readUnsignedShort();
-		}
-		else if (opcode == 79)
-		{
-			def.femaleModel2 = stream.readUnsignedShort();
-		}
-		else if (opcode == 90)
-		{
-			def.maleHeadModel = stream.readUnsignedShort();
-		}
-		else if (opcode == 91)
-		{
-			def.femaleHeadModel = stream.readUnsignedShort();
-		}
-		else if (opcode == 92)
-		{
-			def.maleHeadModel2 = stream.readUnsignedShort();
-		}
-		else if (opcode == 93)
-		{
-			def.femaleHeadModel2 = stream.readUnsignedShort();
-		}
-		else if (opcode == 95)
-		{
-			def.zan2d = stream.readUnsignedShort();
-		}
-		else if (opcode == 97)
-		{
-			def.notedID = stream.readUnsignedShort();
-		}
-		else if (opcode == 98)
-		{
-			def.notedTemplate = stream.readUnsignedShort();
-		}
-		else if (opcode >= 100 && opcode < 110)
+		});
+		OPCODES.add(42, (def, stream, opcode) -> def.shiftClickDropIndex = stream.readByte());
+		OPCODES.add(65, (def, stream, opcode) -> def.isTradeable = true);
+		OPCODES.add(78, (def, stream, opcode) -> def.maleModel2 = stream.readUnsignedShort());
+		OPCODES.add(79, (def, stream, opcode) -> def.femaleModel2 = stream.readUnsignedShort());
+		OPCODES.add(90, (def, stream, opcode) -> def.maleHeadModel = stream.readUnsignedShort());
+		OPCODES.add(91, (def, stream, opcode) -> def.femaleHeadModel = stream.readUnsignedShort());
+		OPCODES.add(92, (def, stream, opcode) -> def.maleHeadModel2 = stream.readUnsignedShort());
+		OPCODES.add(93, (def, stream, opcode) -> def.femaleHeadModel2 = stream.readUnsignedShort());
+		OPCODES.add(95, (def, stream, opcode) -> def.zan2d = stream.readUnsignedShort());
+		OPCODES.add(97, (def, stream, opcode) -> def.notedID = stream.readUnsignedShort());
+		OPCODES.add(98, (def, stream, opcode) -> def.notedTemplate = stream.readUnsignedShort());
+		OPCODES.add(100, 110, (def, stream, opcode) ->
 		{
 			if (def.countObj == null)
 			{
@@ -213,50 +124,23 @@ public class ItemLoader
 
 			def.countObj[opcode - 100] = stream.readUnsignedShort();
 			def.countCo[opcode - 100] = stream.readUnsignedShort();
-		}
-		else if (opcode == 110)
-		{
-			def.resizeX = stream.readUnsignedShort();
-		}
-		else if (opcode == 111)
-		{
-			def.resizeY = stream.readUnsignedShort();
-		}
-		else if (opcode == 112)
-		{
-			def.resizeZ = stream.readUnsignedShort();
-		}
-		else if (opcode == 113)
-		{
-			def.ambient = stream.readByte();
-		}
-		else if (opcode == 114)
-		{
-			def.contrast = stream.readByte();
-		}
-		else if (opcode == 115)
-		{
-			def.team = stream.readUnsignedByte();
-		}
-		else if (opcode == 139)
-		{
-			def.boughtId = stream.readUnsignedShort();
-		}
-		else if (opcode == 140)
-		{
-			def.boughtTemplateId = stream.readUnsignedShort();
-		}
-		else if (opcode == 148)
-		{
-			def.placeholderId = stream.readUnsignedShort();
-		}
-		else if (opcode == 149)
-		{
-			def.placeholderTemplateId = stream.readUnsignedShort();
-		}
-		else
-		{
-			logger.warn("Unrecognized opcode {}", opcode);
-		}
+		});
+		OPCODES.add(110, (def, stream, opcode) -> def.resizeX = stream.readUnsignedShort());
+		OPCODES.add(111, (def, stream, opcode) -> def.resizeY = stream.readUnsignedShort());
+		OPCODES.add(112, (def, stream, opcode) -> def.resizeZ = stream.readUnsignedShort());
+		OPCODES.add(113, (def, stream, opcode) -> def.ambient = stream.readByte());
+		OPCODES.add(114, (def, stream, opcode) -> def.contrast = stream.readByte());
+		OPCODES.add(115, (def, stream, opcode) -> def.team = stream.readUnsignedByte());
+		OPCODES.add(139, (def, stream, opcode) -> def.boughtId = stream.readUnsignedShort());
+		OPCODES.add(140, (def, stream, opcode) -> def.boughtTemplateId = stream.readUnsignedShort());
+		OPCODES.add(148, (def, stream, opcode) -> def.placeholderId = stream.readUnsignedShort());
+		OPCODES.add(149, (def, stream, opcode) -> def.placeholderTemplateId = stream.readUnsignedShort());
+	}
+
+	public ItemDefinition load(int id, byte[] b)
+	{
+		ItemDefinition def = new ItemDefinition(id);
+		OPCODES.decode(id, def, new InputStream(b));
+		return def;
 	}
 }
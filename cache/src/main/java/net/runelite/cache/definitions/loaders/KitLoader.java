@@ -26,74 +26,56 @@ package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.KitDefinition;
 import net.runelite.cache.io.InputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class KitLoader
 {
-	private static final Logger logger = LoggerFactory.getLogger(KitLoader.class);
+	private static final OpcodeTable<KitDefinition> OPCODES = new OpcodeTable<>("kit");
 
-	public KitDefinition load(int id, byte[] b)
+	static
 	{
-		KitDefinition def = new KitDefinition(id);
-		InputStream is = new InputStream(b);
-
-		for (;;)
+		OPCODES.add(1, (def, is, opcode) -> def.bodyPartId = is.readUnsignedByte());
+		OPCODES.add(2, (def, is, opcode) ->
 		{
-			int opcode = is.readUnsignedByte();
-			if (opcode == 0)
-			{
-				break;
-			}
+			int length = is.readUnsignedByte();
+			def.modelIds = new int[length];
 
-			if (opcode == 1)
+			for (int index = 0; index < length; ++index)
 			{
-				def.bodyPartId = is.readUnsignedByte();
+				def.modelIds[index] = is.readUnsignedShort();
 			}
-			else if (opcode == 2)
-			{
-				int length = is.readUnsignedByte();
-				def.modelIds = new int[length];
+		});
+		OPCODES.add(3, (def, is, opcode) -> def.nonSelectable = true);
+		OPCODES.add(40, (def, is, opcode) ->
+		{
+			int length = is.readUnsignedByte();
+			def.recolorToFind = new short[length];
+			def.recolorToReplace = new short[length];
 
-				for (int index = 0; index < length; ++index)
-				{
-					def.modelIds[index] = is.readUnsignedShort();
-				}
-			}
-			else if (opcode == 3)
-			{
-				def.nonSelectable = true;
-			}
-			else if (opcode == 40)
+			for (int index = 0; index < length; ++index)
 			{
-				int length = is.readUnsignedByte();
-				def.recolorToFind = new short[length];
-				def.recolorToReplace = new short[length];
-
-				for (int index = 0; index < length; ++index)
-				{
-					def.recolorToFind[index] = is.readShort();
-					def.recolorToReplace[index] = is.readShort();
-				}
+				def.recolorToFind[index] = is.readShort();
+				def.recolorToReplace[index] = is.readShort();
 			}
-			else if (opcode == 41)
-			{
-				int length = is.readUnsignedByte();
-				def.retextureToFind = new short[length];
-				def.retextureToReplace = new short[length];
+		});
+		OPCODES.add(41, (def, is, opcode) ->
+		{
+			int length = is.readUnsignedByte();
+			def.retextureToFind = new short[length];
+			def.retextureToReplace = new short[length];
 
-				for (int index = 0; index < length; ++index)
-				{
-					def.retextureToFind[index] = is.readShort();
-					def.retextureToReplace[index] = is.readShort();
-				}
-			}
-			else if (opcode >= 60 && opcode < 70)
+			for (int index = 0; index < length; ++index)
 			{
-				def.models[opcode - 60] = is.readShort();
+				def.retextureToFind[index] = is.readShort();
+				def.retextureToReplace[index] = is.readShort();
 			}
-		}
+		});
+		OPCODES.add(60, 70, (def, is, opcode) -> def.models[opcode - 60] = is.readShort());
+	}
 
+	public KitDefinition load(int id, byte[] b)
+	{
+		KitDefinition def = new KitDefinition(id);
+		OPCODES.decode(id, def, new InputStream(b));
 		return def;
 	}
 }
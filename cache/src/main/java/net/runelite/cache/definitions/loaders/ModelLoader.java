@@ -1,10 +1,25 @@
 package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.ModelDefinition;
-import net.runelite.cache.io.InputStream;
 
+/**
+ * Loads models. A loader reuses its decoding state between models, so it
+ * must not be used by more than one thread at once.
+ */
 public class ModelLoader
 {
+	private static final int CURSORS = 7; // the most load1 or load2 read at once
+
+	private final Cursor[] cursors = new Cursor[CURSORS];
+
+	public ModelLoader()
+	{
+		for (int i = 0; i < CURSORS; ++i)
+		{
+			cursors[i] = new Cursor();
+		}
+	}
+
 	public ModelDefinition load(int modelId, byte[] b)
 	{
 		ModelDefinition def = new ModelDefinition();
@@ -27,13 +42,13 @@ public class ModelLoader
 
 	private void load1(ModelDefinition model, byte[] var1)
 	{
-		InputStream var2 = new InputStream(var1);
-		InputStream var24 = new InputStream(var1);
-		InputStream var3 = new InputStream(var1);
-		InputStream var28 = new InputStream(var1);
-		InputStream var6 = new InputStream(var1);
-		InputStream var55 = new InputStream(var1);
-		InputStream var51 = new InputStream(var1);
+		Cursor var2 = cursors[0].reset(var1);
+		Cursor var24 = cursors[1].reset(var1);
+		Cursor var3 = cursors[2].reset(var1);
+		Cursor var28 = cursors[3].reset(var1);
+		Cursor var6 = cursors[4].reset(var1);
+		Cursor var55 = cursors[5].reset(var1);
+		Cursor var51 = cursors[6].reset(var1);
 		var2.setOffset(var1.length - 23);
 		int verticeCount = var2.readUnsignedShort();
 		int triangleCount = var2.readUnsignedShort();
@@ -429,11 +444,11 @@ public class ModelLoader
 	{
 		boolean var2 = false;
 		boolean var43 = false;
-		InputStream var5 = new InputStream(var1);
-		InputStream var39 = new InputStream(var1);
-		InputStream var26 = new InputStream(var1);
-		InputStream var9 = new InputStream(var1);
-		InputStream var3 = new InputStream(var1);
+		Cursor var5 = cursors[0].reset(var1);
+		Cursor var39 = cursors[1].reset(var1);
+		Cursor var26 = cursors[2].reset(var1);
+		Cursor var9 = cursors[3].reset(var1);
+		Cursor var3 = cursors[4].reset(var1);
 		var5.setOffset(var1.length - 18);
 		int var10 = var5.readUnsignedShort();
 		int var11 = var5.readUnsignedShort();
@@ -746,4 +761,62 @@ public class ModelLoader
 		}
 	}
 
+
+	/**
+	 * A position in the data of a model. Models are read from several
+	 * places in their data at once, and reusing cursors avoids wrapping
+	 * the data in a new stream for each.
+	 */
+	private static final class Cursor
+	{
+		private byte[] b;
+		private int offset;
+
+		Cursor reset(byte[] b)
+		{
+			this.b = b;
+			this.offset = 0;
+			return this;
+		}
+
+		void setOffset(int offset)
+		{
+			if (offset < 0 || offset > b.length)
+			{
+				throw new IllegalArgumentException("offset " + offset + " is outside of the model");
+			}
+
+			this.offset = offset;
+		}
+
+		byte readByte()
+		{
+			return b[offset++];
+		}
+
+		int readUnsignedByte()
+		{
+			return b[offset++] & 0xFF;
+		}
+
+		int readUnsignedShort()
+		{
+			int value = (b[offset] & 0xFF) << 8 | b[offset + 1] & 0xFF;
+			offset += 2;
+			return value;
+		}
+
+		int readInt()
+		{
+			int value = (b[offset] & 0xFF) << 24 | (b[offset + 1] & 0xFF) << 16 | (b[offset + 2] & 0xFF) << 8 | b[offset + 3] & 0xFF;
+			offset += 4;
+			return value;
+		}
+
+		int readShortSmart()
+		{
+			int peek = b[offset] & 0xFF;
+			return peek < 128 ? this.readUnsignedByte() - 64 : this.readUnsignedShort() - 0xc000;
+		}
+	}
 }
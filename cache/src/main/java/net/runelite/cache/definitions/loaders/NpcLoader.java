@@ -26,160 +26,88 @@ package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.io.InputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class NpcLoader
 {
-	private static final Logger logger = LoggerFactory.getLogger(NpcLoader.class);
+	private static final OpcodeTable<NpcDefinition> OPCODES = new OpcodeTable<>("npc");
 
-	public NpcDefinition load(int id, byte[] b)
+	static
 	{
-		NpcDefinition def = new NpcDefinition(id);
-		InputStream is = new InputStream(b);
-
-		while (true)
+		OPCODES.add(1, (def, stream, opcode) ->
 		{
-			int opcode = is.readUnsignedByte();
-			if (opcode == 0)
-			{
-				break;
-			}
-
-			this.decodeValues(opcode, def, is);
-		}
-
-		return def;
-	}
-
-	private void decodeValues(int opcode, NpcDefinition def, InputStream stream)
-	{
-		int length;
-		int index;
-		if (1 == opcode)
-		{
-			length = stream.readUnsignedByte();
+			int length = stream.readUnsignedByte();
 			def.models = new int[length];
 
-			for (index = 0; index < length; ++index)
+			for (int index = 0; index < length; ++index)
 			{
 				def.models[index] = stream.readUnsignedShort();
 			}
-
-		}
-		else if (2 == opcode)
-		{
-			def.name = stream.readString();
-		}
-		else if (12 == opcode)
-		{
-			def.tileSpacesOccupied = stream.readUnsignedByte();
-		}
-		else if (opcode == 13)
-		{
-			def.stanceAnimation = stream.readUnsignedShort();
-		}
-		else if (opcode == 14)
-		{
-			def.walkAnimation = stream.readUnsignedShort();
-		}
-		else if (15 == opcode)
-		{
-			def.anInt2165 = stream.readUnsignedShort();
-		}
-		else if (opcode == 16)
-		{
-			def.anInt2189 = stream.readUnsignedShort();
-		}
-		else if (17 == opcode)
+		});
+		OPCODES.add(2, (def, stream, opcode) -> def.name = stream.readString());
+		OPCODES.add(12, (def, stream, opcode) -> def.tileSpacesOccupied = stream.readUnsignedByte());
+		OPCODES.add(13, (def, stream, opcode) -> def.stanceAnimation = stream.readUnsignedShort());
+		OPCODES.add(14, (def, stream, opcode) -> def.walkAnimation = stream.readUnsignedShort());
+		OPCODES.add(15, (def, stream, opcode) -> def.anInt2165 = stream.readUnsignedShort());
+		OPCODES.add(16, (def, stream, opcode) -> def.anInt2189 = stream.readUnsignedShort());
+		OPCODES.add(17, (def, stream, opcode) ->
 		{
 			def.walkAnimation = stream.readUnsignedShort();
 			def.rotate180Animation = stream.readUnsignedShort();
 			def.rotate90RightAnimation = stream.readUnsignedShort();
 			def.rotate90LeftAnimation = stream.readUnsignedShort();
-		}
-		else if (opcode >= 30 && opcode < 35)
+		});
+		OPCODES.add(30, 35, (def, stream, opcode) ->
 		{
 			def.options[opcode - 30] = stream.readString();
 			if (def.options[opcode - 30].equalsIgnoreCase("Hidden"))
 			{
 				def.options[opcode - 30] = null;
 			}
-		}
-		else if (opcode == 40)
+		});
+		OPCODES.add(40, (def, stream, opcode) ->
 		{
-			length = stream.readUnsignedByte();
+			int length = stream.readUnsignedByte();
 			def.recolorToFind = new short[length];
 			def.recolorToReplace = new short[length];
 
-			for (index = 0; index < length; ++index)
+			for (int index = 0; index < length; ++index)
 			{
 				def.recolorToFind[index] = (short) stream.readUnsignedShort();
 				def.recolorToReplace[index] = (short) stream.readUnsignedShort();
 			}
-
-		}
-		else if (opcode == 41)
+		});
+		OPCODES.add(41, (def, stream, opcode) ->
 		{
-			length = stream.readUnsignedByte();
+			int length = stream.readUnsignedByte();
 			def.retextureToFind = new short[length];
 			def.retextureToReplace = new short[length];
 
-			for (index = 0; index < length; ++index)
+			for (int index = 0; index < length; ++index)
 			{
 				def.retextureToFind[index] = (short) stream.readUnsignedShort();
 				def.retextureToReplace[index] = (short) stream.readUnsignedShort();
 			}
-
-		}
-		else if (60 == opcode)
+		});
+		OPCODES.add(60, (def, stream, opcode) ->
 		{
-			length = stream.readUnsignedByte();
+			int length = stream.readUnsignedByte();
 			def.models_2 = new int[length];
 
-			for (index = 0; index < length; ++index)
+			for (int index = 0; index < length; ++index)
 			{
 				def.models_2[index] = stream.readUnsignedShort();
 			}
-
-		}
-		else if (opcode == 93)
-		{
-			def.renderOnMinimap = false;
-		}
-		else if (95 == opcode)
-		{
-			def.combatLevel = stream.readUnsignedShort();
-		}
-		else if (97 == opcode)
-		{
-			def.resizeX = stream.readUnsignedShort();
-		}
-		else if (98 == opcode)
-		{
-			def.resizeY = stream.readUnsignedShort();
-		}
-		else if (opcode == 99)
-		{
-			def.hasRenderPriority = true;
-		}
-		else if (100 == opcode)
-		{
-			def.ambient = stream.readByte();
-		}
-		else if (101 == opcode)
-		{
-			def.contrast = stream.readByte();
-		}
-		else if (opcode == 102)
-		{
-			def.headIcon = stream.readUnsignedShort();
-		}
-		else if (103 == opcode)
-		{
-			def.anInt2156 = stream.readUnsignedShort();
-		}
-		else if (opcode == 106)
+		});
+		OPCODES.add(93, (def, stream, opcode) -> def.renderOnMinimap = false);
+		OPCODES.add(95, (def, stream, opcode) -> def.combatLevel = stream.readUnsignedShort());
+		OPCODES.add(97, (def, stream, opcode) -> def.resizeX = stream.readUnsignedShort());
+		OPCODES.add(98, (def, stream, opcode) -> def.resizeY = stream.readUnsignedShort());
+		OPCODES.add(99, (def, stream, opcode) -> def.hasRenderPriority = true);
+		OPCODES.add(100, (def, stream, opcode) -> def.ambient = stream.readByte());
+		OPCODES.add(101, (def, stream, opcode) -> def.contrast = stream.readByte());
+		OPCODES.add(102, (def, stream, opcode) -> def.headIcon = stream.readUnsignedShort());
+		OPCODES.add(103, (def, stream, opcode) -> def.anInt2156 = stream.readUnsignedShort());
+		OPCODES.add(106, (def, stream, opcode) ->
 		{
 			def.anInt2174 = stream.readUnsignedShort();
 			if ('\uffff' == def.anInt2174)
@@ -193,10 +121,10 @@ public class NpcLoader
 				def.anInt2187 = -40212193;
 			}
 
-			length = stream.readUnsignedByte();
+			int length = stream.readUnsignedByte();
 			def.anIntArray2185 = new int[length + 1];
 
-			for (index = 0; index <= length; ++index)
+			for (int index = 0; index <= length; ++index)
 			{
 				def.anIntArray2185[index] = stream.readUnsignedShort();
 				if (def.anIntArray2185[index] == '\uffff')
@@ -204,27 +132,17 @@ public class NpcLoader
 					def.anIntArray2185[index] = -1;
 				}
 			}
+		});
+		OPCODES.add(107, (def, stream, opcode) -> def.isClickable = false);
+		OPCODES.add(109, (def, stream, opcode) -> def.aBool2170 = false);
+		OPCODES.add(111, (def, stream, opcode) -> def.aBool2190 = true);
+		OPCODES.add(112, (def, stream, opcode) -> def.anInt2184 = stream.readUnsignedByte());
+	}
 
-		}
-		else if (107 == opcode)
-		{
-			def.isClickable = false;
-		}
-		else if (opcode == 109)
-		{
-			def.aBool2170 = false;
-		}
-		else if (opcode == 111)
-		{
-			def.aBool2190 = true;
-		}
-		else if (opcode == 112)
-		{
-			def.anInt2184 = stream.readUnsignedByte();
-		}
-		else
-		{
-			logger.warn("Unrecognized opcode {}", opcode);
-		}
+	public NpcDefinition load(int id, byte[] b)
+	{
+		NpcDefinition def = new NpcDefinition(id);
+		OPCODES.decode(id, def, new InputStream(b));
+		return def;
 	}
 }
@@ -26,37 +26,14 @@ package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.io.InputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class ObjectLoader
 {
-	private static final Logger logger = LoggerFactory.getLogger(ObjectLoader.class);
+	private static final OpcodeTable<ObjectDefinition> OPCODES = new OpcodeTable<>("object");
 
-	public ObjectDefinition load(int id, byte[] b)
+	static
 	{
-		ObjectDefinition def = new ObjectDefinition();
-		InputStream is = new InputStream(b);
-
-		def.setId(id);
-
-		for (;;)
-		{
-			int opcode = is.readUnsignedByte();
-			if (opcode == 0)
-			{
-				break;
-			}
-
-			processOp(opcode, def, is);
-		}
-
-		return def;
-	}
-
-	private void processOp(int opcode, ObjectDefinition def, InputStream is)
-	{
-		if (1 == opcode)
+		OPCODES.add(1, (def, is, opcode) ->
 		{
 			int length = is.readUnsignedByte();
 			if (length > 0)
@@ -73,12 +50,9 @@ public class ObjectLoader
 				def.setObjectTypes(objectTypes);
 				def.setObjectModels(objectModels);
 			}
-		}
-		else if (opcode == 2)
-		{
-			def.setName(is.readString());
-		}
-		else if (opcode == 5)
+		});
+		OPCODES.add(2, (def, is, opcode) -> def.setName(is.readString()));
+		OPCODES.add(5, (def, is, opcode) ->
 		{
 			int length = is.readUnsignedByte();
 			if (length > 0)
@@ -93,65 +67,32 @@ public class ObjectLoader
 
 				def.setObjectModels(objectModels);
 			}
-		}
-		else if (opcode == 14)
-		{
-			def.setSizeX(is.readUnsignedByte());
-		}
-		else if (15 == opcode)
-		{
-			def.setSizeY(is.readUnsignedByte());
-		}
-		else if (opcode == 17)
+		});
+		OPCODES.add(14, (def, is, opcode) -> def.setSizeX(is.readUnsignedByte()));
+		OPCODES.add(15, (def, is, opcode) -> def.setSizeY(is.readUnsignedByte()));
+		OPCODES.add(17, (def, is, opcode) ->
 		{
 			def.setAnInt2094(0);
 			def.setaBool2114(false);
-		}
-		else if (opcode == 18)
-		{
-			def.setaBool2114(false);
-		}
-		else if (opcode == 19)
-		{
-			def.setAnInt2088(is.readUnsignedByte());
-		}
-		else if (opcode == 21)
-		{
-			def.setAnInt2105(0);
-		}
-		else if (22 == opcode)
-		{
-			def.setNonFlatShading(false);
-		}
-		else if (opcode == 23)
-		{
-			def.setaBool2111(true);
-		}
-		else if (24 == opcode)
+		});
+		OPCODES.add(18, (def, is, opcode) -> def.setaBool2114(false));
+		OPCODES.add(19, (def, is, opcode) -> def.setAnInt2088(is.readUnsignedByte()));
+		OPCODES.add(21, (def, is, opcode) -> def.setAnInt2105(0));
+		OPCODES.add(22, (def, is, opcode) -> def.setNonFlatShading(false));
+		OPCODES.add(23, (def, is, opcode) -> def.setaBool2111(true));
+		OPCODES.add(24, (def, is, opcode) ->
 		{
 			def.setAnimationID(is.readUnsignedShort());
 			if (def.getAnimationID() == 0xFFFF)
 			{
 				def.setAnimationID(-1);
 			}
-		}
-		else if (opcode == 27)
-		{
-			def.setAnInt2094(1);
-		}
-		else if (opcode == 28)
-		{
-			def.setAnInt2069(is.readUnsignedByte());
-		}
-		else if (opcode == 29)
-		{
-			def.setAmbient(is.readByte());
-		}
-		else if (opcode == 39)
-		{
-			def.setContrast(is.readByte());
-		}
-		else if (opcode >= 30 && opcode < 35)
+		});
+		OPCODES.add(27, (def, is, opcode) -> def.setAnInt2094(1));
+		OPCODES.add(28, (def, is, opcode) -> def.setAnInt2069(is.readUnsignedByte()));
+		OPCODES.add(29, (def, is, opcode) -> def.setAmbient(is.readByte()));
+		OPCODES.add(39, (def, is, opcode) -> def.setContrast(is.readByte()));
+		OPCODES.add(30, 35, (def, is, opcode) ->
 		{
 			String[] actions = def.getActions();
 			actions[opcode - 30] = is.readString();
@@ -159,8 +100,8 @@ public class ObjectLoader
 			{
 				actions[opcode - 30] = null;
 			}
-		}
-		else if (opcode == 40)
+		});
+		OPCODES.add(40, (def, is, opcode) ->
 		{
 			int length = is.readUnsignedByte();
 			short[] recolorToFind = new short[length];
@@ -174,8 +115,8 @@ public class ObjectLoader
 
 			def.setRecolorToFind(recolorToFind);
 			def.setRecolorToReplace(recolorToReplace);
-		}
-		else if (opcode == 41)
+		});
+		OPCODES.add(41, (def, is, opcode) ->
 		{
 			int length = is.readUnsignedByte();
 			short[] retextureToFind = new short[length];
@@ -189,64 +130,22 @@ public class ObjectLoader
 
 			def.setRetextureToFind(retextureToFind);
 			def.setTextureToReplace(textureToReplace);
-		}
-		else if (opcode == 60)
-		{
-			def.setMapIconID(is.readUnsignedShort());
-		}
-		else if (62 == opcode)
-		{
-			def.setaBool2108(true);
-		}
-		else if (opcode == 64)
-		{
-			def.setaBool2097(false);
-		}
-		else if (opcode == 65)
-		{
-			def.setModelSizeX(is.readUnsignedShort());
-		}
-		else if (opcode == 66)
-		{
-			def.setModelSizeHeight(is.readUnsignedShort());
-		}
-		else if (67 == opcode)
-		{
-			def.setModelSizeY(is.readUnsignedShort());
-		}
-		else if (opcode == 68)
-		{
-			def.setMapSceneID(is.readUnsignedShort());
-		}
-		else if (opcode == 69)
-		{
-			is.readByte();
-		}
-		else if (70 == opcode)
-		{
-			def.setOffsetX(is.readUnsignedShort());
-		}
-		else if (opcode == 71)
-		{
-			def.setOffsetHeight(is.readUnsignedShort());
-		}
-		else if (opcode == 72)
-		{
-			def.setOffsetY(is.readUnsignedShort());
-		}
-		else if (73 == opcode)
-		{
-			def.setaBool2104(true);
-		}
-		else if (74 == opcode)
-		{
-			def.setIsSolid(true);
-		}
-		else if (opcode == 75)
-		{
-			def.setAnInt2106(is.readUnsignedByte());
-		}
-		else if (opcode == 77)
+		});
+		OPCODES.add(60, (def, is, opcode) -> def.setMapIconID(is.readUnsignedShort()));
+		OPCODES.add(62, (def, is, opcode) -> def.setaBool2108(true));
+		OPCODES.add(64, (def, is, opcode) -> def.setaBool2097(false));
+		OPCODES.add(65, (def, is, opcode) -> def.setModelSizeX(is.readUnsignedShort()));
+		OPCODES.add(66, (def, is, opcode) -> def.setModelSizeHeight(is.readUnsignedShort()));
+		OPCODES.add(67, (def, is, opcode) -> def.setModelSizeY(is.readUnsignedShort()));
+		OPCODES.add(68, (def, is, opcode) -> def.setMapSceneID(is.readUnsignedShort()));
+		OPCODES.add(69, (def, is, opcode) -> is.readByte());
+		OPCODES.add(70, (def, is, opcode) -> def.setOffsetX(is.readUnsignedShort()));
+		OPCODES.add(71, (def, is, opcode) -> def.setOffsetHeight(is.readUnsignedShort()));
+		OPCODES.add(72, (def, is, opcode) -> def.setOffsetY(is.readUnsignedShort()));
+		OPCODES.add(73, (def, is, opcode) -> def.setaBool2104(true));
+		OPCODES.add(74, (def, is, opcode) -> def.setIsSolid(true));
+		OPCODES.add(75, (def, is, opcode) -> def.setAnInt2106(is.readUnsignedByte()));
+		OPCODES.add(77, (def, is, opcode) ->
 		{
 			int varpID = is.readUnsignedShort();
 			if (varpID == 0xFFFF)
@@ -275,13 +174,13 @@ public class ObjectLoader
 			}
 
 			def.setConfigChangeDest(configChangeDest);
-		}
-		else if (opcode == 78)
+		});
+		OPCODES.add(78, (def, is, opcode) ->
 		{
 			def.setAnInt2110(is.readUnsignedShort());
 			def.setAnInt2083(is.readUnsignedByte());
-		}
-		else if (opcode == 79)
+		});
+		OPCODES.add(79, (def, is, opcode) ->
 		{
 			def.setAnInt2112(is.readUnsignedShort());
 			def.setAnInt2113(is.readUnsignedShort());
@@ -295,14 +194,15 @@ public class ObjectLoader
 			}
 
 			def.setAnIntArray2084(anIntArray2084);
-		}
-		else if (opcode == 81)
-		{
-			def.setAnInt2105(is.readUnsignedByte());
-		}
-		else
-		{
-			logger.warn("Unrecognized opcode {}", opcode);
-		}
+		});
+		OPCODES.add(81, (def, is, opcode) -> def.setAnInt2105(is.readUnsignedByte()));
+	}
+
+	public ObjectDefinition load(int id, byte[] b)
+	{
+		ObjectDefinition def = new ObjectDefinition();
+		def.setId(id);
+		OPCODES.decode(id, def, new InputStream(b));
+		return def;
 	}
 }
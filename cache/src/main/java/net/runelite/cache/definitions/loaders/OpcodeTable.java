@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.loaders;
+
+import net.runelite.cache.io.InputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes definitions made of opcodes, each followed by its values and
+ * ended by opcode 0, by looking up a handler for each opcode in a table.
+ * <p>
+ * The values following an unrecognized opcode can't be skipped, so
+ * decoding stops there, leaving the rest of the definition at its
+ * defaults.
+ *
+ * @param <T> definition type
+ */
+class OpcodeTable<T>
+{
+	private static final Logger logger = LoggerFactory.getLogger(OpcodeTable.class);
+
+	@FunctionalInterface
+	interface Handler<T>
+	{
+		void decode(T def, InputStream stream, int opcode);
+	}
+
+	private final String name;
+	@SuppressWarnings("unchecked")
+	private final Handler<T>[] handlers = new Handler[256];
+
+	/**
+	 * @param name name of the definition type, for logging
+	 */
+	OpcodeTable(String name)
+	{
+		this.name = name;
+	}
+
+	void add(int opcode, Handler<T> handler)
+	{
+		add(opcode, opcode + 1, handler);
+	}
+
+	/**
+	 * Add a handler for a range of opcodes.
+	 *
+	 * @param from first opcode, inclusive
+	 * @param to last opcode, exclusive
+	 * @param handler
+	 */
+	void add(int from, int to, Handler<T> handler)
+	{
+		if (from <= 0 || to > handlers.length || from >= to)
+		{
+			throw new IllegalArgumentException("invalid opcodes " + from + " to " + to);
+		}
+
+		for (int opcode = from; opcode < to; ++opcode)
+		{
+			if (handlers[opcode] != null)
+			{
+				throw new IllegalArgumentException("opcode " + opcode + " is already handled");
+			}
+
+			handlers[opcode] = handler;
+		}
+	}
+
+	/**
+	 * Decode opcodes into a definition.
+	 *
+	 * @param id id of the definition, for logging
+	 * @param def
+	 * @param stream
+	 * @return true if every opcode was recognized
+	 */
+	boolean decode(int id, T def, InputStream stream)
+	{
+		for (;;)
+		{
+			int offset = stream.getOffset();
+			int opcode = stream.readUnsignedByte();
+			if (opcode == 0)
+			{
+				return true;
+			}
+
+			Handler<T> handler = handlers[opcode];
+			if (handler == null)
+			{
+				logger.warn("Unrecognized {} opcode {} at offset {} of definition {}", name, opcode, offset, id);
+				return false;
+			}
+
+			handler.decode(def, stream, opcode);
+		}
+	}
+}
@@ -26,131 +26,87 @@ package net.runelite.cache.definitions.loaders;
 
 import net.runelite.cache.definitions.SequenceDefinition;
 import net.runelite.cache.io.InputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class SequenceLoader
 {
-	private static final Logger logger = LoggerFactory.getLogger(SequenceLoader.class);
+	private static final OpcodeTable<SequenceDefinition> OPCODES = new OpcodeTable<>("sequence");
 
-	public SequenceDefinition load(int id, byte[] b)
+	static
 	{
-		SequenceDefinition def = new SequenceDefinition(id);
-		InputStream is = new InputStream(b);
-
-		while (true)
+		OPCODES.add(1, (def, stream, opcode) ->
 		{
-			int opcode = is.readUnsignedByte();
-			if (opcode == 0)
-			{
-				break;
-			}
-
-			this.decodeValues(opcode, def, is);
-		}
-
-		return def;
-	}
-
-	private void decodeValues(int opcode, SequenceDefinition def, InputStream stream)
-	{
-		int var3;
-		int var4;
-		if (opcode == 1)
-		{
-			var3 = stream.readUnsignedShort();
+			int var3 = stream.readUnsignedShort();
 			def.frameLenghts = new int[var3];
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.frameLenghts[var4] = stream.readUnsignedShort();
 			}
 
 			def.frameIDs = new int[var3];
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.frameIDs[var4] = stream.readUnsignedShort();
 			}
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.frameIDs[var4] += stream.readUnsignedShort() << 16;
 			}
-		}
-		else if (opcode == 2)
-		{
-			def.frameStep = stream.readUnsignedShort();
-		}
-		else if (opcode == 3)
+		});
+		OPCODES.add(2, (def, stream, opcode) -> def.frameStep = stream.readUnsignedShort());
+		OPCODES.add(3, (def, stream, opcode) ->
 		{
-			var3 = stream.readUnsignedByte();
+			int var3 = stream.readUnsignedByte();
 			def.interleaveLeave = new int[1 + var3];
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.interleaveLeave[var4] = stream.readUnsignedByte();
 			}
 
 			def.interleaveLeave[var3] = 9999999;
-		}
-		else if (opcode == 4)
+		});
+		OPCODES.add(4, (def, stream, opcode) -> def.stretches = true);
+		OPCODES.add(5, (def, stream, opcode) -> def.forcedPriority = stream.readUnsignedByte());
+		OPCODES.add(6, (def, stream, opcode) -> def.leftHandItem = stream.readUnsignedShort());
+		OPCODES.add(7, (def, stream, opcode) -> def.rightHandItem = stream.readUnsignedShort());
+		OPCODES.add(8, (def, stream, opcode) -> def.maxLoops = stream.readUnsignedByte());
+		OPCODES.add(9, (def, stream, opcode) -> def.precedenceAnimating = stream.readUnsignedByte());
+		OPCODES.add(10, (def, stream, opcode) -> def.priority = stream.readUnsignedByte());
+		OPCODES.add(11, (def, stream, opcode) -> def.replyMode = stream.readUnsignedByte());
+		OPCODES.add(12, (def, stream, opcode) ->
 		{
-			def.stretches = true;
-		}
-		else if (opcode == 5)
-		{
-			def.forcedPriority = stream.readUnsignedByte();
-		}
-		else if (opcode == 6)
-		{
-			def.leftHandItem = stream.readUnsignedShort();
-		}
-		else if (opcode == 7)
-		{
-			def.rightHandItem = stream.readUnsignedShort();
-		}
-		else if (opcode == 8)
-		{
-			def.maxLoops = stream.readUnsignedByte();
-		}
-		else if (opcode == 9)
-		{
-			def.precedenceAnimating = stream.readUnsignedByte();
-		}
-		else if (opcode == 10)
-		{
-			def.priority = stream.readUnsignedByte();
-		}
-		else if (opcode == 11)
-		{
-			def.replyMode = stream.readUnsignedByte();
-		}
-		else if (opcode == 12)
-		{
-			var3 = stream.readUnsignedByte();
+			int var3 = stream.readUnsignedByte();
 			def.field3048 = new int[var3];
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.field3048[var4] = stream.readUnsignedShort();
 			}
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.field3048[var4] += stream.readUnsignedShort() << 16;
 			}
-		}
-		else if (opcode == 13)
+		});
+		OPCODES.add(13, (def, stream, opcode) ->
 		{
-			var3 = stream.readUnsignedByte();
+			int var3 = stream.readUnsignedByte();
 			def.field3056 = new int[var3];
 
-			for (var4 = 0; var4 < var3; ++var4)
+			for (int var4 = 0; var4 < var3; ++var4)
 			{
 				def.field3056[var4] = stream.read24BitInt();
 			}
-		}
+		});
+	}
 
+	public SequenceDefinition load(int id, byte[] b)
+	{
+		SequenceDefinition def = new SequenceDefinition(id);
+		OPCODES.decode(id, def, new InputStream(b));
+		return def;
 	}
 }
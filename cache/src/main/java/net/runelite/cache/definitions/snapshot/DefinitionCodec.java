@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the instance fields of a definition class, in name order.
+ * Fields may be primitives, strings, or arrays of either.
+ *
+ * @param <T> definition type
+ */
+class DefinitionCodec<T>
+{
+	private final Class<T> type;
+	private final List<Field> fields = new ArrayList<>();
+	private final List<ValueCodec> codecs = new ArrayList<>();
+	private final int schema;
+
+	DefinitionCodec(Class<T> type)
+	{
+		this.type = type;
+
+		StringBuilder sb = new StringBuilder(type.getName());
+		for (Class<?> c = type; c != Object.class; c = c.getSuperclass())
+		{
+			for (Field field : c.getDeclaredFields())
+			{
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers))
+				{
+					continue;
+				}
+
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+
+		fields.sort(Comparator.comparing(Field::getName));
+		for (Field field : fields)
+		{
+			codecs.add(codec(field.getType()));
+			sb.append(';').append(field.getType().getName()).append(' ').append(field.getName());
+		}
+
+		schema = sb.toString().hashCode();
+	}
+
+	Class<T> getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @return a hash of the fields encoded, which changes if the
+	 * definition class does
+	 */
+	int getSchema()
+	{
+		return schema;
+	}
+
+	void write(DataOutput out, T definition) throws IOException
+	{
+		try
+		{
+			for (int i = 0; i < fields.size(); ++i)
+			{
+				codecs.get(i).write(out, fields.get(i).get(definition));
+			}
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	T read(ByteBuffer buffer, T definition)
+	{
+		try
+		{
+			for (int i = 0; i < fields.size(); ++i)
+			{
+				fields.get(i).set(definition, codecs.get(i).read(buffer));
+			}
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+		return definition;
+	}
+
+	private interface ValueCodec
+	{
+		void write(DataOutput out, Object value) throws IOException;
+
+		Object read(ByteBuffer buffer);
+	}
+
+	private static ValueCodec codec(Class<?> c)
+	{
+		if (c == int.class)
+		{
+			return codec((out, v) -> out.writeInt((Integer) v), ByteBuffer::getInt);
+		}
+		if (c == boolean.class)
+		{
+			return codec((out, v) -> out.writeBoolean((Boolean) v), b -> b.get() != 0);
+		}
+		if (c == byte.class)
+		{
+			return codec((out, v) -> out.writeByte((Byte) v), ByteBuffer::get);
+		}
+		if (c == short.class)
+		{
+			return codec((out, v) -> out.writeShort((Short) v), ByteBuffer::getShort);
+		}
+		if (c == char.class)
+		{
+			return codec((out, v) -> out.writeChar((Character) v), ByteBuffer::getChar);
+		}
+		if (c == long.class)
+		{
+			return codec((out, v) -> out.writeLong((Long) v), ByteBuffer::getLong);
+		}
+		if (c == float.class)
+		{
+			return codec((out, v) -> out.writeFloat((Float) v), ByteBuffer::getFloat);
+		}
+		if (c == double.class)
+		{
+			return codec((out, v) -> out.writeDouble((Double) v), ByteBuffer::getDouble);
+		}
+		if (c == String.class)
+		{
+			return new ValueCodec()
+			{
+				@Override
+				public void write(DataOutput out, Object value) throws IOException
+				{
+					if (value == null)
+					{
+						out.writeInt(-1);
+						return;
+					}
+
+					byte[] b = ((String) value).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(b.length);
+					out.write(b);
+				}
+
+				@Override
+				public Object read(ByteBuffer buffer)
+				{
+					int length = buffer.getInt();
+					if (length == -1)
+					{
+						return null;
+					}
+
+					byte[] b = new byte[length];
+					buffer.get(b);
+					return new String(b, StandardCharsets.UTF_8);
+				}
+			};
+		}
+		if (c == int[].class)
+		{
+			return codec((out, v) ->
+			{
+				int[] a = (int[]) v;
+				out.writeInt(a == null ? -1 : a.length);
+				for (int i = 0; a != null && i < a.length; ++i)
+				{
+					out.writeInt(a[i]);
+				}
+			}, b ->
+			{
+				int length = b.getInt();
+				if (length == -1)
+				{
+					return null;
+				}
+
+				int[] a = new int[length];
+				b.asIntBuffer().get(a);
+				b.position(b.position() + length * Integer.BYTES);
+				return a;
+			});
+		}
+		if (c == short[].class)
+		{
+			return codec((out, v) ->
+			{
+				short[] a = (short[]) v;
+				out.writeInt(a == null ? -1 : a.length);
+				for (int i = 0; a != null && i < a.length; ++i)
+				{
+					out.writeShort(a[i]);
+				}
+			}, b ->
+			{
+				int length = b.getInt();
+				if (length == -1)
+				{
+					return null;
+				}
+
+				short[] a = new short[length];
+				b.asShortBuffer().get(a);
+				b.position(b.position() + length * Short.BYTES);
+				return a;
+			});
+		}
+		if (c.isArray())
+		{
+			Class<?> componentType = c.getComponentType();
+			ValueCodec component = codec(componentType);
+			return new ValueCodec()
+			{
+				@Override
+				public void write(DataOutput out, Object value) throws IOException
+				{
+					if (value == null)
+					{
+						out.writeInt(-1);
+						return;
+					}
+
+					int length = Array.getLength(value);
+					out.writeInt(length);
+					for (int i = 0; i < length; ++i)
+					{
+						component.write(out, Array.get(value, i));
+					}
+				}
+
+				@Override
+				public Object read(ByteBuffer buffer)
+				{
+					int length = buffer.getInt();
+					if (length == -1)
+					{
+						return null;
+					}
+
+					Object array = Array.newInstance(componentType, length);
+					for (int i = 0; i < length; ++i)
+					{
+						Array.set(array, i, component.read(buffer));
+					}
+					return array;
+				}
+			};
+		}
+
+		throw new IllegalArgumentException("unsupported field type " + c.getName());
+	}
+
+	@FunctionalInterface
+	private interface Writer
+	{
+		void write(DataOutput out, Object value) throws IOException;
+	}
+
+	private static ValueCodec codec(Writer writer, Function<ByteBuffer, Object> reader)
+	{
+		return new ValueCodec()
+		{
+			@Override
+			public void write(DataOutput out, Object value) throws IOException
+			{
+				writer.write(out, value);
+			}
+
+			@Override
+			public Object read(ByteBuffer buffer)
+			{
+				return reader.apply(buffer);
+			}
+		};
+	}
+}
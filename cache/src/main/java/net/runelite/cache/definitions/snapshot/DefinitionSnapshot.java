@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * A snapshot of the decoded definitions of an archive. Snapshots are
+ * memory mapped and each definition is read from the mapping when it is
+ * requested, so loading one does no decoding at all. The file stays mapped
+ * for as long as the snapshot is reachable, and on some platforms can't be
+ * replaced or deleted until then.
+ * <p>
+ * A snapshot records the crc of the archive it was made from and the
+ * layout of the definition class, and is not loaded if either differs.
+ * <p>
+ * The format is a header of magic, version, schema, crc and count, the
+ * ids of the definitions in ascending order, the offset of each
+ * definition and of the end of the data, and then the data.
+ *
+ * @param <T> definition type
+ */
+public class DefinitionSnapshot<T>
+{
+	private static final int MAGIC = 0x44534E50; // DSNP
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 20;
+
+	private final DefinitionCodec<T> codec;
+	private final IntFunction<T> factory;
+	private final int crc;
+	private final int[] ids;
+	private final ByteBuffer index; // offsets
+	private final ByteBuffer data;
+
+	private DefinitionSnapshot(DefinitionCodec<T> codec, IntFunction<T> factory, int crc, int[] ids, ByteBuffer index, ByteBuffer data)
+	{
+		this.codec = codec;
+		this.factory = factory;
+		this.crc = crc;
+		this.ids = ids;
+		this.index = index;
+		this.data = data;
+	}
+
+	/**
+	 * Write a snapshot of definitions.
+	 *
+	 * @param file
+	 * @param type definition class
+	 * @param crc crc of the archive the definitions were decoded from
+	 * @param definitions definitions by id
+	 * @param <T>
+	 * @throws IOException
+	 */
+	public static <T> void write(File file, Class<T> type, int crc, Map<Integer, T> definitions) throws IOException
+	{
+		DefinitionCodec<T> codec = new DefinitionCodec<>(type);
+		Map<Integer, T> sorted = new TreeMap<>(definitions);
+
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bout);
+		int[] offsets = new int[sorted.size() + 1];
+		int i = 0;
+		for (T def : sorted.values())
+		{
+			offsets[i++] = data.size();
+			codec.write(data, def);
+		}
+		offsets[i] = data.size();
+
+		// write to a temporary file first, so a snapshot which is in use
+		// is never seen partly written
+		File tmp = new File(file.getPath() + ".tmp");
+		try (OutputStream fout = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()));
+			DataOutputStream out = new DataOutputStream(fout))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(codec.getSchema());
+			out.writeInt(crc);
+			out.writeInt(sorted.size());
+			for (int id : sorted.keySet())
+			{
+				out.writeInt(id);
+			}
+			for (int offset : offsets)
+			{
+				out.writeInt(offset);
+			}
+			bout.writeTo(out);
+		}
+
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Load a snapshot of definitions.
+	 *
+	 * @param file
+	 * @param type definition class
+	 * @param factory creates an empty definition with the given id
+	 * @param crc crc of the archive the definitions must have been decoded
+	 * from
+	 * @param <T>
+	 * @return the snapshot, or null if there is none or it is out of date
+	 * @throws IOException
+	 */
+	public static <T> DefinitionSnapshot<T> load(File file, Class<T> type, IntFunction<T> factory, int crc) throws IOException
+	{
+		if (!file.exists())
+		{
+			return null;
+		}
+
+		DefinitionCodec<T> codec = new DefinitionCodec<>(type);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+			{
+				return null;
+			}
+
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+				|| buffer.getInt() != codec.getSchema() || buffer.getInt() != crc)
+			{
+				return null;
+			}
+
+			int count = buffer.getInt();
+			long dataStart = HEADER_SIZE + (long) count * Integer.BYTES + (long) (count + 1) * Integer.BYTES;
+			if (count < 0 || dataStart > size)
+			{
+				return null;
+			}
+
+			int[] ids = new int[count];
+			buffer.asIntBuffer().get(ids);
+			buffer.position(buffer.position() + count * Integer.BYTES);
+
+			ByteBuffer index = buffer.slice();
+			buffer.position((int) dataStart);
+			ByteBuffer data = buffer.slice();
+
+			if (index.getInt(count * Integer.BYTES) != data.capacity())
+			{
+				return null; // truncated
+			}
+
+			return new DefinitionSnapshot<>(codec, factory, crc, ids, index, data);
+		}
+	}
+
+	public int getCrc()
+	{
+		return crc;
+	}
+
+	public int size()
+	{
+		return ids.length;
+	}
+
+	/**
+	 * @return the highest id of any definition, or -1 if there are none
+	 */
+	public int getMaxId()
+	{
+		return ids.length > 0 ? ids[ids.length - 1] : -1;
+	}
+
+	/**
+	 * Read a definition. Each call reads a new copy of the definition.
+	 *
+	 * @param id
+	 * @return the definition, or null if there is none with the id
+	 */
+	public T get(int id)
+	{
+		int i = Arrays.binarySearch(ids, id);
+		if (i < 0)
+		{
+			return null;
+		}
+
+		// use a view of the data so concurrent reads do not share a position
+		ByteBuffer buffer = data.duplicate();
+		buffer.position(index.getInt(i * Integer.BYTES));
+		return codec.read(buffer, factory.apply(id));
+	}
+
+	/**
+	 * @return every definition, in id order
+	 */
+	public List<T> getAll()
+	{
+		List<T> all = new ArrayList<>(ids.length);
+		for (int id : ids)
+		{
+			all.add(get(id));
+		}
+		return all;
+	}
+}
@@ -40,6 +40,10 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -62,9 +66,12 @@ public class CacheClient implements AutoCloseable
 
 	private static final int CLIENT_REVISION = 139;
 
+	private static final int DEFAULT_WINDOW_SIZE = 20; // max pending requests of the client
+
 	private final Store store; // store cache will be written to
 	private final String host;
 	private final int clientRevision;
+	private int windowSize = DEFAULT_WINDOW_SIZE;
 
 	private ClientState state;
 
@@ -72,7 +79,7 @@ public class CacheClient implements AutoCloseable
 	private Channel channel;
 
 	private CompletableFuture<Integer> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	private final Map<Integer, PendingFileRequest> requests = new HashMap<>();
 
 	public CacheClient(Store store)
 	{
@@ -117,25 +124,26 @@ public class CacheClient implements AutoCloseable
 		message.writeByte(msg.getType()); // handshake type
 		message.writeInt(msg.getRevision()); // client revision
 
+		// the response may arrive before writeAndFlush returns
+		assert handshakeFuture == null;
+		CompletableFuture<Integer> future = new CompletableFuture<>();
+		handshakeFuture = future;
+
 		state = ClientState.HANDSHAKING;
 		channel.writeAndFlush(message);
 
 		logger.info("Sent handshake with revision {}", msg.getRevision());
 
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
-
-		return handshakeFuture;
+		return future;
 	}
 
 	public void onHandshake(int response)
 	{
 		assert handshakeFuture != null;
 
-		handshakeFuture.complete(response);
-
 		if (response != HelloHandshake.RESPONSE_OK)
 		{
+			handshakeFuture.complete(response);
 			close();
 			return;
 		}
@@ -151,6 +159,9 @@ public class CacheClient implements AutoCloseable
 		state = ClientState.CONNECTED;
 
 		logger.info("Client is now connected!");
+
+		// complete after connecting so requests may be made immediately
+		handshakeFuture.complete(response);
 	}
 
 	@Override
@@ -170,6 +181,28 @@ public class CacheClient implements AutoCloseable
 		return state;
 	}
 
+	public int getWindowSize()
+	{
+		return windowSize;
+	}
+
+	/**
+	 * Set the maximum number of archive requests which may be in flight
+	 * at once during a download. A window size of 1 waits for each
+	 * archive before requesting the next.
+	 *
+	 * @param windowSize
+	 */
+	public void setWindowSize(int windowSize)
+	{
+		if (windowSize < 1)
+		{
+			throw new IllegalArgumentException("window size must be at least 1");
+		}
+
+		this.windowSize = windowSize;
+	}
+
 	public void download() throws InterruptedException, ExecutionException, FileNotFoundException, IOException
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
@@ -237,6 +270,8 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Index {} has {} archives", i, index.getArchives().size());
 
+			List<Archive> outdated = new ArrayList<>();
+
 			for (Archive archive : index.getArchives())
 			{
 				Archive oldArchive = oldIndex != null ? oldIndex.getArchive(archive.getArchiveId()) : null;
@@ -260,14 +295,7 @@ public class CacheClient implements AutoCloseable
 							oldArchive.getRevision(), archive.getRevision());
 					}
 
-					FileResult archiveFileResult = requestFile(index.getId(), archive.getArchiveId()).get();
-					byte[] compressedContents = archiveFileResult.getCompressedData();
-
-					archive.setData(compressedContents);
-					if (index.getId() != IndexType.MAPS.getNumber())
-					{
-						archive.decompressAndLoad(null);
-					}
+					outdated.add(archive);
 				}
 				else
 				{
@@ -287,12 +315,53 @@ public class CacheClient implements AutoCloseable
 					}
 				}
 			}
+
+			downloadArchives(index, outdated);
 		}
 
 		stopwatch.stop();
 		logger.info("Download completed in {}", stopwatch);
 	}
 
+	/**
+	 * Download the given archives, keeping up to windowSize requests in
+	 * flight. Responses arrive in request order, so each archive is
+	 * decompressed and loaded while the following ones are still being
+	 * transferred.
+	 *
+	 * @param index
+	 * @param archives
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 * @throws IOException
+	 */
+	private void downloadArchives(Index index, List<Archive> archives) throws InterruptedException, ExecutionException, IOException
+	{
+		Queue<Archive> pendingArchives = new ArrayDeque<>(windowSize);
+		Queue<CompletableFuture<FileResult>> pendingResults = new ArrayDeque<>(windowSize);
+
+		for (int i = 0; i < archives.size() || !pendingResults.isEmpty();)
+		{
+			while (i < archives.size() && pendingResults.size() < windowSize)
+			{
+				Archive archive = archives.get(i++);
+
+				pendingArchives.add(archive);
+				pendingResults.add(requestFile(index.getId(), archive.getArchiveId()));
+			}
+
+			Archive archive = pendingArchives.remove();
+			FileResult archiveFileResult = pendingResults.remove().get();
+			byte[] compressedContents = archiveFileResult.getCompressedData();
+
+			archive.setData(compressedContents);
+			if (index.getId() != IndexType.MAPS.getNumber())
+			{
+				archive.decompressAndLoad(null);
+			}
+		}
+	}
+
 	public synchronized CompletableFuture<FileResult> requestFile(int index, int fileId)
 	{
 		if (state != ClientState.CONNECTED)
@@ -300,39 +369,34 @@ public class CacheClient implements AutoCloseable
 			throw new IllegalStateException("Can't request files until connected!");
 		}
 
-		ByteBuf buf = Unpooled.buffer(4);
 		FileRequest request = new FileRequest(index, fileId);
 		CompletableFuture<FileResult> future = new CompletableFuture<>();
 		PendingFileRequest pf = new PendingFileRequest(request, future);
+		int hash = pf.computeHash();
 
+		PendingFileRequest existing = requests.get(hash);
+		if (existing != null)
+		{
+			// already in flight, share the pending response
+			return existing.getFuture();
+		}
+
+		ByteBuf buf = Unpooled.buffer(4);
 		buf.writeByte(request.getIndex() == 255 ? 1 : 0);
-		int hash = pf.computeHash();
 		buf.writeMedium(hash);
 
 		logger.trace("Sending request for {}/{}", index, fileId);
 
-		channel.writeAndFlush(buf);
+		requests.put(hash, pf);
 
-		requests.add(pf);
+		channel.writeAndFlush(buf);
 
 		return future;
 	}
 
-	private PendingFileRequest findRequest(int index, int file)
-	{
-		for (PendingFileRequest pr : requests)
-		{
-			if (pr.getRequest().getIndex() == index && pr.getRequest().getFile() == file)
-			{
-				return pr;
-			}
-		}
-		return null;
-	}
-
 	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		PendingFileRequest pr = requests.remove((index << 16) | file);
 
 		if (pr == null)
 		{
@@ -340,8 +404,6 @@ public class CacheClient implements AutoCloseable
 			return;
 		}
 
-		requests.remove(pr);
-
 		FileResult result = new FileResult(index, file, compressedData);
 
 		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
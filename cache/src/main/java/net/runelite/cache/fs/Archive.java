@@ -26,6 +26,7 @@ package net.runelite.cache.fs;
 
 import com.google.common.io.Files;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,6 +35,8 @@ import java.util.List;
 import java.util.Objects;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.IntHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,8 +55,24 @@ public class Archive
 	private int revision;
 	private int compression;
 
+	private boolean dirty = true; // needs to be written on the next save
+
+	// lazy archives are read from the data file when their contents are first
+	// needed, and may be unloaded again by the store's archive cache
+	private boolean lazy;
+	private boolean loaded = true;
+
+	// whether the archive has been decoded, and the keys it was decoded
+	// with, so that a lazy archive can be decoded again after an eviction
+	private boolean decoded;
+	private int[] keys;
+
 	private List<File> files = new ArrayList<>();
 
+	// lookup tables, built on demand and discarded whenever the files change
+	private volatile IntHashMap<File> filesById;
+	private volatile IntHashMap<File> filesByName;
+
 	public Archive(Index index, int id)
 	{
 		this.index = index;
@@ -102,6 +121,11 @@ public class Archive
 		return true;
 	}
 
+	public Index getIndex()
+	{
+		return index;
+	}
+
 	public byte[] getData()
 	{
 		return data;
@@ -110,15 +134,280 @@ public class Archive
 	public void setData(byte[] data)
 	{
 		this.data = data;
+		this.dirty = true;
+	}
+
+	public boolean isDirty()
+	{
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty)
+	{
+		this.dirty = dirty;
+	}
+
+	public boolean isLazy()
+	{
+		return lazy;
+	}
+
+	public synchronized boolean isLoaded()
+	{
+		return loaded;
+	}
+
+	/**
+	 * Mark this archive as not yet read from the data file.
+	 */
+	void setLazy()
+	{
+		lazy = true;
+		loaded = false;
+	}
+
+	/**
+	 * Ensure a lazy archive has been read from the data file. If its index
+	 * is not encrypted, or the archive has been decoded before, the archive
+	 * is also decompressed and its file contents loaded.
+	 *
+	 * @throws IOException
+	 */
+	void load() throws IOException
+	{
+		if (!lazy)
+		{
+			return;
+		}
+
+		ArchiveCache cache = index.getStore().getArchiveCache();
+		boolean miss;
+		long size = 0;
+
+		synchronized (this)
+		{
+			miss = !loaded;
+			if (miss)
+			{
+				size = read();
+			}
+		}
+
+		updateCache(cache, miss, size);
+	}
+
+	/**
+	 * Get the contents of a file of this archive, loading the archive
+	 * first if required.
+	 *
+	 * @param file
+	 * @return
+	 */
+	byte[] getFileContents(File file)
+	{
+		ArchiveCache cache = index.getStore().getArchiveCache();
+		boolean miss;
+		long size = 0;
+		byte[] contents;
+
+		synchronized (this)
+		{
+			miss = !loaded;
+			if (miss)
+			{
+				try
+				{
+					size = read();
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}
+			contents = file.getLoadedContents();
+		}
+
+		updateCache(cache, miss, size);
+		return contents;
+	}
+
+	/**
+	 * Called prior to a file of this archive being modified. The archive is
+	 * loaded so that the other files are not lost, and is then dirty, so it
+	 * is kept until saved.
+	 */
+	synchronized void prepareWrite()
+	{
+		if (!loaded)
+		{
+			try
+			{
+				read();
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		}
+		dirty = true;
+	}
+
+	private long read() throws IOException
+	{
+		IndexFile indexFile = index.getIndex();
+		IndexEntry entry = indexFile.read(archiveId);
+		if (entry == null)
+		{
+			throw new IOException("can't read archive " + archiveId + " from index " + index.getId());
+		}
+
+		logger.trace("Lazily loading archive {} for index {} from sector {} length {}", archiveId, index.getId(), entry.getSector(), entry.getLength());
+
+		byte[] archiveData = index.getStore().getData().read(index.getId(), archiveId, entry.getSector(), entry.getLength());
+		if (archiveData == null)
+		{
+			throw new IOException("unable to read archive " + archiveId + " from index " + index.getId());
+		}
+
+		boolean wasDirty = dirty;
+		data = archiveData;
+		loaded = true;
+
+		// archives of encrypted indexes can't be decoded until their keys
+		// are given, unless they have been decoded before
+		if (index.getXteaManager() == null || decoded)
+		{
+			decompress(keys);
+		}
+
+		dirty = wasDirty;
+		return getLoadedSize();
+	}
+
+	private long getLoadedSize()
+	{
+		if (data != null)
+		{
+			return data.length;
+		}
+
+		long size = 0;
+		for (File file : files)
+		{
+			byte[] contents = file.getLoadedContents();
+			if (contents != null)
+			{
+				size += contents.length;
+			}
+		}
+		return size;
+	}
+
+	private void updateCache(ArchiveCache cache, boolean miss, long size)
+	{
+		if (cache == null)
+		{
+			return;
+		}
+
+		if (!miss)
+		{
+			cache.hit(this);
+			return;
+		}
+
+		unload(cache.miss(this, size));
+	}
+
+	private static void unload(List<Archive> evicted)
+	{
+		// unload outside of our own lock, archive locks are never nested
+		for (Archive archive : evicted)
+		{
+			archive.unload();
+		}
+	}
+
+	/**
+	 * Discard the data and file contents of a lazy archive, which will be
+	 * read again when next needed. Archives with unsaved changes are kept.
+	 */
+	synchronized void unload()
+	{
+		if (!lazy || !loaded || dirty)
+		{
+			return;
+		}
+
+		data = null;
+		for (File file : files)
+		{
+			file.unload();
+		}
+		loaded = false;
 	}
 
 	public File addFile(int id)
 	{
 		File file = new File(this, id);
 		this.files.add(file);
+		invalidateFileLookup();
+		dirty = true;
 		return file;
 	}
 
+	public File getFile(int id)
+	{
+		IntHashMap<File> byId = filesById;
+		if (byId == null)
+		{
+			buildFileLookup();
+			byId = filesById;
+		}
+		return byId.get(id);
+	}
+
+	public File findFileByName(String name)
+	{
+		return findFileByNameHash(Djb2.hash(name));
+	}
+
+	public File findFileByNameHash(int hash)
+	{
+		IntHashMap<File> byName = filesByName;
+		if (byName == null)
+		{
+			buildFileLookup();
+			byName = filesByName;
+		}
+		return byName.get(hash);
+	}
+
+	/**
+	 * Discard the file lookup tables. This must be called whenever a
+	 * file is added or a file name changes.
+	 */
+	void invalidateFileLookup()
+	{
+		filesById = null;
+		filesByName = null;
+	}
+
+	private void buildFileLookup()
+	{
+		IntHashMap<File> byId = new IntHashMap<>(files.size());
+		IntHashMap<File> byName = new IntHashMap<>(files.size());
+
+		for (File f : files)
+		{
+			byId.putIfAbsent(f.getFileId(), f);
+			byName.putIfAbsent(f.getNameHash(), f);
+		}
+
+		filesByName = byName;
+		filesById = byId;
+	}
+
 	public void loadFiles(InputStream stream, int numberOfFiles, int protocol)
 	{
 		int archive = 0;
@@ -130,17 +419,94 @@ public class Archive
 			File file = new File(this, fileId);
 			this.files.add(file);
 		}
+
+		invalidateFileLookup();
+	}
+
+	/**
+	 * Decrypt and decompress the data of this archive, reading it first
+	 * if it is lazy, and load the contents of its files. The contents are
+	 * returned as they were loaded, as the files of a lazy archive may be
+	 * unloaded again by the time the caller looks at them.
+	 *
+	 * @param keys xtea keys, or null
+	 * @return the contents of the files in this archive, in file order, or
+	 * null if the archive could not be decrypted
+	 * @throws IOException
+	 */
+	public List<byte[]> decompressAndLoad(int[] keys) throws IOException
+	{
+		ArchiveCache cache = lazy ? index.getStore().getArchiveCache() : null;
+		boolean miss;
+		boolean resized = false;
+		long size;
+		List<byte[]> contents = null;
+
+		synchronized (this)
+		{
+			miss = lazy && !loaded;
+			if (miss)
+			{
+				read();
+			}
+
+			// once loaded, the raw data is only held until it is decoded
+			if (data != null)
+			{
+				resized = decompress(keys);
+			}
+
+			if (data == null)
+			{
+				contents = new ArrayList<>(files.size());
+				for (File file : files)
+				{
+					contents.add(file.getLoadedContents());
+				}
+			}
+
+			size = getLoadedSize();
+		}
+
+		if (cache != null)
+		{
+			if (miss)
+			{
+				unload(cache.miss(this, size));
+			}
+			else if (resized)
+			{
+				// now held decoded, rather than as the raw data
+				unload(cache.resize(this, size));
+			}
+			else
+			{
+				cache.hit(this);
+			}
+		}
+
+		return contents;
 	}
 
-	public void decompressAndLoad(int[] keys) throws IOException
+	/**
+	 * Decode the raw data of this archive into the contents of its files.
+	 * Must be called with the archive lock held.
+	 *
+	 * @param keys
+	 * @return whether the archive was decoded
+	 * @throws IOException
+	 */
+	private boolean decompress(int[] keys) throws IOException
 	{
 		byte[] encryptedData = this.getData();
+		boolean wasDirty = dirty; // decoding the data does not change it
 
-		DataFileReadResult res = DataFile.decompress(encryptedData, keys);
+		// only hash if there is a whirlpool to verify against
+		DataFileReadResult res = DataFile.decompress(encryptedData, keys, this.getWhirlpool() != null);
 		if (res == null)
 		{
 			logger.warn("Unable to decrypt archive {}", this);
-			return;
+			return false;
 		}
 
 		byte[] decompressedData = res.data;
@@ -165,6 +531,10 @@ public class Archive
 
 		loadContents(decompressedData);
 		this.setData(null); // now that we've loaded it, clean it so it doesn't get written back
+		this.dirty = wasDirty;
+		this.decoded = true;
+		this.keys = keys;
+		return true;
 	}
 
 	public void loadContents(byte[] data)
@@ -173,7 +543,7 @@ public class Archive
 
 		if (this.getFiles().size() == 1)
 		{
-			this.getFiles().get(0).setContents(data);
+			this.getFiles().get(0).loadContents(data);
 			return;
 		}
 
@@ -229,7 +599,7 @@ public class Archive
 		for (int i = 0; i < filesCount; ++i)
 		{
 			File f = this.getFiles().get(i);
-			f.setContents(fileContents[i]);
+			f.loadContents(fileContents[i]);
 		}
 	}
 
@@ -275,6 +645,8 @@ public class Archive
 
 	public void saveTree(java.io.File to) throws IOException
 	{
+		load();
+
 		if (data != null)
 		{
 			assert files.size() == 1; // this is the maps
@@ -342,6 +714,7 @@ public class Archive
 		file.setNameHash(nameHash);
 
 		files.add(file);
+		invalidateFileLookup();
 
 		java.io.File archiveFile = new java.io.File(parent, this.getArchiveId() + ".rev");
 		int rev = Integer.parseInt(Files.readFirstLine(archiveFile, Charset.defaultCharset()));
@@ -369,6 +742,7 @@ public class Archive
 		file.setContents(contents);
 
 		files.add(file);
+		invalidateFileLookup();
 
 		java.io.File archiveFile = new java.io.File(parent, this.getArchiveId() + ".rev");
 		int rev = Integer.parseInt(Files.readFirstLine(archiveFile, Charset.defaultCharset()));
@@ -407,6 +781,7 @@ public class Archive
 
 		// the filesystem may order these differently (eg, 1, 10, 2)
 		Collections.sort(files, (f1, f2) -> Integer.compare(f1.getFileId(), f2.getFileId()));
+		invalidateFileLookup();
 	}
 
 	public void loadNames(InputStream stream, int numberOfFiles)
@@ -432,6 +807,11 @@ public class Archive
 	public void setNameHash(int nameHash)
 	{
 		this.nameHash = nameHash;
+		this.dirty = true;
+		if (index != null)
+		{
+			index.invalidateArchiveLookup();
+		}
 	}
 
 	public byte[] getWhirlpool()
@@ -462,6 +842,7 @@ public class Archive
 	public void setRevision(int revision)
 	{
 		this.revision = revision;
+		this.dirty = true;
 	}
 
 	public int getCompression()
@@ -472,6 +853,7 @@ public class Archive
 	public void setCompression(int compression)
 	{
 		this.compression = compression;
+		this.dirty = true;
 	}
 
 	public List<File> getFiles()
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package net.runelite.cache.fs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A size bounded, least recently used cache of decoded archives. When a
+ * store has an archive cache, its archives are read and decompressed on
+ * first access, and unloaded again when they are evicted from the cache.
+ */
+public class ArchiveCache
+{
+	private static class Entry
+	{
+		private final Archive archive;
+		private final long size;
+
+		private Entry(Archive archive, long size)
+		{
+			this.archive = archive;
+			this.size = size;
+		}
+	}
+
+	private final long maxSize;
+	private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxSize maximum total size, in bytes, of the decoded archives
+	 * held by the cache
+	 */
+	public ArchiveCache(long maxSize)
+	{
+		this.maxSize = maxSize;
+	}
+
+	private static long key(Archive archive)
+	{
+		return ((long) archive.getIndex().getId() << 32) | (archive.getArchiveId() & 0xFFFFFFFFL);
+	}
+
+	synchronized void hit(Archive archive)
+	{
+		++hits;
+		entries.get(key(archive)); // move to most recently used
+	}
+
+	/**
+	 * Add an archive which has just been loaded.
+	 *
+	 * @param archive
+	 * @param archiveSize decoded size of the archive
+	 * @return archives evicted to make room, which should be unloaded
+	 */
+	synchronized List<Archive> miss(Archive archive, long archiveSize)
+	{
+		++misses;
+		return put(archive, archiveSize);
+	}
+
+	/**
+	 * Update the size of an archive already in the cache, such as once an
+	 * archive held as raw data has been decoded.
+	 *
+	 * @param archive
+	 * @param archiveSize decoded size of the archive
+	 * @return archives evicted to make room, which should be unloaded
+	 */
+	synchronized List<Archive> resize(Archive archive, long archiveSize)
+	{
+		if (!entries.containsKey(key(archive)))
+		{
+			return Collections.emptyList();
+		}
+		return put(archive, archiveSize);
+	}
+
+	private List<Archive> put(Archive archive, long archiveSize)
+	{
+		Entry old = entries.put(key(archive), new Entry(archive, archiveSize));
+		if (old != null)
+		{
+			size -= old.size;
+		}
+		size += archiveSize;
+
+		if (size <= maxSize)
+		{
+			return Collections.emptyList();
+		}
+
+		List<Archive> evicted = new ArrayList<>();
+		Iterator<Entry> it = entries.values().iterator();
+		while (size > maxSize && it.hasNext())
+		{
+			Entry entry = it.next();
+			if (entry.archive == archive)
+			{
+				continue; // never evict the archive being loaded
+			}
+
+			it.remove();
+			size -= entry.size;
+			++evictions;
+
+			evicted.add(entry.archive);
+		}
+		return evicted;
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public synchronized long getSize()
+	{
+		return size;
+	}
+
+	public synchronized int getCount()
+	{
+		return entries.size();
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "ArchiveCache{" + "size=" + size + ", maxSize=" + maxSize + ", count=" + entries.size()
+			+ ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + '}';
+	}
+}
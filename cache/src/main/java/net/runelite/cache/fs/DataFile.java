@@ -31,11 +31,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import net.runelite.cache.util.BZip2;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
@@ -54,25 +54,79 @@ public class DataFile implements Closeable
 	
 	private final Store store;
 	private final File file;
-	private final RandomAccessFile dat;
+	private RandomAccessFile dat;
+	private volatile FileChannel channel;
 	private final byte[] readCachedBuffer = new byte[SECTOR_SIZE];
+
+	private volatile boolean memoryMapped;
+	private volatile MappedByteBuffer mappedBuffer;
+
+	// mapped readers hold the read lock, so the file is never truncated or
+	// closed while they may still be reading the mapping. always taken
+	// before the monitor.
+	private final ReadWriteLock truncation = new ReentrantReadWriteLock();
 	
 	public DataFile(Store store, File file) throws FileNotFoundException
 	{
 		this.file = file;
 		this.store = store;
 		dat = new RandomAccessFile(file, "rw");
+		channel = dat.getChannel();
 	}
 	
 	@Override
 	public void close() throws IOException
 	{
-		dat.close();
+		truncation.writeLock().lock();
+		try
+		{
+			mappedBuffer = null;
+			dat.close();
+		}
+		finally
+		{
+			truncation.writeLock().unlock();
+		}
 	}
 	
 	public void clear() throws IOException
 	{
-		dat.setLength(0L);
+		truncation.writeLock().lock();
+		try
+		{
+			synchronized (this)
+			{
+				mappedBuffer = null;
+				dat.setLength(0L);
+			}
+		}
+		finally
+		{
+			truncation.writeLock().unlock();
+		}
+	}
+
+	public boolean isMemoryMapped()
+	{
+		return memoryMapped;
+	}
+
+	/**
+	 * Enables or disables the lock-free read path. When enabled, reads
+	 * walk the sector chain through a read-only mapping of the data file
+	 * (or positional channel reads if the file is too large to map),
+	 * so many threads may read archives at once. Mapped readers only
+	 * share a read lock, which truncating or closing the file waits on.
+	 *
+	 * @param memoryMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped)
+	{
+		this.memoryMapped = memoryMapped;
+		if (!memoryMapped)
+		{
+			mappedBuffer = null;
+		}
 	}
 
 	/**
@@ -84,7 +138,25 @@ public class DataFile implements Closeable
 	 * @return
 	 * @throws IOException 
 	 */
-	public synchronized byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
+	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		if (memoryMapped)
+		{
+			truncation.readLock().lock();
+			try
+			{
+				return readMapped(indexId, archiveId, sector, size);
+			}
+			finally
+			{
+				truncation.readLock().unlock();
+			}
+		}
+
+		return readLocked(indexId, archiveId, sector, size);
+	}
+
+	private synchronized byte[] readLocked(int indexId, int archiveId, int sector, int size) throws IOException
 	{
 		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
 		{
@@ -177,17 +249,229 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 	
-	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int revision) throws IOException
+	private byte[] readMapped(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		ByteBuffer map = getMapping((long) SECTOR_SIZE * sector);
+		long length = map != null ? map.capacity() : channel.size();
+
+		if (sector <= 0L || length / SECTOR_SIZE < (long) sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", length, sector);
+			return null;
+		}
+
+		byte[] buffer = new byte[size];
+		byte[] header = new byte[10];
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			long position = (long) SECTOR_SIZE * sector;
+
+			int dataBlockSize = size - readBytesCount;
+			int headerSize = archiveId > 0xFFFF ? 10 : 8;
+			if (dataBlockSize > SECTOR_SIZE - headerSize)
+			{
+				dataBlockSize = SECTOR_SIZE - headerSize;
+			}
+
+			long end = position + headerSize + dataBlockSize;
+			if (end > length)
+			{
+				// the file may have grown since it was mapped
+				map = getMapping(end);
+				length = map != null ? map.capacity() : channel.size();
+
+				if (end > length)
+				{
+					logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+					return null;
+				}
+			}
+
+			readFully(map, position, header, 0, headerSize);
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (headerSize == 10)
+			{
+				currentArchive = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+				currentPart = ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+				nextSector = ((header[6] & 0xFF) << 16) | ((header[7] & 0xFF) << 8) | (header[8] & 0xFF);
+				currentIndex = header[9] & 0xFF;
+			}
+			else
+			{
+				currentArchive = ((header[0] & 0xFF) << 8) | (header[1] & 0xFF);
+				currentPart = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+				nextSector = ((header[4] & 0xFF) << 16) | ((header[5] & 0xFF) << 8) | (header[6] & 0xFF);
+				currentIndex = header[7] & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (length / SECTOR_SIZE < (long) nextSector)
+			{
+				map = getMapping((long) SECTOR_SIZE * nextSector);
+				length = map != null ? map.capacity() : channel.size();
+
+				if (length / SECTOR_SIZE < (long) nextSector)
+				{
+					logger.warn("Invalid next sector");
+					return null;
+				}
+			}
+
+			readFully(map, position + headerSize, buffer, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Get a read-only mapping of the data file which covers the given
+	 * offset, remapping if the file has grown since it was last mapped.
+	 *
+	 * @param end offset which must be covered by the mapping, if the file
+	 * is large enough
+	 * @return the mapping, or null if the file is too large to be mapped
+	 * @throws IOException
+	 */
+	private ByteBuffer getMapping(long end) throws IOException
+	{
+		MappedByteBuffer map = mappedBuffer;
+		if (map != null && map.capacity() >= end)
+		{
+			return map;
+		}
+
+		synchronized (this)
+		{
+			map = mappedBuffer;
+			if (map != null && map.capacity() >= end)
+			{
+				return map;
+			}
+
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE)
+			{
+				return null;
+			}
+
+			if (map == null || length > map.capacity())
+			{
+				map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+				mappedBuffer = map;
+			}
+			return map;
+		}
+	}
+
+	private void readFully(ByteBuffer map, long position, byte[] dest, int offset, int length) throws IOException
+	{
+		if (map != null)
+		{
+			// duplicate so each reader has its own position
+			ByteBuffer buf = map.duplicate();
+			buf.position((int) position);
+			buf.get(dest, offset, length);
+			return;
+		}
+
+		ByteBuffer buf = ByteBuffer.wrap(dest, offset, length);
+		while (buf.hasRemaining())
+		{
+			if (channel.read(buf, position + buf.position() - offset) < 0)
+			{
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+	
+	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int revision) throws IOException
+	{
+		return write(indexId, archiveId, compressedData, revision, 0);
+	}
+
+	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int revision, int previousSector) throws IOException
+	{
+		return write(indexId, archiveId, compressedData, revision, previousSector, true);
+	}
+
+	/**
+	 * Write archive data, overwriting the archive's existing sector chain
+	 * where possible. Once the existing chain runs out, the remaining
+	 * data is appended to the end of the file.
+	 *
+	 * @param indexId
+	 * @param archiveId
+	 * @param compressedData
+	 * @param revision
+	 * @param previousSector first sector of the archive's existing chain,
+	 * or 0 to append
+	 * @param whirlpool whether to compute the whirlpool of the data
+	 * @return
+	 * @throws IOException
+	 */
+	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int revision, int previousSector, boolean whirlpool) throws IOException
+	{
+		DataFileWriteResult res = new DataFileWriteResult();
+		res.sector = writeSectors(indexId, archiveId, compressedData, previousSector);
+		res.compressedLength = compressedData.length;
+
+		// hashed outside of the lock
+		int length = revision != -1 ? compressedData.length - 2 : compressedData.length;
+		Crc32 crc32 = new Crc32();
+		crc32.update(compressedData, 0, length);
+		res.crc = crc32.getHash();
+
+		if (whirlpool)
+		{
+			res.whirlpool = Whirlpool.getHash(compressedData, length);
+		}
+		return res;
+	}
+
+	private synchronized int writeSectors(int indexId, int archiveId, byte[] compressedData, int previousSector) throws IOException
 	{
 		int sector;
 		int startSector;
 
 		ByteBuffer data = ByteBuffer.wrap(compressedData);
-		
-		sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-		if (sector == 0)
+
+		// next sector of the existing chain, or -1 if not overwriting it
+		int existingNext = previousSector > 0 ? readNextSector(indexId, archiveId, 0, previousSector) : -1;
+
+		if (existingNext != -1)
+		{
+			sector = previousSector;
+		}
+		else
 		{
-			sector = 1;
+			sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+			if (sector == 0)
+			{
+				sector = 1;
+			}
 		}
 		startSector = sector;
 
@@ -196,6 +480,16 @@ public class DataFile implements Closeable
 			int nextSector = 0;
 			int dataToWrite;
 
+			if (existingNext > 0)
+			{
+				int following = readNextSector(indexId, archiveId, part + 1, existingNext);
+				if (following != -1)
+				{
+					nextSector = existingNext;
+				}
+				existingNext = following;
+			}
+
 			if (nextSector == 0)
 			{
 				nextSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
@@ -267,20 +561,99 @@ public class DataFile implements Closeable
 			sector = nextSector;
 		}
 		
-		DataFileWriteResult res = new DataFileWriteResult();
-		res.sector = startSector;
-		res.compressedLength = compressedData.length;
+		return startSector;
+	}
+	
+	/**
+	 * Read the header of a sector of an archive's chain.
+	 *
+	 * @param indexId
+	 * @param archiveId
+	 * @param part expected part of the archive stored in the sector
+	 * @param sector
+	 * @return the next sector of the chain, 0 if this is the last
+	 * sector, or -1 if the sector does not hold the expected part
+	 * @throws IOException
+	 */
+	private int readNextSector(int indexId, int archiveId, int part, int sector) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		if ((long) SECTOR_SIZE * sector + headerSize > dat.length())
+		{
+			return -1;
+		}
 
-		int length = revision != -1 ? compressedData.length - 2 : compressedData.length;
-		Crc32 crc32 = new Crc32();
-		crc32.update(compressedData, 0, length);
-		res.crc = crc32.getHash();
+		dat.seek((long) SECTOR_SIZE * sector);
+		dat.readFully(readCachedBuffer, 0, headerSize);
 
-		res.whirlpool = Whirlpool.getHash(compressedData, length);
-		return res;
+		int currentArchive;
+		int currentPart;
+		int nextSector;
+		int currentIndex;
+		if (headerSize == 10)
+		{
+			currentArchive = ((readCachedBuffer[0] & 0xFF) << 24) | ((readCachedBuffer[1] & 0xFF) << 16) | ((readCachedBuffer[2] & 0xFF) << 8) | (readCachedBuffer[3] & 0xFF);
+			currentPart = ((readCachedBuffer[4] & 0xFF) << 8) | (readCachedBuffer[5] & 0xFF);
+			nextSector = ((readCachedBuffer[6] & 0xFF) << 16) | ((readCachedBuffer[7] & 0xFF) << 8) | (readCachedBuffer[8] & 0xFF);
+			currentIndex = readCachedBuffer[9] & 0xFF;
+		}
+		else
+		{
+			currentArchive = ((readCachedBuffer[0] & 0xFF) << 8) | (readCachedBuffer[1] & 0xFF);
+			currentPart = ((readCachedBuffer[2] & 0xFF) << 8) | (readCachedBuffer[3] & 0xFF);
+			nextSector = ((readCachedBuffer[4] & 0xFF) << 16) | ((readCachedBuffer[5] & 0xFF) << 8) | (readCachedBuffer[6] & 0xFF);
+			currentIndex = readCachedBuffer[7] & 0xFF;
+		}
+
+		if (currentArchive != archiveId || currentPart != (part & 0xFFFF) || currentIndex != indexId)
+		{
+			return -1;
+		}
+
+		return nextSector;
 	}
-	
+
+	/**
+	 * Close and reopen the data file, picking up a file which has been
+	 * moved into its place.
+	 *
+	 * @throws IOException
+	 */
+	void reopen() throws IOException
+	{
+		truncation.writeLock().lock();
+		try
+		{
+			synchronized (this)
+			{
+				mappedBuffer = null;
+				dat.close();
+				dat = new RandomAccessFile(file, "rw");
+				channel = dat.getChannel();
+			}
+		}
+		finally
+		{
+			truncation.writeLock().unlock();
+		}
+	}
+
 	public static DataFileReadResult decompress(byte[] b, int[] keys) throws IOException
+	{
+		return decompress(b, keys, true);
+	}
+
+	/**
+	 * Decrypt and decompress archive data.
+	 *
+	 * @param b
+	 * @param keys xtea keys, or null
+	 * @param whirlpool whether to compute the whirlpool of the data, which
+	 * is only needed if it is going to be verified
+	 * @return
+	 * @throws IOException
+	 */
+	public static DataFileReadResult decompress(byte[] b, int[] keys, boolean whirlpool) throws IOException
 	{
 		InputStream stream = new InputStream(b);
 		
@@ -315,58 +688,44 @@ public class DataFile implements Closeable
 				break;
 			}
 			case CompressionType.BZ2:
+			case CompressionType.GZ:
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				// decompressed length + compressed data
+				int length = compressedLength + 4;
+				if (b.length < 5 + length)
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					throw new IOException("Truncated data, expected " + length + " bytes");
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
+				crc32.update(b, 5, length);
 
-				if (data == null)
+				// decompress straight out of b unless it has to be decrypted first
+				byte[] decryptedData = b;
+				int offset = 5;
+				if (keys != null)
 				{
-					return null;
+					decryptedData = decrypt(Arrays.copyOfRange(b, 5, 5 + length), length, keys);
+					offset = 0;
 				}
 
-				assert data.length == decompressedLength;
-				
-				break;
-			}
-			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
+				stream.setOffset(5 + length);
 				if (stream.remaining() >= 2)
 				{
 					revision = stream.readUnsignedShort();
 					assert revision != -1;
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
+				InputStream decrypted = new InputStream(decryptedData);
+				decrypted.setOffset(offset);
+				int decompressedLength = decrypted.readInt();
+				if (decompressedLength < 0)
 				{
-					return null;
+					throw new IOException("Invalid decompressed length " + decompressedLength);
 				}
 
-				assert data.length == decompressedLength;
+				data = compression == CompressionType.BZ2
+					? BZip2.decompress(decryptedData, offset + 4, compressedLength, decompressedLength)
+					: GZip.decompress(decryptedData, offset + 4, compressedLength, decompressedLength);
 				
 				break;
 			}
@@ -379,7 +738,10 @@ public class DataFile implements Closeable
 		res.revision = revision;
 		res.crc = crc32.getHash();
 		int length = revision != -1 ? b.length - 2 : b.length;
-		res.whirlpool = Whirlpool.getHash(b, length);
+		if (whirlpool)
+		{
+			res.whirlpool = Whirlpool.getHash(b, length);
+		}
 		res.compression = compression;
 		return res;
 	}
@@ -421,21 +783,17 @@ public class DataFile implements Closeable
 		return stream.flip();
 	}
 
+	/**
+	 * Decrypt data in place.
+	 */
 	private static byte[] decrypt(byte[] data, int length, int[] keys)
 	{
 		if (keys == null)
 			return data;
 
-		try
-		{
-			Xtea xtea = new Xtea(keys);
-			return xtea.decrypt(data, length);
-		}
-		catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException | BadPaddingException ex)
-		{
-			logger.warn("unable to xtea decrypt", ex);
-			return null;
-		}
+		Xtea xtea = new Xtea(keys);
+		xtea.decrypt(data, 0, length);
+		return data;
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
@@ -443,15 +801,7 @@ public class DataFile implements Closeable
 		if (keys == null)
 			return data;
 
-		try
-		{
-			Xtea xtea = new Xtea(keys);
-			return xtea.encrypt(data, length);
-		}
-		catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException | BadPaddingException ex)
-		{
-			logger.warn("unable to xtea encrypt", ex);
-			return null;
-		}
+		Xtea xtea = new Xtea(keys);
+		return xtea.encrypt(data, length);
 	}
 }
@@ -46,7 +46,7 @@ public class File
 		int hash = 7;
 		hash = 97 * hash + this.fileId;
 		hash = 97 * hash + this.nameHash;
-		hash = 97 * hash + Arrays.hashCode(this.contents);
+		hash = 97 * hash + Arrays.hashCode(this.getContents());
 		return hash;
 	}
 
@@ -70,7 +70,7 @@ public class File
 		{
 			return false;
 		}
-		if (!Arrays.equals(this.contents, other.contents))
+		if (!Arrays.equals(this.getContents(), other.getContents()))
 		{
 			return false;
 		}
@@ -95,20 +95,58 @@ public class File
 	public void setNameHash(int nameHash)
 	{
 		this.nameHash = nameHash;
+		if (archive != null)
+		{
+			archive.invalidateFileLookup();
+			archive.setDirty(true);
+		}
 	}
 
 	public byte[] getContents()
 	{
+		if (archive != null && archive.isLazy())
+		{
+			return archive.getFileContents(this);
+		}
 		return contents;
 	}
 
 	public void setContents(byte[] contents)
+	{
+		if (archive != null)
+		{
+			if (archive.isLazy())
+			{
+				archive.prepareWrite();
+			}
+			archive.setDirty(true);
+		}
+		this.contents = contents;
+	}
+
+	/**
+	 * Set the contents as decoded from the data file, which does not
+	 * change the archive.
+	 *
+	 * @param contents
+	 */
+	void loadContents(byte[] contents)
 	{
 		this.contents = contents;
 	}
-	
+
+	byte[] getLoadedContents()
+	{
+		return contents;
+	}
+
+	void unload()
+	{
+		contents = null;
+	}
+
 	public int getSize()
 	{
-		return contents.length;
+		return getContents().length;
 	}
 }
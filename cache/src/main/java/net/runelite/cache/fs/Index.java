@@ -24,20 +24,27 @@
  */
 package net.runelite.cache.fs;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.io.Files;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import net.runelite.cache.util.Djb2;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
 import net.runelite.cache.util.Crc32;
+import net.runelite.cache.util.IntHashMap;
 import net.runelite.cache.util.Whirlpool;
 import net.runelite.cache.util.XteaKeyManager;
 import org.slf4j.Logger;
@@ -60,8 +67,14 @@ public class Index implements Closeable
 	private byte[] whirlpool;
 	private int compression; // compression method of this index's data in 255
 
+	private boolean dirty = true; // reference table needs to be written on the next save
+
 	private final List<Archive> archives = new ArrayList<>();
 
+	// lookup tables, built on demand and discarded whenever the archives change
+	private volatile IntHashMap<Archive> archivesById;
+	private volatile IntHashMap<Archive> archivesByName;
+
 	public Index(Store store, IndexFile index, int id)
 	{
 		this.store = store;
@@ -117,6 +130,11 @@ public class Index implements Closeable
 		return true;
 	}
 
+	public Store getStore()
+	{
+		return store;
+	}
+
 	public XteaKeyManager getXteaManager()
 	{
 		return xteaManager;
@@ -162,6 +180,35 @@ public class Index implements Closeable
 		return index;
 	}
 
+	/**
+	 * Whether the next save needs to write this index, either because
+	 * its reference table changed or because one of its archives did.
+	 *
+	 * @return
+	 */
+	public boolean isDirty()
+	{
+		if (dirty)
+		{
+			return true;
+		}
+
+		for (Archive a : archives)
+		{
+			if (a.isDirty())
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public void setDirty(boolean dirty)
+	{
+		this.dirty = dirty;
+	}
+
 	public List<Archive> getArchives()
 	{
 		return archives;
@@ -171,32 +218,62 @@ public class Index implements Closeable
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+		invalidateArchiveLookup();
+		dirty = true;
 		return archive;
 	}
 
 	public Archive getArchive(int id)
 	{
-		for (Archive a : archives)
+		IntHashMap<Archive> byId = archivesById;
+		if (byId == null)
 		{
-			if (a.getArchiveId() == id)
-			{
-				return a;
-			}
+			buildArchiveLookup();
+			byId = archivesById;
 		}
-		return null;
+		return byId.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
-		int hash = Djb2.hash(name);
+		return findArchiveByNameHash(Djb2.hash(name));
+	}
+
+	public Archive findArchiveByNameHash(int hash)
+	{
+		IntHashMap<Archive> byName = archivesByName;
+		if (byName == null)
+		{
+			buildArchiveLookup();
+			byName = archivesByName;
+		}
+		return byName.get(hash);
+	}
+
+	/**
+	 * Discard the archive lookup tables. This must be called whenever
+	 * an archive is added or removed, or an archive name changes.
+	 */
+	void invalidateArchiveLookup()
+	{
+		archivesById = null;
+		archivesByName = null;
+	}
+
+	private void buildArchiveLookup()
+	{
+		IntHashMap<Archive> byId = new IntHashMap<>(archives.size());
+		IntHashMap<Archive> byName = new IntHashMap<>(archives.size());
+
 		for (Archive a : archives)
 		{
-			if (a.getNameHash() == hash)
-			{
-				return a;
-			}
+			// the first archive wins, matching a linear search
+			byId.putIfAbsent(a.getArchiveId(), a);
+			byName.putIfAbsent(a.getNameHash(), a);
 		}
-		return null;
+
+		archivesByName = byName;
+		archivesById = byId;
 	}
 
 	public void rebuildCrc() throws IOException
@@ -225,10 +302,12 @@ public class Index implements Closeable
 			crc32.update(compressedData, 0, length);
 
 			int crc = crc32.getHash();
-			byte[] whirlpool = Whirlpool.getHash(compressedData, length);
-
 			a.setCrc(crc);
-			a.setWhirlpool(whirlpool);
+
+			if (usesWhirpool)
+			{
+				a.setWhirlpool(Whirlpool.getHash(compressedData, length));
+			}
 		}
 
 		Crc32 crc = new Crc32();
@@ -246,9 +325,24 @@ public class Index implements Closeable
 	}
 
 	public void load() throws IOException
+	{
+		load(null);
+	}
+
+	/**
+	 * Load the index and its archives. If a pool is given, archives are
+	 * read, decompressed and loaded in parallel on it.
+	 *
+	 * @param pool pool to load archives on, or null to load them on the
+	 * calling thread
+	 * @throws IOException
+	 */
+	public void load(ForkJoinPool pool) throws IOException
 	{
 		logger.trace("Loading index {}", id);
 
+		Stopwatch stopwatch = Stopwatch.createStarted();
+
 		DataFile dataFile = store.getData();
 		IndexFile index255 = store.getIndex255();
 
@@ -258,6 +352,7 @@ public class Index implements Closeable
 		byte[] data = res.data;
 
 		archives.clear();
+		invalidateArchiveLookup();
 
 		readIndexData(data);
 
@@ -266,11 +361,34 @@ public class Index implements Closeable
 		this.compression = res.compression;
 		assert res.revision == -1;
 
-		this.loadArchives();
+		dirty = false;
+
+		if (pool != null)
+		{
+			this.loadArchives(pool);
+		}
+		else
+		{
+			this.loadArchives();
+		}
+
+		logger.debug("Loaded index {} ({} archives) in {}", id, archives.size(), stopwatch);
 	}
 
+	/**
+	 * Write the archives which have changed since they were loaded or
+	 * last saved, and the reference table if anything changed.
+	 *
+	 * @throws IOException
+	 */
 	public void save() throws IOException
 	{
+		if (!isDirty())
+		{
+			logger.trace("Index {} is unchanged, not saving", id);
+			return;
+		}
+
 		// This updates archive CRCs for writeIndexData
 		saveArchives();
 
@@ -279,13 +397,16 @@ public class Index implements Closeable
 		DataFile dataFile = store.getData();
 		IndexFile index255 = store.getIndex255();
 
+		IndexEntry previous = index255.read(id);
+
 		byte[] compressedData = DataFile.compress(data, this.compression, -1, null); // index data revision is always -1
-		DataFileWriteResult res = dataFile.write(index255.getIndexFileId(), this.id, compressedData, revision);
+		DataFileWriteResult res = dataFile.write(index255.getIndexFileId(), this.id, compressedData, revision, previous != null ? previous.getSector() : 0);
 
 		index255.write(new IndexEntry(index255, id, res.sector, res.compressedLength));
 
 		this.crc = res.crc;
 		this.whirlpool = res.whirlpool;
+		this.dirty = false;
 	}
 
 	public void saveTree(java.io.File to) throws IOException
@@ -342,6 +463,7 @@ public class Index implements Closeable
 		revision = Integer.parseInt(str);
 
 		Collections.sort(archives, (ar1, ar2) -> Integer.compare(ar1.getArchiveId(), ar2.getArchiveId()));
+		invalidateArchiveLookup();
 	}
 
 	public void readIndexData(byte[] data)
@@ -433,45 +555,130 @@ public class Index implements Closeable
 				}
 			}
 		}
+
+		invalidateArchiveLookup();
+		dirty = true;
 	}
 
 	private void loadArchives() throws IOException
 	{
-		// get data from index file
 		for (Archive a : new ArrayList<>(archives))
 		{
-			IndexEntry entry = this.index.read(a.getArchiveId());
-			if (entry == null)
+			if (!loadArchive(a))
 			{
-				logger.debug("can't read archive " + a.getArchiveId() + " from index " + this.id);
-				archives.remove(a); // is this the correct behavior?
-				continue;
+				removeArchive(a);
 			}
+		}
+	}
 
-			assert this.index.getIndexFileId() == this.id;
-			assert entry.getId() == a.getArchiveId();
-
-			logger.trace("Loading archive {} for index {} from sector {} length {}", a.getArchiveId(), id, entry.getSector(), entry.getLength());
+	private void loadArchives(ForkJoinPool pool) throws IOException
+	{
+		List<Archive> toLoad = new ArrayList<>(archives);
+		boolean[] loaded = new boolean[toLoad.size()];
 
-			byte[] archiveData = store.getData().read(this.id, entry.getId(), entry.getSector(), entry.getLength());
-			a.setData(archiveData);
+		try
+		{
+			pool.submit(() -> IntStream.range(0, toLoad.size()).parallel().forEach(i ->
+			{
+				try
+				{
+					loaded[i] = loadArchive(toLoad.get(i));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			})).get();
+		}
+		catch (InterruptedException ex)
+		{
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			throw new IOException(cause);
+		}
 
-			if (this.xteaManager != null)
+		// remove in order afterwards so the archive list is the same as a sequential load
+		for (int i = 0; i < loaded.length; ++i)
+		{
+			if (!loaded[i])
 			{
-				continue; // can't decrypt this yet
+				removeArchive(toLoad.get(i));
 			}
+		}
+	}
+
+	/**
+	 * Read an archive from the data file and load its contents. If the
+	 * store has an archive cache, this is deferred until the contents are
+	 * first accessed.
+	 *
+	 * @param a
+	 * @return false if the archive is not in the index file
+	 * @throws IOException
+	 */
+	private boolean loadArchive(Archive a) throws IOException
+	{
+		// get data from index file
+		IndexEntry entry = this.index.read(a.getArchiveId());
+		if (entry == null)
+		{
+			logger.debug("can't read archive " + a.getArchiveId() + " from index " + this.id);
+			return false;
+		}
+
+		assert this.index.getIndexFileId() == this.id;
+		assert entry.getId() == a.getArchiveId();
+
+		if (store.getArchiveCache() != null)
+		{
+			// read on demand
+			a.setLazy();
+			a.setDirty(false);
+			return true;
+		}
+
+		logger.trace("Loading archive {} for index {} from sector {} length {}", a.getArchiveId(), id, entry.getSector(), entry.getLength());
 
+		byte[] archiveData = store.getData().read(this.id, entry.getId(), entry.getSector(), entry.getLength());
+		a.setData(archiveData);
+
+		if (this.xteaManager == null) // else can't decrypt this yet
+		{
 			a.decompressAndLoad(null);
 		}
+
+		a.setDirty(false); // matches what is on disk
+		return true;
+	}
+
+	private void removeArchive(Archive a)
+	{
+		archives.remove(a); // is this the correct behavior?
+		invalidateArchiveLookup();
+		dirty = true;
 	}
 
 	public void saveArchives() throws IOException
 	{
 		for (Archive a : archives)
 		{
+			if (!a.isDirty())
+			{
+				continue;
+			}
+
 			assert this.index.getIndexFileId() == this.id;
 			DataFile data = store.getData();
 
+			a.load(); // a lazy archive has neither its data nor its contents yet
+
 			int rev; // used for determining what part of compressedData to crc
 			byte[] compressedData;
 
@@ -487,13 +694,17 @@ public class Index implements Closeable
 				compressedData = DataFile.compress(fileData, a.getCompression(), a.getRevision(), null);
 			}
 
-			DataFileWriteResult res = data.write(this.id, a.getArchiveId(), compressedData, rev);
+			// overwrite the archive's existing sectors if it has any
+			IndexEntry previous = this.index.read(a.getArchiveId());
+
+			DataFileWriteResult res = data.write(this.id, a.getArchiveId(), compressedData, rev, previous != null ? previous.getSector() : 0, usesWhirpool);
 			this.index.write(new IndexEntry(this.index, a.getArchiveId(), res.sector, res.compressedLength));
 
 			logger.trace("Saved archive {}/{} at sector {}, compressed length {}", this.getId(), a.getArchiveId(), res.sector, res.compressedLength);
 
 			a.setCrc(res.crc);
 			a.setWhirlpool(res.whirlpool);
+			a.setDirty(false);
 		}
 	}
 
@@ -42,7 +42,7 @@ public class IndexFile implements Closeable
 	private final Store store;
 	private final int indexFileId;
 	private final File file;
-	private final RandomAccessFile idx;
+	private RandomAccessFile idx;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
 	
 	public IndexFile(Store store, int indexFileId, File file) throws FileNotFoundException
@@ -64,6 +64,23 @@ public class IndexFile implements Closeable
 		idx.setLength(0L);
 	}
 
+	/**
+	 * Close and reopen the index file, picking up a file which has been
+	 * moved into its place.
+	 *
+	 * @throws IOException
+	 */
+	synchronized void reopen() throws IOException
+	{
+		idx.close();
+		idx = new RandomAccessFile(file, "rw");
+	}
+
+	File getFile()
+	{
+		return file;
+	}
+
 	@Override
 	public int hashCode()
 	{
@@ -24,14 +24,25 @@
  */
 package net.runelite.cache.fs;
 
+import com.google.common.base.Stopwatch;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.util.XteaKeyManager;
 import org.slf4j.Logger;
@@ -43,16 +54,21 @@ public class Store implements Closeable
 
 	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	private static final String COMPACT_MARKER = "main_file_cache.compact";
 
 	private final File folder;
 	private final DataFile data;
 	private final IndexFile index255;
 	private final List<Index> indexes = new ArrayList<>();
 
+	private ArchiveCache archiveCache; // if set, archives are loaded lazily
+
 	public Store(File folder) throws IOException
 	{
 		this.folder = folder;
 
+		recoverCompaction(folder);
+
 		data = new DataFile(this, new File(folder, MAIN_FILE_CACHE_DAT));
 		index255 = new IndexFile(this, 255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
 
@@ -150,23 +166,310 @@ public class Store implements Closeable
 		}
 	}
 
-	public void save() throws IOException
+	/**
+	 * Load the store in parallel. Each index is loaded as a task on the
+	 * pool, and archives within an index are decompressed and loaded in
+	 * parallel. The resulting indexes and archives are in the same order
+	 * as with a sequential load.
+	 *
+	 * @param pool
+	 * @throws IOException
+	 */
+	public void load(ForkJoinPool pool) throws IOException
 	{
-		logger.debug("Clearing data and indexes in preparation for store save");
+		Stopwatch stopwatch = Stopwatch.createStarted();
 
-		data.clear();
+		// the tasks read the data file concurrently
+		boolean memoryMapped = data.isMemoryMapped();
+		data.setMemoryMapped(true);
+		try
+		{
+			loadIndexes(pool);
+		}
+		finally
+		{
+			data.setMemoryMapped(memoryMapped);
+		}
 
+		logger.info("Loaded {} indexes in {}", indexes.size(), stopwatch);
+	}
+
+	private void loadIndexes(ForkJoinPool pool) throws IOException
+	{
+
+		List<ForkJoinTask<Void>> tasks = new ArrayList<>(indexes.size());
 		for (Index i : indexes)
 		{
-			i.clear();
+			tasks.add(pool.submit(() ->
+			{
+				i.load(pool);
+				return null;
+			}));
+		}
+
+		for (ForkJoinTask<Void> task : tasks)
+		{
+			try
+			{
+				task.get();
+			}
+			catch (InterruptedException ex)
+			{
+				throw new InterruptedIOException();
+			}
+			catch (ExecutionException ex)
+			{
+				Throwable cause = ex.getCause();
+				if (cause instanceof IOException)
+				{
+					throw (IOException) cause;
+				}
+				throw new IOException(cause);
+			}
 		}
+	}
+
+	public boolean isMemoryMapped()
+	{
+		return data.isMemoryMapped();
+	}
+
+	/**
+	 * Enable or disable reading the data file through a memory mapping,
+	 * which lets many threads read archives at once rather than taking
+	 * turns. Stores read by concurrent consumers, such as a cache server,
+	 * should enable it.
+	 *
+	 * @param memoryMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped)
+	{
+		data.setMemoryMapped(memoryMapped);
+	}
 
+	/**
+	 * Write the archives and indexes which have changed since they were
+	 * loaded or last saved. Sectors which are no longer used are left in
+	 * the data file until it is compacted.
+	 *
+	 * @throws IOException
+	 */
+	public void save() throws IOException
+	{
 		for (Index i : indexes)
 		{
 			i.save();
 		}
 	}
 
+	/**
+	 * Rewrite the data file with only the sectors which are referenced by
+	 * the indexes, reclaiming the space left behind by saves. The store
+	 * must not be used by other threads while it is compacted.
+	 * <p>
+	 * The compacted data and index files are written beside the originals
+	 * and synced, then a commit marker is written before they are moved
+	 * over the originals. If the process dies before the marker is written
+	 * the originals are untouched, and if it dies after, the moves are
+	 * finished the next time the store is opened.
+	 *
+	 * @throws IOException
+	 */
+	public void compact() throws IOException
+	{
+		File datFile = new File(folder, MAIN_FILE_CACHE_DAT);
+		File datTmp = tmp(datFile);
+		Map<IndexFile, List<IndexEntry>> entries = new LinkedHashMap<>();
+		List<File> written = new ArrayList<>();
+
+		try
+		{
+			written.add(datTmp);
+
+			try (DataFile compacted = new DataFile(this, datTmp))
+			{
+				compacted.clear();
+
+				for (Index index : indexes)
+				{
+					IndexFile indexFile = index.getIndex();
+					IndexEntry entry = index255.read(index.getId());
+					if (entry == null)
+					{
+						continue;
+					}
+
+					byte[] indexData = data.read(index255.getIndexFileId(), index.getId(), entry.getSector(), entry.getLength());
+					if (indexData == null)
+					{
+						throw new IOException("unable to read reference table for index " + index.getId() + ", not compacting");
+					}
+
+					// parse the reference table on disk to find the archives in use
+					Index reference = new Index(this, indexFile, index.getId());
+					reference.readIndexData(DataFile.decompress(indexData, null).data);
+
+					List<IndexEntry> indexEntries = new ArrayList<>();
+
+					for (Archive archive : reference.getArchives())
+					{
+						IndexEntry archiveEntry = indexFile.read(archive.getArchiveId());
+						if (archiveEntry == null)
+						{
+							continue;
+						}
+
+						byte[] archiveData = data.read(index.getId(), archive.getArchiveId(), archiveEntry.getSector(), archiveEntry.getLength());
+						if (archiveData == null)
+						{
+							throw new IOException("unable to read archive " + index.getId() + "/" + archive.getArchiveId() + ", not compacting");
+						}
+
+						DataFileWriteResult res = compacted.write(index.getId(), archive.getArchiveId(), archiveData, -1);
+						indexEntries.add(new IndexEntry(indexFile, archive.getArchiveId(), res.sector, res.compressedLength));
+					}
+
+					DataFileWriteResult res = compacted.write(index255.getIndexFileId(), index.getId(), indexData, -1);
+					entries.computeIfAbsent(index255, k -> new ArrayList<>())
+						.add(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
+					entries.put(indexFile, indexEntries);
+				}
+			}
+
+			sync(datTmp);
+
+			for (Map.Entry<IndexFile, List<IndexEntry>> e : entries.entrySet())
+			{
+				File idxTmp = tmp(e.getKey().getFile());
+				written.add(idxTmp);
+
+				try (IndexFile indexFile = new IndexFile(this, e.getKey().getIndexFileId(), idxTmp))
+				{
+					indexFile.clear();
+
+					for (IndexEntry indexEntry : e.getValue())
+					{
+						indexFile.write(new IndexEntry(indexFile, indexEntry.getId(), indexEntry.getSector(), indexEntry.getLength()));
+					}
+				}
+
+				sync(idxTmp);
+			}
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			for (File tmp : written)
+			{
+				tmp.delete();
+			}
+			throw ex;
+		}
+
+		long oldLength = datFile.length();
+
+		// from here the compacted files replace the originals, even if we die
+		File marker = new File(folder, COMPACT_MARKER);
+		Files.write(marker.toPath(), new byte[0]);
+		sync(marker);
+		syncDirectory(folder);
+
+		// the files are closed while they are replaced, which some platforms require
+		data.close();
+		for (IndexFile indexFile : entries.keySet())
+		{
+			indexFile.close();
+		}
+
+		try
+		{
+			finishCompaction(folder);
+		}
+		finally
+		{
+			data.reopen();
+			for (IndexFile indexFile : entries.keySet())
+			{
+				indexFile.reopen();
+			}
+		}
+
+		logger.info("Compacted data file from {} to {} bytes", oldLength, datFile.length());
+	}
+
+	/**
+	 * Finish or roll back a compaction which was interrupted, depending on
+	 * whether it had committed.
+	 */
+	private static void recoverCompaction(File folder) throws IOException
+	{
+		if (new File(folder, COMPACT_MARKER).exists())
+		{
+			logger.info("Finishing interrupted compaction of {}", folder);
+			finishCompaction(folder);
+			return;
+		}
+
+		File[] tmps = folder.listFiles((dir, name) -> name.startsWith("main_file_cache.") && name.endsWith(".tmp"));
+		if (tmps != null)
+		{
+			for (File tmp : tmps)
+			{
+				logger.info("Removing {} left by an interrupted compaction", tmp);
+				tmp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Move the compacted files over the originals and remove the commit
+	 * marker. Files already moved are skipped, so this may be repeated.
+	 */
+	private static void finishCompaction(File folder) throws IOException
+	{
+		File[] tmps = folder.listFiles((dir, name) -> name.startsWith("main_file_cache.") && name.endsWith(".tmp"));
+		if (tmps == null)
+		{
+			throw new IOException("unable to list " + folder);
+		}
+
+		for (File tmp : tmps)
+		{
+			String name = tmp.getName();
+			File target = new File(folder, name.substring(0, name.length() - 4));
+			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		syncDirectory(folder);
+
+		Files.delete(new File(folder, COMPACT_MARKER).toPath());
+		syncDirectory(folder);
+	}
+
+	private static File tmp(File file)
+	{
+		return new File(file.getPath() + ".tmp");
+	}
+
+	private static void sync(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+		{
+			channel.force(true);
+		}
+	}
+
+	private static void syncDirectory(File dir)
+	{
+		// makes renames durable; directories can't be opened on every platform
+		try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (IOException ex)
+		{
+			logger.debug("Unable to sync directory {}", dir, ex);
+		}
+	}
+
 	public void saveTree(java.io.File to) throws IOException
 	{
 		for (Index i : indexes)
@@ -194,6 +497,25 @@ public class Store implements Closeable
 		Collections.sort(indexes, (idx1, idx2) -> Integer.compare(idx1.getId(), idx2.getId()));
 	}
 
+	public ArchiveCache getArchiveCache()
+	{
+		return archiveCache;
+	}
+
+	/**
+	 * Set the cache of decoded archives. With an archive cache, loading
+	 * the store only reads the reference tables, and each archive is read
+	 * and decompressed the first time the contents of one of its files are
+	 * requested. This must be set before the store is loaded.
+	 *
+	 * @param archiveCache
+	 */
+	public void setArchiveCache(ArchiveCache archiveCache)
+	{
+		this.archiveCache = archiveCache;
+	}
+
+
 	public DataFile getData()
 	{
 		return data;
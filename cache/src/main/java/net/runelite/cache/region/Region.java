@@ -21,7 +21,8 @@
  */
 package net.runelite.cache.region;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import net.runelite.cache.io.InputStream;
 
@@ -41,14 +42,17 @@ public class Region
 	private final int baseX;
 	private final int baseY;
 
-	private final int[][][] tileHeights = new int[Z][X][Y];
-	private final byte[][][] renderRules = new byte[Z][X][Y];
-	private final byte[][][] overlayIds = new byte[Z][X][Y];
-	private final byte[][][] overlayPaths = new byte[Z][X][Y];
-	private final byte[][][] overlayRotations = new byte[Z][X][Y];
-	private final byte[][][] underlayIds = new byte[Z][X][Y];
+	// tile attributes, indexed by tile(z, x, y)
+	private final int[] tileHeights = new int[Z * X * Y];
+	private final byte[] renderRules = new byte[Z * X * Y];
+	private final byte[] overlayIds = new byte[Z * X * Y];
+	private final byte[] overlayPaths = new byte[Z * X * Y];
+	private final byte[] overlayRotations = new byte[Z * X * Y];
+	private final byte[] underlayIds = new byte[Z * X * Y];
 
-	private final List<Location> locations = new ArrayList<>();
+	// locations, packed as id << 32 | type << 16 | orientation << 14 | tile
+	private long[] locations = new long[0];
+	private int locationCount;
 
 	public Region(int id)
 	{
@@ -74,6 +78,8 @@ public class Region
 			{
 				for (int y = 0; y < Y; y++)
 				{
+					int tile = tile(z, x, y);
+
 					while (true)
 					{
 						int attribute = in.readUnsignedByte();
@@ -81,11 +87,11 @@ public class Region
 						{
 							if (z == 0)
 							{
-								tileHeights[0][x][y] = -HeightCalc.calculate(baseX + x + 0xe3b7b, baseY + y + 0x87cce) * 8;
+								tileHeights[tile] = -HeightCalc.calculate(baseX + x + 0xe3b7b, baseY + y + 0x87cce) * 8;
 							}
 							else
 							{
-								tileHeights[z][x][y] = tileHeights[z - 1][x][y] - 240;
+								tileHeights[tile] = tileHeights[tile - X * Y] - 240;
 							}
 
 							break;
@@ -100,28 +106,28 @@ public class Region
 
 							if (z == 0)
 							{
-								tileHeights[0][x][y] = -height * 8;
+								tileHeights[tile] = -height * 8;
 							}
 							else
 							{
-								tileHeights[z][x][y] = tileHeights[z - 1][x][y] - height * 8;
+								tileHeights[tile] = tileHeights[tile - X * Y] - height * 8;
 							}
 
 							break;
 						}
 						else if (attribute <= 49)
 						{
-							overlayIds[z][x][y] = in.readByte();
-							overlayPaths[z][x][y] = (byte) ((attribute - 2) / 4);
-							overlayRotations[z][x][y] = (byte) (attribute - 2 & 3);
+							overlayIds[tile] = in.readByte();
+							overlayPaths[tile] = (byte) ((attribute - 2) / 4);
+							overlayRotations[tile] = (byte) (attribute - 2 & 3);
 						}
 						else if (attribute <= 81)
 						{
-							renderRules[z][x][y] = (byte) (attribute - 49);
+							renderRules[tile] = (byte) (attribute - 49);
 						}
 						else
 						{
-							underlayIds[z][x][y] = (byte) (attribute - 81);
+							underlayIds[tile] = (byte) (attribute - 81);
 						}
 					}
 				}
@@ -133,6 +139,9 @@ public class Region
 	{
 		InputStream buf = new InputStream(b);
 
+		long[] locations = Arrays.copyOf(this.locations, locationCount + 64);
+		int count = locationCount;
+
 		int id = -1;
 		int idOffset;
 
@@ -155,9 +164,22 @@ public class Region
 				int type = attributes >> 2;
 				int orientation = attributes & 0x3;
 
-				locations.add(new Location(id, type, orientation, new Position(getBaseX() + localX, getBaseY() + localY, height)));
+				if (count == locations.length)
+				{
+					locations = Arrays.copyOf(locations, count * 2);
+				}
+
+				locations[count++] = (long) id << 32 | type << 16 | orientation << 14 | tile(height, localX, localY);
 			}
 		}
+
+		this.locations = Arrays.copyOf(locations, count);
+		this.locationCount = count;
+	}
+
+	private static int tile(int z, int x, int y)
+	{
+		return z << 12 | x << 6 | y;
 	}
 
 	public int getRegionID()
@@ -177,37 +199,106 @@ public class Region
 
 	public int getTileHeight(int z, int x, int y)
 	{
-		return tileHeights[z][x][y];
+		return tileHeights[tile(z, x, y)];
 	}
 
 	public byte getRenderRule(int z, int x, int y)
 	{
-		return renderRules[z][x][y];
+		return renderRules[tile(z, x, y)];
 	}
 
 	public int getOverlayId(int z, int x, int y)
 	{
-		return overlayIds[z][x][y] & 0xFF;
+		return overlayIds[tile(z, x, y)] & 0xFF;
 	}
 
 	public byte getOverlayPath(int z, int x, int y)
 	{
-		return overlayPaths[z][x][y];
+		return overlayPaths[tile(z, x, y)];
 	}
 
 	public byte getOverlayRotation(int z, int x, int y)
 	{
-		return overlayRotations[z][x][y];
+		return overlayRotations[tile(z, x, y)];
 	}
 
 	public int getUnderlayId(int z, int x, int y)
 	{
-		return underlayIds[z][x][y] & 0xFF;
+		return underlayIds[tile(z, x, y)] & 0xFF;
 	}
 
+	/**
+	 * Get the locations of the region. The returned list is a read only
+	 * view which creates a new {@link Location} for each element accessed;
+	 * prefer the getLocation* methods when iterating many locations.
+	 *
+	 * @return
+	 */
 	public List<Location> getLocations()
 	{
-		return locations;
+		return new AbstractList<Location>()
+		{
+			@Override
+			public Location get(int index)
+			{
+				if (index < 0 || index >= locationCount)
+				{
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + locationCount);
+				}
+
+				return new Location(getLocationId(index), getLocationType(index), getLocationOrientation(index),
+					new Position(getLocationX(index), getLocationY(index), getLocationZ(index)));
+			}
+
+			@Override
+			public int size()
+			{
+				return locationCount;
+			}
+		};
+	}
+
+	public int getLocationCount()
+	{
+		return locationCount;
+	}
+
+	public int getLocationId(int index)
+	{
+		return (int) (locations[index] >>> 32);
+	}
+
+	public int getLocationType(int index)
+	{
+		return (int) locations[index] >> 16 & 0x3F;
+	}
+
+	public int getLocationOrientation(int index)
+	{
+		return (int) locations[index] >> 14 & 0x3;
+	}
+
+	/**
+	 * @param index
+	 * @return the world x coordinate of the location
+	 */
+	public int getLocationX(int index)
+	{
+		return baseX + ((int) locations[index] >> 6 & 0x3F);
+	}
+
+	/**
+	 * @param index
+	 * @return the world y coordinate of the location
+	 */
+	public int getLocationY(int index)
+	{
+		return baseY + ((int) locations[index] & 0x3F);
+	}
+
+	public int getLocationZ(int index)
+	{
+		return (int) locations[index] >> 12 & 0x3;
 	}
 
 	public int getRegionX()
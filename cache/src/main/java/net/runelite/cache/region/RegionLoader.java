@@ -25,12 +25,19 @@
 package net.runelite.cache.region;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.IntHashMap;
 import net.runelite.cache.util.XteaKeyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,13 +48,38 @@ public class RegionLoader
 
 	private static final int MAX_REGION = 32768;
 
+	// region ids by the name hash of their map archive
+	private static final IntHashMap<Integer> MAP_NAMES = new IntHashMap<>(MAX_REGION);
+
+	static
+	{
+		for (int i = 0; i < MAX_REGION; ++i)
+		{
+			MAP_NAMES.put(Djb2.hash("m" + (i >> 8) + "_" + (i & 0xFF)), i);
+		}
+	}
+
 	private final Store store;
 	private final Index index;
 	private final XteaKeyManager keyManager;
 
+	private static final class Bounds
+	{
+		private final int lowestX, lowestY;
+		private final int highestX, highestY;
+
+		private Bounds(int lowestX, int lowestY, int highestX, int highestY)
+		{
+			this.lowestX = lowestX;
+			this.lowestY = lowestY;
+			this.highestX = highestX;
+			this.highestY = highestY;
+		}
+	}
+
+	private List<Integer> regionIds;
 	private final List<Region> regions = new ArrayList<>();
-	private Region lowestX = null, lowestY = null;
-	private Region highestX = null, highestY = null;
+	private volatile Bounds bounds; // set with regionIds
 
 	public RegionLoader(Store store)
 	{
@@ -56,13 +88,109 @@ public class RegionLoader
 		keyManager = index.getXteaManager();
 	}
 
+	/**
+	 * Find the ids of the regions in the cache, which have both a map and a
+	 * landscape archive, and calculate the bounds of the world from them.
+	 * No archives are decompressed.
+	 *
+	 * @return the region ids, in ascending order
+	 */
+	public synchronized List<Integer> getRegionIds()
+	{
+		if (regionIds != null)
+		{
+			return regionIds;
+		}
+
+		List<Integer> ids = new ArrayList<>();
+		for (Archive archive : index.getArchives())
+		{
+			Integer id = MAP_NAMES.get(archive.getNameHash());
+			if (id == null || index.findArchiveByName("l" + (id >> 8) + "_" + (id & 0xFF)) == null)
+			{
+				continue;
+			}
+
+			ids.add(id);
+		}
+		Collections.sort(ids);
+
+		int lowestX = Integer.MAX_VALUE, lowestY = Integer.MAX_VALUE;
+		int highestX = Integer.MIN_VALUE, highestY = Integer.MIN_VALUE;
+		for (int id : ids)
+		{
+			int baseX = (id >> 8) << 6;
+			int baseY = (id & 0xFF) << 6;
+
+			lowestX = Math.min(lowestX, baseX);
+			lowestY = Math.min(lowestY, baseY);
+			highestX = Math.max(highestX, baseX);
+			highestY = Math.max(highestY, baseY);
+		}
+
+		bounds = new Bounds(lowestX, lowestY, highestX, highestY);
+		regionIds = Collections.unmodifiableList(ids);
+		return regionIds;
+	}
+
+	/**
+	 * Load every region into {@link #getRegions()}. Regions are decoded in
+	 * parallel.
+	 *
+	 * @throws IOException
+	 */
 	public void loadRegions() throws IOException
 	{
-		for (int i = 0; i < MAX_REGION; ++i)
+		List<Region> loaded;
+		try
+		{
+			loaded = getRegionIds().parallelStream()
+				.map(this::loadRegion)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+
+		regions.clear();
+		regions.addAll(loaded);
+	}
+
+	/**
+	 * Load every region and pass it to the consumer, without keeping the
+	 * regions in memory. Regions are decoded in parallel, so the consumer
+	 * may be called concurrently from multiple threads and in no particular
+	 * order.
+	 *
+	 * @param consumer
+	 * @throws IOException
+	 */
+	public void forEachRegion(Consumer<Region> consumer) throws IOException
+	{
+		try
+		{
+			getRegionIds().parallelStream()
+				.map(this::loadRegion)
+				.filter(Objects::nonNull)
+				.forEach(consumer);
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+
+	private Region loadRegion(int id)
+	{
+		try
+		{
+			return loadRegionFromArchive(id);
+		}
+		catch (IOException ex)
 		{
-			Region region = this.loadRegionFromArchive(i);
-			if (region != null)
-				regions.add(region);
+			throw new UncheckedIOException(ex);
 		}
 	}
 
@@ -84,22 +212,28 @@ public class RegionLoader
 		assert map.getFiles().size() == 1;
 		assert land.getFiles().size() == 1;
 
-		map.decompressAndLoad(null);
-
-		byte[] data = map.getFiles().get(0).getContents();
+		// use the contents as decoded, the archives may be evicted from the
+		// store's archive cache by other threads at any time
+		List<byte[]> contents = map.decompressAndLoad(null);
+		if (contents == null)
+		{
+			logger.warn("Unable to decode map archive for region {}", i);
+			return null;
+		}
 
 		Region region = new Region(i);
-		region.loadTerrain(data);
+		region.loadTerrain(contents.get(0));
 
-		int[] keys = keyManager.getKeys(i);
+		int[] keys = keyManager != null ? keyManager.getKeys(i) : null;
 		if (keys != null)
 		{
 			try
 			{
-				land.decompressAndLoad(keys);
-
-				data = land.getFiles().get(0).getContents();
-				region.loadLocations(data);
+				contents = land.decompressAndLoad(keys);
+				if (contents != null)
+				{
+					region.loadLocations(contents.get(0));
+				}
 			}
 			catch (IOException ex)
 			{
@@ -110,30 +244,13 @@ public class RegionLoader
 		return region;
 	}
 
+	/**
+	 * Calculate the bounds of the world. This only requires the region
+	 * ids, so may be done before or without loading the regions.
+	 */
 	public void calculateBounds()
 	{
-		for (Region region : regions)
-		{
-			if (lowestX == null || region.getBaseX() < lowestX.getBaseX())
-			{
-				lowestX = region;
-			}
-
-			if (highestX == null || region.getBaseX() > highestX.getBaseX())
-			{
-				highestX = region;
-			}
-
-			if (lowestY == null || region.getBaseY() < lowestY.getBaseY())
-			{
-				lowestY = region;
-			}
-
-			if (highestY == null || region.getBaseY() > highestY.getBaseY())
-			{
-				highestY = region;
-			}
-		}
+		getRegionIds();
 	}
 
 	public List<Region> getRegions()
@@ -141,23 +258,46 @@ public class RegionLoader
 		return regions;
 	}
 
-	public Region getLowestX()
+	private Bounds getBounds()
+	{
+		Bounds b = bounds;
+		if (b == null)
+		{
+			getRegionIds();
+			b = bounds;
+		}
+		return b;
+	}
+
+	/**
+	 * @return the base x of the west most region
+	 */
+	public int getLowestX()
 	{
-		return lowestX;
+		return getBounds().lowestX;
 	}
 
-	public Region getLowestY()
+	/**
+	 * @return the base y of the south most region
+	 */
+	public int getLowestY()
 	{
-		return lowestY;
+		return getBounds().lowestY;
 	}
 
-	public Region getHighestX()
+	/**
+	 * @return the base x of the east most region
+	 */
+	public int getHighestX()
 	{
-		return highestX;
+		return getBounds().highestX;
 	}
 
-	public Region getHighestY()
+	/**
+	 * @return the base y of the north most region
+	 */
+	public int getHighestY()
 	{
-		return highestY;
+		return getBounds().highestY;
 	}
 }
@@ -32,11 +32,15 @@ public class Instructions
 	private static final Map<Integer, Instruction> instructions = new HashMap<>();
 	private static final Map<String, Instruction> instructionsByName = new HashMap<>();
 
-	public static void init()
+	// built once, when this class is loaded, and then safe to read from
+	// any thread
+	static
 	{
-		instructions.clear();
-		instructionsByName.clear();
+		load();
+	}
 
+	private static void load()
+	{
 		add(Opcodes.LOAD_INT, "load_int", 0, 1);
 		add(Opcodes.GET_SETTINGS, "get_settings", 0, 1);
 		add(Opcodes.PUT_SETTINGS, "put_settings", 0, 1);
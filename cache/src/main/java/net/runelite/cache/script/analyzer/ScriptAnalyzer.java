@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.analyzer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.definitions.loaders.ScriptLoader;
+import net.runelite.cache.fs.File;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.script.Instruction;
+import net.runelite.cache.script.Opcodes;
+import net.runelite.cache.script.interpreter.CompiledScript;
+import net.runelite.cache.script.interpreter.ScriptInstruction;
+
+/**
+ * Explores every path through scripts, tracking only the depth of the int
+ * and string stacks. A state is a pc and the two stack depths, and each
+ * state is explored once, so paths which rejoin are not followed again and
+ * loops terminate. Scripts are analyzed in parallel.
+ *
+ * @author Adam
+ */
+public class ScriptAnalyzer
+{
+	/**
+	 * paths on which a stack grows beyond this are abandoned, to bound
+	 * loops which push on every iteration
+	 */
+	private static final int MAX_STACK = 1024;
+
+	private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	/**
+	 * Analyze every client script in the store.
+	 *
+	 * @param store
+	 * @return summaries, ordered by script id
+	 */
+	public List<ScriptSummary> analyze(Store store)
+	{
+		Index index = store.getIndex(IndexType.CLIENTSCRIPT);
+		ScriptLoader loader = new ScriptLoader();
+
+		return index.getArchives().parallelStream()
+			.map(archive ->
+			{
+				File file = archive.getFiles().get(0);
+				return analyze(loader.load(archive.getArchiveId(), file.getContents()));
+			})
+			.sorted(Comparator.comparingInt(ScriptSummary::getId))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Analyze scripts in parallel.
+	 *
+	 * @param scripts
+	 * @return summaries, ordered by script id
+	 */
+	public List<ScriptSummary> analyze(List<ScriptDefinition> scripts)
+	{
+		return scripts.parallelStream()
+			.map(this::analyze)
+			.sorted(Comparator.comparingInt(ScriptSummary::getId))
+			.collect(Collectors.toList());
+	}
+
+	public ScriptSummary analyze(ScriptDefinition script)
+	{
+		CompiledScript compiled = CompiledScript.compile(script);
+		int length = compiled.length();
+
+		ScriptSummary summary = new ScriptSummary();
+		summary.setId(script.getId());
+		summary.setInstructions(length);
+
+		BitSet reachable = new BitSet(length);
+		Set<Long> visited = new HashSet<>();
+		ArrayDeque<Long> queue = new ArrayDeque<>();
+		Set<String> errors = new LinkedHashSet<>();
+		int maxInt = 0, maxString = 0;
+
+		queue.add(state(0, 0, 0));
+
+		while (!queue.isEmpty())
+		{
+			long state = queue.remove();
+			if (!visited.add(state))
+			{
+				continue;
+			}
+
+			int pc = (int) (state >>> 32);
+			int ints = (int) (state >>> 16) & 0xFFFF;
+			int strings = (int) state & 0xFFFF;
+
+			if (pc < 0 || pc >= length)
+			{
+				errors.add("pc " + pc + " is outside of the instructions");
+				continue;
+			}
+
+			reachable.set(pc);
+
+			ScriptInstruction si = compiled.getInstruction(pc);
+			if (si == null)
+			{
+				errors.add("unknown instruction " + script.getInstructions()[pc] + " at pc " + pc);
+				continue;
+			}
+
+			Instruction i = si.getInstruction();
+
+			ints -= i.getIntStackPops();
+			strings -= i.getStringStackPops();
+			if (ints < 0 || strings < 0)
+			{
+				errors.add("stack underflow at pc " + pc);
+				continue;
+			}
+
+			ints += i.getIntStackPushes();
+			strings += i.getStringStackPushes();
+			if (ints > MAX_STACK || strings > MAX_STACK)
+			{
+				errors.add("stack overflow at pc " + pc);
+				continue;
+			}
+
+			maxInt = Math.max(maxInt, ints);
+			maxString = Math.max(maxString, strings);
+
+			switch (i.getOpcode())
+			{
+				case Opcodes.RETURN:
+					break;
+				case Opcodes.JUMP:
+					queue.add(state(pc + si.getIop() + 1, ints, strings));
+					break;
+				case Opcodes.IF_ICMPNE:
+				case Opcodes.IF_ICMPEQ:
+				case Opcodes.IF_ICMPLT:
+				case Opcodes.IF_ICMPGT:
+				case Opcodes.IF_ICMPLE:
+				case Opcodes.IF_ICMPGE:
+					queue.add(state(pc + si.getIop() + 1, ints, strings));
+					queue.add(state(pc + 1, ints, strings));
+					break;
+				default:
+					queue.add(state(pc + 1, ints, strings));
+					break;
+			}
+		}
+
+		Set<Integer> opcodes = new HashSet<>();
+		List<String> strings = new ArrayList<>();
+		Set<String> seenStrings = new HashSet<>();
+		String[] sops = script.getStringOperands();
+
+		for (int pc = reachable.nextSetBit(0); pc >= 0; pc = reachable.nextSetBit(pc + 1))
+		{
+			opcodes.add(script.getInstructions()[pc]);
+
+			if (sops[pc] != null && seenStrings.add(sops[pc]))
+			{
+				strings.add(sops[pc]);
+			}
+		}
+
+		summary.setReachableInstructions(reachable.cardinality());
+		summary.setStates(visited.size());
+		summary.setMaxIntStack(maxInt);
+		summary.setMaxStringStack(maxString);
+		summary.setOpcodes(opcodes.stream().mapToInt(Integer::intValue).sorted().toArray());
+		summary.setStrings(strings);
+		summary.setErrors(new ArrayList<>(errors));
+		return summary;
+	}
+
+	/**
+	 * Write summaries as a json array.
+	 *
+	 * @param summaries
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeReport(List<ScriptSummary> summaries, Writer writer) throws IOException
+	{
+		gson.toJson(summaries, writer);
+		writer.flush();
+	}
+
+	private static long state(int pc, int ints, int strings)
+	{
+		return (long) pc << 32 | ints << 16 | strings;
+	}
+}
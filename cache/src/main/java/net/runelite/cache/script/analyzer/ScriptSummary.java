@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the result of analyzing a script
+ *
+ * @author Adam
+ */
+public class ScriptSummary
+{
+	private int id;
+	private int instructions;
+	private int reachableInstructions;
+	private int states;
+	private int maxIntStack;
+	private int maxStringStack;
+	private int[] opcodes;
+	private List<String> strings = new ArrayList<>();
+	private List<String> errors = new ArrayList<>();
+
+	/**
+	 * @return whether every path of the script could be followed to a
+	 * return
+	 */
+	public boolean isComplete()
+	{
+		return errors.isEmpty();
+	}
+
+	public int getId()
+	{
+		return id;
+	}
+
+	public void setId(int id)
+	{
+		this.id = id;
+	}
+
+	public int getInstructions()
+	{
+		return instructions;
+	}
+
+	public void setInstructions(int instructions)
+	{
+		this.instructions = instructions;
+	}
+
+	public int getReachableInstructions()
+	{
+		return reachableInstructions;
+	}
+
+	public void setReachableInstructions(int reachableInstructions)
+	{
+		this.reachableInstructions = reachableInstructions;
+	}
+
+	public int getStates()
+	{
+		return states;
+	}
+
+	public void setStates(int states)
+	{
+		this.states = states;
+	}
+
+	public int getMaxIntStack()
+	{
+		return maxIntStack;
+	}
+
+	public void setMaxIntStack(int maxIntStack)
+	{
+		this.maxIntStack = maxIntStack;
+	}
+
+	public int getMaxStringStack()
+	{
+		return maxStringStack;
+	}
+
+	public void setMaxStringStack(int maxStringStack)
+	{
+		this.maxStringStack = maxStringStack;
+	}
+
+	public int[] getOpcodes()
+	{
+		return opcodes;
+	}
+
+	public void setOpcodes(int[] opcodes)
+	{
+		this.opcodes = opcodes;
+	}
+
+	public List<String> getStrings()
+	{
+		return strings;
+	}
+
+	public void setStrings(List<String> strings)
+	{
+		this.strings = strings;
+	}
+
+	public List<String> getErrors()
+	{
+		return errors;
+	}
+
+	public void setErrors(List<String> errors)
+	{
+		this.errors = errors;
+	}
+}
@@ -27,18 +27,20 @@ package net.runelite.cache.script.assembler;
 import java.io.IOException;
 import java.io.InputStream;
 import net.runelite.cache.definitions.ScriptDefinition;
-import net.runelite.cache.script.Instructions;
 import net.runelite.cache.script.assembler.rs2asmParser.ProgContext;
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 public class Assembler
 {
 	public ScriptDefinition assemble(InputStream in) throws IOException
 	{
-		Instructions.init();
-
 		// Get our lexer
 		rs2asmLexer lexer = new rs2asmLexer(new ANTLRInputStream(in));
 
@@ -51,8 +53,28 @@ public class Assembler
 		// Pass the tokens to the parser
 		rs2asmParser parser = new rs2asmParser(tokens);
 
-		// Specify our entry point
-		ProgContext progContext = parser.prog();
+		// Specify our entry point. Parse with the faster SLL prediction
+		// first, which handles the scripts we see, and fall back to full LL
+		// on failure. The prediction DFA is shared between parsers, so
+		// later files are faster still.
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		parser.removeErrorListeners();
+		parser.setErrorHandler(new BailErrorStrategy());
+
+		ProgContext progContext;
+		try
+		{
+			progContext = parser.prog();
+		}
+		catch (ParseCancellationException ex)
+		{
+			tokens.seek(0);
+			parser.reset();
+			parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			progContext = parser.prog();
+		}
 
 		if (errorListener.getErrors() > 0)
 		{
@@ -62,11 +84,7 @@ public class Assembler
 		// Walk it and attach our listener
 		ParseTreeWalker walker = new ParseTreeWalker();
 
-		// walk through first and resolve labels
-		LabelVisitor labelVisitor = new LabelVisitor();
-		walker.walk(labelVisitor, progContext);
-
-		ScriptWriter listener = new ScriptWriter(labelVisitor);
+		ScriptWriter listener = new ScriptWriter();
 		walker.walk(listener, progContext);
 
 		return listener.buildScript();
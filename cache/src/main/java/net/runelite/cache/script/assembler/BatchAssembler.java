@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.assembler;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import net.runelite.cache.definitions.ScriptDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assembles many files in parallel. Assembled scripts are cached by the
+ * hash of the file contents, so reassembling a set of files only
+ * assembles those which have changed since the previous batch.
+ * <p>
+ * Cached scripts are shared between batches, and must not be modified.
+ */
+public class BatchAssembler
+{
+	private static final Logger logger = LoggerFactory.getLogger(BatchAssembler.class);
+
+	private final Assembler assembler = new Assembler();
+	private Map<HashCode, ScriptDefinition> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Assemble files. A file which fails to assemble does not stop the
+	 * others, its result has an error instead.
+	 *
+	 * @param files
+	 * @return a result for each file, in the same order
+	 */
+	public synchronized List<Result> assemble(Collection<File> files)
+	{
+		Map<HashCode, ScriptDefinition> previous = cache;
+		Map<HashCode, ScriptDefinition> current = new ConcurrentHashMap<>();
+
+		List<Result> results = files.parallelStream()
+			.map(file -> assemble(file, previous, current))
+			.collect(Collectors.toList());
+
+		// only keep the scripts of this batch, so the cache does not grow
+		// with every revision of every file
+		cache = current;
+
+		long cached = results.stream().filter(Result::isCached).count();
+		logger.debug("Assembled {} files, {} unchanged", results.size(), cached);
+
+		return results;
+	}
+
+	private Result assemble(File file, Map<HashCode, ScriptDefinition> previous, Map<HashCode, ScriptDefinition> current)
+	{
+		long start = System.nanoTime();
+		Result result = new Result(file);
+
+		try
+		{
+			byte[] contents = Files.readAllBytes(file.toPath());
+			HashCode hash = Hashing.sha256().hashBytes(contents);
+
+			ScriptDefinition script = previous.get(hash);
+			if (script != null)
+			{
+				result.cached = true;
+			}
+			else
+			{
+				script = current.get(hash); // the same contents earlier in this batch
+				if (script == null)
+				{
+					script = assembler.assemble(new ByteArrayInputStream(contents));
+				}
+			}
+
+			current.put(hash, script);
+			result.script = script;
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.warn("Unable to assemble {}", file, ex);
+			result.error = ex.toString();
+		}
+
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	public synchronized int getCacheSize()
+	{
+		return cache.size();
+	}
+
+	public static class Result
+	{
+		private final File file;
+		private ScriptDefinition script;
+		private String error;
+		private boolean cached;
+		private long nanos;
+
+		private Result(File file)
+		{
+			this.file = file;
+		}
+
+		public File getFile()
+		{
+			return file;
+		}
+
+		/**
+		 * @return the assembled script, or null if there was an error
+		 */
+		public ScriptDefinition getScript()
+		{
+			return script;
+		}
+
+		public String getError()
+		{
+			return error;
+		}
+
+		/**
+		 * @return whether the file was unchanged since the previous batch,
+		 * and was not assembled again
+		 */
+		public boolean isCached()
+		{
+			return cached;
+		}
+
+		/**
+		 * @return the time taken to read, hash and assemble the file
+		 */
+		public long getNanos()
+		{
+			return nanos;
+		}
+	}
+}
@@ -25,7 +25,9 @@
 package net.runelite.cache.script.assembler;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.runelite.cache.definitions.ScriptDefinition;
 import net.runelite.cache.script.Instruction;
 import net.runelite.cache.script.Instructions;
@@ -36,17 +38,15 @@ public class ScriptWriter extends rs2asmBaseListener
 {
 	private static final Logger logger = LoggerFactory.getLogger(ScriptWriter.class);
 
-	private final LabelVisitor labelVisitor;
-
 	private int pos;
 	private List<Integer> opcodes = new ArrayList<>();
 	private List<Integer> iops = new ArrayList<>();
 	private List<String> sops = new ArrayList<>();
 
-	public ScriptWriter(LabelVisitor labelVisitor)
-	{
-		this.labelVisitor = labelVisitor;
-	}
+	// labels may be referenced before they are defined, so references
+	// are resolved once the whole script has been walked
+	private final Map<String, Integer> labels = new HashMap<>();
+	private final Map<Integer, String> labelReferences = new HashMap<>();
 
 	@Override
 	public void exitInstruction(rs2asmParser.InstructionContext ctx)
@@ -54,6 +54,17 @@ public class ScriptWriter extends rs2asmBaseListener
 		++pos;
 	}
 
+	@Override
+	public void enterLabel(rs2asmParser.LabelContext ctx)
+	{
+		String text = ctx.getText();
+		text = text.substring(0, text.length() - 1); // remove trailing :
+
+		logger.debug("Label {} is on instruction {}", text, pos);
+
+		labels.put(text, pos);
+	}
+
 	@Override
 	public void enterName_string(rs2asmParser.Name_stringContext ctx)
 	{
@@ -107,19 +118,24 @@ public class ScriptWriter extends rs2asmBaseListener
 	@Override
 	public void enterOperand_label(rs2asmParser.Operand_labelContext ctx)
 	{
-		String text = ctx.getText();
-		Integer instruction = labelVisitor.getInstructionForLabel(text);
-		if (instruction == null)
-		{
-			throw new RuntimeException("reference to unknown label " + text);
-		}
-
-		int target = instruction - pos - 1; // -1 to go to the instruction prior
-		iops.set(pos, target);
+		labelReferences.put(pos, ctx.getText());
 	}
 
 	public ScriptDefinition buildScript()
 	{
+		for (Map.Entry<Integer, String> reference : labelReferences.entrySet())
+		{
+			int pos = reference.getKey();
+			Integer instruction = labels.get(reference.getValue());
+			if (instruction == null)
+			{
+				throw new RuntimeException("reference to unknown label " + reference.getValue());
+			}
+
+			int target = instruction - pos - 1; // -1 to go to the instruction prior
+			iops.set(pos, target);
+		}
+
 		ScriptDefinition script = new ScriptDefinition();
 		script.setInstructions(opcodes.stream().mapToInt(Integer::valueOf).toArray());
 		script.setIntOperands(iops.stream()
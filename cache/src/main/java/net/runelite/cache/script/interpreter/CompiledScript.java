@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.interpreter;
+
+import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.script.Instruction;
+import net.runelite.cache.script.Instructions;
+import net.runelite.cache.script.Opcodes;
+
+/**
+ * a script with its instructions and their handlers resolved ahead of
+ * time, so that it can be interpreted without any lookups
+ *
+ * @author Adam
+ */
+public class CompiledScript
+{
+	private static final GenericInstructionHandler GENERIC_HANDLER = new GenericInstructionHandler();
+
+	private final ScriptDefinition script;
+	private final ScriptInstruction[] instructions;
+	private final InstructionHandler[] handlers;
+	private final StackContext[] constants; // values pushed by load_int, for untracked runs
+
+	private CompiledScript(ScriptDefinition script, ScriptInstruction[] instructions, InstructionHandler[] handlers, StackContext[] constants)
+	{
+		this.script = script;
+		this.instructions = instructions;
+		this.handlers = handlers;
+		this.constants = constants;
+	}
+
+	/**
+	 * Resolve the instructions of a script. Unknown instructions are only
+	 * an error if they are executed.
+	 *
+	 * @param script
+	 * @return
+	 */
+	public static CompiledScript compile(ScriptDefinition script)
+	{
+		int[] opcodes = script.getInstructions();
+		int[] iops = script.getIntOperands();
+		String[] sops = script.getStringOperands();
+
+		ScriptInstruction[] instructions = new ScriptInstruction[opcodes.length];
+		InstructionHandler[] handlers = new InstructionHandler[opcodes.length];
+		StackContext[] constants = new StackContext[opcodes.length];
+
+		for (int pc = 0; pc < opcodes.length; ++pc)
+		{
+			Instruction i = Instructions.find(opcodes[pc]);
+			if (i == null)
+			{
+				continue;
+			}
+
+			instructions[pc] = new ScriptInstruction(pc, i, iops[pc], sops[pc]);
+
+			InstructionHandler handler = InstructionHandlers.find(opcodes[pc]);
+			handlers[pc] = handler != null ? handler : GENERIC_HANDLER;
+
+			if (opcodes[pc] == Opcodes.LOAD_INT)
+			{
+				constants[pc] = new StackContext(null, iops[pc]);
+			}
+		}
+
+		return new CompiledScript(script, instructions, handlers, constants);
+	}
+
+	public ScriptDefinition getScript()
+	{
+		return script;
+	}
+
+	public int length()
+	{
+		return instructions.length;
+	}
+
+	/**
+	 * @param pc
+	 * @return the instruction at pc, or null if its opcode is unknown
+	 */
+	public ScriptInstruction getInstruction(int pc)
+	{
+		return instructions[pc];
+	}
+
+	InstructionHandler getHandler(int pc)
+	{
+		return handlers[pc];
+	}
+
+	/**
+	 * Get the value pushed by the load_int at pc, shared by every untracked
+	 * run of this script.
+	 *
+	 * @param pc
+	 * @return
+	 */
+	public StackContext getConstant(int pc)
+	{
+		return constants[pc];
+	}
+}
@@ -29,7 +29,7 @@ import net.runelite.cache.definitions.ScriptDefinition;
 public class Frame
 {
 	private final Interpreter interpreter;
-	private final ScriptDefinition script;
+	private final CompiledScript script;
 	private final Stack intStack;
 	private final Stack stringStack;
 
@@ -37,6 +37,11 @@ public class Frame
 	int pc;
 
 	public Frame(Interpreter interpreter, ScriptDefinition script)
+	{
+		this(interpreter, CompiledScript.compile(script));
+	}
+
+	public Frame(Interpreter interpreter, CompiledScript script)
 	{
 		this.interpreter = interpreter;
 		this.script = script;
@@ -64,6 +69,11 @@ public class Frame
 	}
 
 	public ScriptDefinition getScript()
+	{
+		return script.getScript();
+	}
+
+	public CompiledScript getCompiledScript()
 	{
 		return script;
 	}
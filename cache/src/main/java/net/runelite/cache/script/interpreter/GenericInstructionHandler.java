@@ -39,6 +39,12 @@ public class GenericInstructionHandler extends InstructionHandler
 		Stack istack = frame.getIntStack();
 		Stack sstack = frame.getStringStack();
 
+		if (!ctx.isTracking())
+		{
+			untracked(i, istack, sstack);
+			return;
+		}
+
 		int ipops = i.getIntStackPops();
 		for (int j = 0; j < ipops; ++j)
 		{
@@ -77,4 +83,27 @@ public class GenericInstructionHandler extends InstructionHandler
 		}
 	}
 
+	private static void untracked(Instruction i, Stack istack, Stack sstack)
+	{
+		for (int j = i.getIntStackPops(); j > 0; --j)
+		{
+			istack.pop();
+		}
+
+		for (int j = i.getStringStackPops(); j > 0; --j)
+		{
+			sstack.pop();
+		}
+
+		for (int j = i.getIntStackPushes(); j > 0; --j)
+		{
+			istack.push(StackContext.UNKNOWN);
+		}
+
+		for (int j = i.getStringStackPushes(); j > 0; --j)
+		{
+			sstack.push(StackContext.UNKNOWN);
+		}
+	}
+
 }
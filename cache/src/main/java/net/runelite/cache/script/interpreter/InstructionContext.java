@@ -25,20 +25,33 @@
 package net.runelite.cache.script.interpreter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class InstructionContext
 {
-	private final ScriptInstruction scriptInstruction;
+	private ScriptInstruction scriptInstruction;
+	private final boolean tracking;
 
-	private final List<StackContext> ipops = new ArrayList<>();
-	private final List<StackContext> spops = new ArrayList<>();
-	private final List<StackContext> ipushes = new ArrayList<>();
-	private final List<StackContext> spushes = new ArrayList<>();
+	// created on first use, most instructions do not touch both stacks
+	private List<StackContext> ipops;
+	private List<StackContext> spops;
+	private List<StackContext> ipushes;
+	private List<StackContext> spushes;
 
 	public InstructionContext(ScriptInstruction scriptInstruction)
 	{
 		this.scriptInstruction = scriptInstruction;
+		this.tracking = true;
+	}
+
+	/**
+	 * An untracked context, which records nothing and is reused for each
+	 * instruction of a frame.
+	 */
+	InstructionContext()
+	{
+		this.tracking = false;
 	}
 
 	public ScriptInstruction getScriptInstruction()
@@ -46,56 +59,85 @@ public class InstructionContext
 		return scriptInstruction;
 	}
 
+	void setScriptInstruction(ScriptInstruction scriptInstruction)
+	{
+		assert !tracking;
+		this.scriptInstruction = scriptInstruction;
+	}
+
+	/**
+	 * @return whether the stack values this instruction pushes and pops
+	 * are recorded. Handlers should skip the bookkeeping when they aren't.
+	 */
+	public boolean isTracking()
+	{
+		return tracking;
+	}
+
 	public void popsInt(StackContext... ctx)
 	{
-		for (StackContext s : ctx)
+		if (tracking)
 		{
-			ipops.add(s);
+			ipops = add(ipops, ctx);
 		}
 	}
 
 	public void popsString(StackContext... ctx)
 	{
-		for (StackContext s : ctx)
+		if (tracking)
 		{
-			spops.add(s);
+			spops = add(spops, ctx);
 		}
 	}
 
 	public void pushesInt(StackContext... ctx)
 	{
-		for (StackContext s : ctx)
+		if (tracking)
 		{
-			ipushes.add(s);
+			ipushes = add(ipushes, ctx);
 		}
 	}
 
 	public void pushesString(StackContext... ctx)
 	{
-		for (StackContext s : ctx)
+		if (tracking)
 		{
-			spushes.add(s);
+			spushes = add(spushes, ctx);
 		}
-
 	}
 
 	public List<StackContext> getIpops()
 	{
-		return ipops;
+		return ipops != null ? ipops : Collections.emptyList();
 	}
 
 	public List<StackContext> getSpops()
 	{
-		return spops;
+		return spops != null ? spops : Collections.emptyList();
 	}
 
 	public List<StackContext> getIpushes()
 	{
-		return ipushes;
+		return ipushes != null ? ipushes : Collections.emptyList();
 	}
 
 	public List<StackContext> getSpushes()
 	{
-		return spushes;
+		return spushes != null ? spushes : Collections.emptyList();
+	}
+
+	private static List<StackContext> add(List<StackContext> list, StackContext[] ctx)
+	{
+		if (list == null)
+		{
+			list = new ArrayList<>(ctx.length);
+		}
+
+		for (StackContext s : ctx)
+		{
+			list.add(s);
+		}
+
+		return list;
 	}
 }
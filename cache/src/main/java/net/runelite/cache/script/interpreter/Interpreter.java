@@ -27,8 +27,6 @@ package net.runelite.cache.script.interpreter;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import net.runelite.cache.definitions.ScriptDefinition;
-import net.runelite.cache.script.Instruction;
-import net.runelite.cache.script.Instructions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,17 +35,48 @@ public class Interpreter
 	private static final Logger logger = LoggerFactory.getLogger(Interpreter.class);
 
 	private final Queue<Frame> frames = new ArrayDeque<>();
-	private final GenericInstructionHandler genericInstructionHandler = new GenericInstructionHandler();
+	private final boolean tracking;
+
+	public Interpreter()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param tracking whether to record which instructions push and pop
+	 * each stack value. Untracked runs are for bulk analysis: each frame
+	 * reuses one instruction context and constants come from the compiled
+	 * script, so running allocates only for new frames and stack growth.
+	 */
+	public Interpreter(boolean tracking)
+	{
+		this.tracking = tracking;
+	}
+
+	public boolean isTracking()
+	{
+		return tracking;
+	}
 
 	public void run(ScriptDefinition script)
 	{
-		Instructions.init();
+		run(CompiledScript.compile(script));
+	}
 
+	/**
+	 * Run a compiled script. Compiling a script once and running it
+	 * repeatedly avoids resolving its instructions each time. An
+	 * interpreter may only run one script at a time, but many
+	 * interpreters may share a compiled script.
+	 *
+	 * @param script
+	 */
+	public void run(CompiledScript script)
+	{
 		Frame frame = new Frame(this, script);
 		frames.add(frame);
 
 		int count = 0;
-
 		while (!frames.isEmpty())
 		{
 			frame = frames.remove();
@@ -55,42 +84,39 @@ public class Interpreter
 			++count;
 		}
 
-		logger.info("Processed {} frames", count);
+		logger.debug("Processed {} frames", count);
 	}
 
 	private void run(Frame frame)
 	{
-		ScriptDefinition script = frame.getScript();
-
-		int[] instructions = script.getInstructions();
-		int[] iops = script.getIntOperands();
-		String[] sops = script.getStringOperands();
+		CompiledScript script = frame.getCompiledScript();
+		int length = script.length();
+		InstructionContext untracked = tracking ? null : new InstructionContext();
 
 		while (frame.isRunning())
 		{
-			if (frame.pc >= instructions.length)
+			if (frame.pc >= length)
 			{
 				throw new RuntimeException("PC went past end of instructions - maybe missing return");
 			}
 
-			int opcode = instructions[frame.pc];
-			int iop = iops[frame.pc];
-			String sop = sops[frame.pc];
-
-			Instruction i = Instructions.find(opcode);
-			if (i == null)
+			ScriptInstruction scriptInstruction = script.getInstruction(frame.pc);
+			if (scriptInstruction == null)
 			{
-				throw new RuntimeException("Unknown instruction " + opcode + " in script at pc " + frame.pc);
+				throw new RuntimeException("Unknown instruction " + script.getScript().getInstructions()[frame.pc] + " in script at pc " + frame.pc);
 			}
 
-			ScriptInstruction scriptInstruction = new ScriptInstruction(frame.pc, i, iop, sop);
-			InstructionContext ctx = new InstructionContext(scriptInstruction);
-
-			InstructionHandler handler = InstructionHandlers.find(opcode);
-			if (handler == null)
+			InstructionContext ctx;
+			if (tracking)
+			{
+				ctx = new InstructionContext(scriptInstruction);
+			}
+			else
 			{
-				handler = genericInstructionHandler;
+				ctx = untracked;
+				ctx.setScriptInstruction(scriptInstruction);
 			}
+			InstructionHandler handler = script.getHandler(frame.pc);
 
 			int old = frame.pc;
 
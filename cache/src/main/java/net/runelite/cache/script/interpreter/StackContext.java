@@ -25,12 +25,18 @@
 package net.runelite.cache.script.interpreter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class StackContext
 {
+	/**
+	 * a value pushed by an untracked instruction which isn't known
+	 */
+	public static final StackContext UNKNOWN = new StackContext(null, null);
+
 	private final InstructionContext pushed;
-	private final List<InstructionContext> popped = new ArrayList<>();
+	private List<InstructionContext> popped; // created on first use
 	private final Object value;
 
 	public StackContext(InstructionContext pushed, Object value)
@@ -42,6 +48,10 @@ public class StackContext
 
 	public void poppedBy(InstructionContext ctx)
 	{
+		if (popped == null)
+		{
+			popped = new ArrayList<>(1);
+		}
 		popped.add(ctx);
 	}
 
@@ -52,7 +62,7 @@ public class StackContext
 
 	public List<InstructionContext> getPopped()
 	{
-		return popped;
+		return popped != null ? popped : Collections.emptyList();
 	}
 
 	public Object getValue()
@@ -41,7 +41,10 @@ public abstract class If extends InstructionHandler
 		StackContext sctx1 = intStack.pop();
 		StackContext sctx2 = intStack.pop();
 
-		ctx.popsInt(sctx1, sctx2);
+		if (ctx.isTracking())
+		{
+			ctx.popsInt(sctx1, sctx2);
+		}
 
 		Frame dup = frame.dup();
 		dup.jump(iop);
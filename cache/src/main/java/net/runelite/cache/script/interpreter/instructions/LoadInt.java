@@ -36,6 +36,13 @@ public class LoadInt extends InstructionHandler
 	public void execute(Frame frame, InstructionContext ctx)
 	{
 		Stack intStack = frame.getIntStack();
+
+		if (!ctx.isTracking())
+		{
+			intStack.push(frame.getCompiledScript().getConstant(ctx.getScriptInstruction().getPc()));
+			return;
+		}
+
 		int iop = ctx.getScriptInstruction().getIop();
 
 		StackContext sctx = new StackContext(ctx, iop);
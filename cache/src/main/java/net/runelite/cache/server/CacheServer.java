@@ -31,6 +31,10 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -44,25 +48,65 @@ public class CacheServer implements AutoCloseable
 
 	private static final int PORT = 43594;
 
-	private final EventLoopGroup group = new NioEventLoopGroup(1);
+	private EventLoopGroup bossGroup;
+	private EventLoopGroup workerGroup;
+
+	private int workerThreads = Runtime.getRuntime().availableProcessors();
+	private boolean epoll;
 
 	private Channel channel;
 
 	private final Store store;
 	private final int revision;
+	private final ResponseCache responseCache;
 
 	public CacheServer(Store store, int revision)
+	{
+		this(store, revision, ResponseCache.DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param store
+	 * @param revision
+	 * @param responseCacheSize maximum size, in bytes, of the responses
+	 * kept ready to send
+	 */
+	public CacheServer(Store store, int revision, long responseCacheSize)
 	{
 		this.store = store;
 		this.revision = revision;
+		this.responseCache = new ResponseCache(store, responseCacheSize);
 	}
 
 	public void start()
 	{
+		// the worker threads read archives concurrently
+		store.setMemoryMapped(true);
+
+		Class<? extends ServerChannel> channelClass;
+
+		if (epoll && Epoll.isAvailable())
+		{
+			bossGroup = new EpollEventLoopGroup(1);
+			workerGroup = new EpollEventLoopGroup(workerThreads);
+			channelClass = EpollServerSocketChannel.class;
+		}
+		else
+		{
+			if (epoll)
+			{
+				logger.warn("Epoll is unavailable, using nio", Epoll.unavailabilityCause());
+			}
+
+			bossGroup = new NioEventLoopGroup(1);
+			workerGroup = new NioEventLoopGroup(workerThreads);
+			channelClass = NioServerSocketChannel.class;
+		}
+
 		ServerBootstrap b = new ServerBootstrap();
-		b.group(group)
-			.channel(NioServerSocketChannel.class)
-			.option(ChannelOption.TCP_NODELAY, true)
+		b.group(bossGroup, workerGroup)
+			.channel(channelClass)
+			.childOption(ChannelOption.TCP_NODELAY, true)
 			.childHandler(new ChannelInitializer<SocketChannel>()
 			{
 				@Override
@@ -77,7 +121,7 @@ public class CacheServer implements AutoCloseable
 		ChannelFuture f = b.bind(PORT).syncUninterruptibly();
 		channel = f.channel();
 
-		logger.info("Server is now listening on {}", PORT);
+		logger.info("Server is now listening on {} with {} worker threads", PORT, workerThreads);
 	}
 
 	public void waitForClose()
@@ -88,8 +132,61 @@ public class CacheServer implements AutoCloseable
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
-		group.shutdownGracefully();
+		if (channel != null)
+		{
+			channel.close().syncUninterruptibly();
+			bossGroup.shutdownGracefully();
+			workerGroup.shutdownGracefully();
+		}
+		responseCache.clear();
+	}
+
+	/**
+	 * Discard all precomputed responses. Responses for archives and
+	 * indexes which have been changed are rebuilt automatically, this is
+	 * only needed if the store was changed without updating their
+	 * revision or crc.
+	 */
+	public void invalidate()
+	{
+		responseCache.clear();
+	}
+
+	public int getWorkerThreads()
+	{
+		return workerThreads;
+	}
+
+	/**
+	 * Set the number of threads handling client connections. Defaults to
+	 * the number of processors. Must be set before the server is started.
+	 *
+	 * @param workerThreads
+	 */
+	public void setWorkerThreads(int workerThreads)
+	{
+		if (workerThreads < 1)
+		{
+			throw new IllegalArgumentException("worker threads must be at least 1");
+		}
+
+		this.workerThreads = workerThreads;
+	}
+
+	public boolean isEpoll()
+	{
+		return epoll;
+	}
+
+	/**
+	 * Use the native epoll transport, if it is available on this platform.
+	 * Must be set before the server is started.
+	 *
+	 * @param epoll
+	 */
+	public void setEpoll(boolean epoll)
+	{
+		this.epoll = epoll;
 	}
 
 	public int getRevision()
@@ -101,4 +198,9 @@ public class CacheServer implements AutoCloseable
 	{
 		return store;
 	}
+
+	public ResponseCache getResponseCache()
+	{
+		return responseCache;
+	}
 }
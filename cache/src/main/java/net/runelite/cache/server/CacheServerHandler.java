@@ -30,14 +30,11 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import net.runelite.cache.downloader.requests.ConnectionInfo;
+import net.runelite.cache.downloader.requests.FileRequest;
 import net.runelite.cache.downloader.requests.HelloHandshake;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.CompressionType;
-import net.runelite.cache.fs.DataFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Store;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,22 +42,34 @@ public class CacheServerHandler extends SimpleChannelInboundHandler<ByteBuf>
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheServerHandler.class);
 
+	// clients keep a small window of requests in flight, so a client with
+	// this many prefetches queued is not waiting for them
+	static final int MAX_QUEUED_PREFETCHES = 4096;
+
 	private final CacheServer server;
-	private final Store store;
 
 	private ClientState state = ClientState.HANDSHAKING;
 	private final ByteBuf buffer = Unpooled.buffer();
 
+	// requests waiting for the channel to become writable. urgent requests,
+	// for files the client is blocked on, are served before prefetches.
+	// requests are read even while the channel is unwritable, so urgent
+	// requests always jump the queue; prefetches are bounded instead.
+	private final Deque<FileRequest> urgent = new ArrayDeque<>();
+	private final Deque<FileRequest> prefetch = new ArrayDeque<>();
+
 	public CacheServerHandler(CacheServer server)
 	{
 		this.server = server;
-		this.store = server.getStore();
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buf) throws Exception
 	{
-		System.out.println(ByteBufUtil.prettyHexDump(buf));
+		if (logger.isTraceEnabled())
+		{
+			logger.trace("Read from client {}:\n{}", ctx.channel().remoteAddress(), ByteBufUtil.prettyHexDump(buf));
+		}
 
 		buffer.writeBytes(buf);
 
@@ -84,6 +93,19 @@ public class CacheServerHandler extends SimpleChannelInboundHandler<ByteBuf>
 		}
 
 		buffer.discardReadBytes();
+
+		processRequests(ctx);
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+	{
+		if (ctx.channel().isWritable())
+		{
+			processRequests(ctx);
+		}
+
+		super.channelWritabilityChanged(ctx);
 	}
 
 	private void handshake(ChannelHandlerContext ctx, ByteBuf buf)
@@ -138,7 +160,7 @@ public class CacheServerHandler extends SimpleChannelInboundHandler<ByteBuf>
 	private void connected(ChannelHandlerContext ctx, ByteBuf buf)
 	{
 		// a request for an archive
-		// byte[0] = 1 if requesting index 255, else 0
+		// byte[0] = 1 if urgent, else 0 for a prefetch
 		// byte[1] = index
 		// byte[2-3] = archive id
 
@@ -147,130 +169,79 @@ public class CacheServerHandler extends SimpleChannelInboundHandler<ByteBuf>
 			return;
 		}
 
-		byte requesting255 = buf.readByte();
+		byte priority = buf.readByte();
 		int index = buf.readByte() & 0xFF;
 		int archiveId = buf.readShort() & 0xFFFF;
 
-		if (index == 255)
+		logger.trace("Client {} requests index {} archive {} priority {}", ctx.channel().remoteAddress(), index, archiveId, priority);
+
+		FileRequest request = new FileRequest(index, archiveId);
+		if (priority == 1)
 		{
-			handle255(ctx, requesting255, index, archiveId);
+			urgent.add(request);
+		}
+		else if (prefetch.size() >= MAX_QUEUED_PREFETCHES)
+		{
+			logger.warn("Client {} has too many queued prefetches, closing", ctx.channel().remoteAddress());
+			buf.skipBytes(buf.readableBytes());
+			ctx.close();
 		}
 		else
 		{
-			handleRequest(ctx, index, archiveId);
+			prefetch.add(request);
 		}
 	}
 
-	private void handle255(ChannelHandlerContext ctx, byte requesting255, int index, int archiveId)
+	/**
+	 * Write responses to queued requests, urgent ones first, for as long as
+	 * the channel is writable. The remaining requests are processed when
+	 * the channel becomes writable again, so urgent requests which arrive
+	 * in the meantime are served ahead of queued prefetches.
+	 *
+	 * @param ctx
+	 * @throws IOException
+	 */
+	private void processRequests(ChannelHandlerContext ctx) throws IOException
 	{
-		logger.info("Client {} requests 255 {}, index {}, archive {}", ctx.channel().remoteAddress(), requesting255, index, archiveId);
+		boolean written = false;
 
-		if (archiveId == 255)
+		while (ctx.channel().isWritable())
 		{
-			// index 255 data, for each index:
-			// 4 byte crc
-			// 4 byte revision
-			ByteBuf buffer = Unpooled.buffer();
-			for (Index i : store.getIndexes())
+			FileRequest request = urgent.poll();
+			if (request == null)
 			{
-				buffer.writeInt(i.getCrc());
-				buffer.writeInt(i.getRevision());
+				request = prefetch.poll();
+				if (request == null)
+				{
+					break;
+				}
 			}
 
-			byte[] compressed = compress(CompressionType.NONE, Arrays.copyOf(buffer.array(), buffer.readableBytes()));
-			byte[] packed = addHeader(index, archiveId, compressed);
-			byte[] chunked = chunk(packed);
-
-			ctx.writeAndFlush(Unpooled.wrappedBuffer(chunked));
+			ctx.write(getResponse(request.getIndex(), request.getFile()));
+			written = true;
 		}
-		else
-		{
-			Index i = store.findIndex(archiveId);
-			assert i != null;
-
-			byte[] indexData = i.writeIndexData();
 
-			byte[] compressed = compress(CompressionType.NONE, indexData);
-			byte[] packed = addHeader(255, archiveId, compressed);
-			byte[] chunked = chunk(packed);
-
-			ctx.writeAndFlush(Unpooled.wrappedBuffer(chunked));
+		if (written)
+		{
+			ctx.flush();
 		}
 	}
 
-	private void handleRequest(ChannelHandlerContext ctx, int index, int archiveId)
+	private ByteBuf getResponse(int index, int archiveId) throws IOException
 	{
-		logger.info("Client {} requests index {} archive {}", ctx.channel().remoteAddress(), index, archiveId);
-
-		Index i = store.findIndex(index);
-		assert i != null;
+		ResponseCache cache = server.getResponseCache();
 
-		Archive archive = i.getArchive(archiveId);
-		assert archive != null;
-
-		byte[] packed;
-		if (archive.getData() != null)
+		if (index != 255)
 		{
-			byte[] data = archive.getData(); // is compressed, includes length and type
-			packed = addHeader(index, archiveId, Arrays.copyOf(data, data.length - 2)); // compressed size includes revision..
+			return cache.getArchive(index, archiveId);
 		}
-		else
+		else if (archiveId == 255)
 		{
-			byte[] data = archive.saveContents();
-			data = compress(archive.getCompression(), data);
-
-			packed = addHeader(index, archiveId, data);
+			return cache.getIndexes();
 		}
-
-		byte[] chunked = chunk(packed);
-
-		ctx.writeAndFlush(Unpooled.wrappedBuffer(chunked));
-	}
-
-	private byte[] compress(int compression, byte[] data)
-	{
-		try
-		{
-			return DataFile.compress(data, compression, -1, null);
-		}
-		catch (IOException ex)
+		else
 		{
-			throw new RuntimeException(ex);
+			return cache.getIndex(archiveId);
 		}
 	}
-
-	/**
-	 * add header to archive
-	 *
-	 * @param index
-	 * @param archive
-	 * @param file compressed archive
-	 * @return
-	 */
-	private byte[] addHeader(int index, int archive, byte[] file)
-	{
-		// archive file header
-		// 1 byte index
-		// 2 byte archive
-
-		ByteBuf buf = Unpooled.buffer();
-		buf.writeByte((byte) index);
-		buf.writeShort((short) archive);
-		buf.writeBytes(file);
-
-		return Arrays.copyOf(buf.array(), buf.readableBytes());
-	}
-
-	/**
-	 * Insert in chunk markers to data
-	 *
-	 * @param in
-	 * @return
-	 */
-	private byte[] chunk(byte[] in)
-	{
-		Chunker chunker = new Chunker(in);
-		return chunker.chunkData();
-	}
-
 }
@@ -75,4 +75,43 @@ public class Chunker
 
 		return Arrays.copyOf(buf.array(), buf.readableBytes());
 	}
+
+	/**
+	 * Get the size of data of the given length once chunked.
+	 *
+	 * @param length
+	 * @return
+	 */
+	public static int chunkedSize(int length)
+	{
+		if (length <= CHUNK_SIZE)
+		{
+			return length;
+		}
+
+		// one marker per started chunk after the first
+		int remaining = length - CHUNK_SIZE;
+		return length + (remaining + CHUNK_SIZE - 2) / (CHUNK_SIZE - 1);
+	}
+
+	/**
+	 * Write the readable bytes of in to out, split into chunks as by
+	 * {@link #chunkData()}.
+	 *
+	 * @param in
+	 * @param out
+	 */
+	public static void chunk(ByteBuf in, ByteBuf out)
+	{
+		int put = Math.min(CHUNK_SIZE, in.readableBytes());
+		out.writeBytes(in, put);
+
+		while (in.isReadable())
+		{
+			out.writeByte(0xff);
+
+			put = Math.min(CHUNK_SIZE - 1, in.readableBytes());
+			out.writeBytes(in, put);
+		}
+	}
 }
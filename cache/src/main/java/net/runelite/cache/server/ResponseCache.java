@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.CompressionType;
+import net.runelite.cache.fs.DataFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.IndexEntry;
+import net.runelite.cache.fs.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of ready to send responses, with the archive header and chunk
+ * markers already in place, held in pooled direct buffers. Responses are
+ * served as retained duplicates, so any number of channels may write the
+ * same response at once without copying it.
+ * <p>
+ * A cached response is used only while the archive or index it was built
+ * from is unchanged - the same object, with the same revision and crc, and
+ * no unsaved changes. {@link #clear()} discards everything.
+ * <p>
+ * The cache is bounded by the total size of the responses. Once it is
+ * full the least recently served responses are evicted and their buffers
+ * released. Lookups don't lock, so the event loops of a server don't
+ * contend with each other for cached responses.
+ */
+public class ResponseCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private static class Entry
+	{
+		private final int key;
+		private final Object owner; // for 255/255, the crc/revision table it was built from
+		private final int revision;
+		private final int crc;
+		private final ByteBuf response;
+		private final int size;
+
+		private volatile long lastUsed = System.nanoTime();
+
+		private Entry(int key, Object owner, int revision, int crc, ByteBuf response)
+		{
+			this.key = key;
+			this.owner = owner;
+			this.revision = revision;
+			this.crc = crc;
+			this.response = response;
+			this.size = response.capacity();
+		}
+
+		private boolean isValid(Object owner, int revision, int crc)
+		{
+			return this.owner == owner && this.revision == revision && this.crc == crc;
+		}
+	}
+
+	private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+	private final Store store;
+	private final long maxSize;
+	private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong size = new AtomicLong();
+
+	public ResponseCache(Store store)
+	{
+		this(store, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param store
+	 * @param maxSize maximum total size, in bytes, of the cached responses
+	 */
+	public ResponseCache(Store store, long maxSize)
+	{
+		this.store = store;
+		this.maxSize = maxSize;
+	}
+
+	private static int key(int index, int archiveId)
+	{
+		return (index << 16) | archiveId;
+	}
+
+	/**
+	 * Get the response for an archive. The caller is responsible for
+	 * releasing the returned buffer, which writing it to a channel does.
+	 *
+	 * @param index
+	 * @param archiveId
+	 * @return
+	 * @throws IOException
+	 */
+	public ByteBuf getArchive(int index, int archiveId) throws IOException
+	{
+		Index i = store.findIndex(index);
+		assert i != null;
+
+		Archive archive = i.getArchive(archiveId);
+		assert archive != null;
+
+		if (archive.isDirty())
+		{
+			// in memory contents differ from the data file, don't cache
+			return buildArchive(index, archive);
+		}
+
+		int key = key(index, archiveId);
+		ByteBuf response = get(key, archive, archive.getRevision(), archive.getCrc());
+		if (response != null)
+		{
+			return response;
+		}
+
+		response = buildArchive(index, archive);
+		return put(new Entry(key, archive, archive.getRevision(), archive.getCrc(), response));
+	}
+
+	/**
+	 * Get the response for the reference table of an index.
+	 *
+	 * @param indexId
+	 * @return
+	 */
+	public ByteBuf getIndex(int indexId)
+	{
+		Index i = store.findIndex(indexId);
+		assert i != null;
+
+		if (i.isDirty())
+		{
+			return build(255, indexId, compress(i.writeIndexData()));
+		}
+
+		int key = key(255, indexId);
+		ByteBuf response = get(key, i, i.getRevision(), i.getCrc());
+		if (response != null)
+		{
+			return response;
+		}
+
+		response = build(255, indexId, compress(i.writeIndexData()));
+		return put(new Entry(key, i, i.getRevision(), i.getCrc(), response));
+	}
+
+	/**
+	 * Get the response for index 255 archive 255, the crc and revision of
+	 * each index.
+	 *
+	 * @return
+	 */
+	public ByteBuf getIndexes()
+	{
+		// 4 byte crc
+		// 4 byte revision
+		ByteBuf buffer = Unpooled.buffer(store.getIndexes().size() * 8);
+		for (Index i : store.getIndexes())
+		{
+			buffer.writeInt(i.getCrc());
+			buffer.writeInt(i.getRevision());
+		}
+		byte[] data = Arrays.copyOf(buffer.array(), buffer.readableBytes());
+
+		int key = key(255, 255);
+		Entry entry = entries.get(key);
+		if (entry != null && Arrays.equals(data, (byte[]) entry.owner))
+		{
+			ByteBuf response = retain(entry);
+			if (response != null)
+			{
+				return response;
+			}
+		}
+
+		ByteBuf response = build(255, 255, compress(data));
+		return put(new Entry(key, data, 0, 0, response));
+	}
+
+	private ByteBuf get(int key, Object owner, int revision, int crc)
+	{
+		Entry entry = entries.get(key);
+		if (entry == null || !entry.isValid(owner, revision, crc))
+		{
+			return null;
+		}
+
+		return retain(entry);
+	}
+
+	/**
+	 * @return a retained duplicate of the response, or null if the entry
+	 * has been evicted and its response released
+	 */
+	private static ByteBuf retain(Entry entry)
+	{
+		try
+		{
+			ByteBuf response = entry.response.retainedDuplicate();
+			entry.lastUsed = System.nanoTime();
+			return response;
+		}
+		catch (IllegalReferenceCountException ex)
+		{
+			return null;
+		}
+	}
+
+	private ByteBuf put(Entry entry)
+	{
+		// retained before the entry is visible, so it can't be evicted first
+		ByteBuf response = entry.response.retainedDuplicate();
+
+		Entry old = entries.put(entry.key, entry);
+		size.addAndGet(entry.size);
+		if (old != null)
+		{
+			size.addAndGet(-old.size);
+			old.response.release();
+		}
+
+		if (size.get() > maxSize)
+		{
+			evict();
+		}
+
+		return response;
+	}
+
+	/**
+	 * Evict the least recently served responses until the cache is back
+	 * under three quarters of its maximum size, so eviction runs only
+	 * once in a while.
+	 */
+	private synchronized void evict()
+	{
+		if (size.get() <= maxSize)
+		{
+			return; // another thread evicted first
+		}
+
+		List<Entry> lru = new ArrayList<>(entries.values());
+		lru.sort(Comparator.comparingLong(e -> e.lastUsed));
+
+		long target = maxSize / 4 * 3;
+		for (Entry entry : lru)
+		{
+			if (size.get() <= target)
+			{
+				break;
+			}
+
+			remove(entry);
+		}
+	}
+
+	private void remove(Entry entry)
+	{
+		if (entries.remove(entry.key, entry))
+		{
+			size.addAndGet(-entry.size);
+			entry.response.release();
+		}
+	}
+
+	/**
+	 * Release all cached responses.
+	 */
+	public void clear()
+	{
+		for (Entry entry : entries.values())
+		{
+			remove(entry);
+		}
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return the total size, in bytes, of the cached responses
+	 */
+	public long getSize()
+	{
+		return size.get();
+	}
+
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+
+	private ByteBuf buildArchive(int index, Archive archive) throws IOException
+	{
+		byte[] data = archive.getData(); // is compressed, includes length and type
+		if (data == null && !archive.isDirty())
+		{
+			// the data file has the compressed archive, read it rather than recompressing
+			IndexEntry entry = archive.getIndex().getIndex().read(archive.getArchiveId());
+			if (entry != null)
+			{
+				data = store.getData().read(index, archive.getArchiveId(), entry.getSector(), entry.getLength());
+			}
+		}
+
+		if (data != null)
+		{
+			// compressed data may include a trailing revision, which isn't sent
+			return build(index, archive.getArchiveId(), Unpooled.wrappedBuffer(data, 0, compressedLength(data)));
+		}
+
+		logger.debug("Recompressing archive {}/{}", index, archive.getArchiveId());
+
+		byte[] contents = archive.saveContents();
+		return build(index, archive.getArchiveId(), Unpooled.wrappedBuffer(DataFile.compress(contents, archive.getCompression(), -1, null)));
+	}
+
+	/**
+	 * Get the length of compressed data excluding the optional revision.
+	 *
+	 * @param data
+	 * @return
+	 */
+	private static int compressedLength(byte[] data)
+	{
+		int compression = data[0] & 0xFF;
+		int length = ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+		return 5 + (compression != CompressionType.NONE ? 4 : 0) + length;
+	}
+
+	private static ByteBuf compress(byte[] data)
+	{
+		try
+		{
+			return Unpooled.wrappedBuffer(DataFile.compress(data, CompressionType.NONE, -1, null));
+		}
+		catch (IOException ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Build a response, the archive header followed by the compressed
+	 * archive, split into chunks.
+	 *
+	 * @param index
+	 * @param archiveId
+	 * @param compressed
+	 * @return
+	 */
+	private ByteBuf build(int index, int archiveId, ByteBuf compressed)
+	{
+		// archive file header
+		// 1 byte index
+		// 2 byte archive
+		ByteBuf header = Unpooled.buffer(3);
+		header.writeByte(index);
+		header.writeShort(archiveId);
+
+		ByteBuf packed = Unpooled.wrappedBuffer(header, compressed);
+		ByteBuf response = allocator.directBuffer(Chunker.chunkedSize(packed.readableBytes()));
+		Chunker.chunk(packed, response);
+		packed.release();
+		return response;
+	}
+}
@@ -29,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -68,19 +69,51 @@ public class BZip2
 
 	public static byte[] decompress(byte[] bytes, int len) throws IOException
 	{
-		byte[] data = new byte[len + BZIP_HEADER.length];
-
-		// add header
-		System.arraycopy(BZIP_HEADER, 0, data, 0, BZIP_HEADER.length);
-		System.arraycopy(bytes, 0, data, BZIP_HEADER.length, len);
-
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
 
-		try (InputStream is = new BZip2CompressorInputStream(new ByteArrayInputStream(data)))
+		try (InputStream is = new BZip2CompressorInputStream(withHeader(bytes, 0, len)))
 		{
 			IOUtils.copy(is, os);
 		}
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress data of a known decompressed length directly into an
+	 * array of that size.
+	 *
+	 * @param bytes compressed data, without the bzip2 header
+	 * @param offset
+	 * @param len length of the compressed data
+	 * @param decompressedLength
+	 * @return
+	 * @throws IOException if the data does not decompress to exactly
+	 * decompressedLength bytes
+	 */
+	public static byte[] decompress(byte[] bytes, int offset, int len, int decompressedLength) throws IOException
+	{
+		try (InputStream is = new BZip2CompressorInputStream(withHeader(bytes, offset, len)))
+		{
+			// the stream header has been read, so this is at least bzip2 data
+			byte[] out = new byte[decompressedLength];
+
+			int read = IOUtils.readFully(is, out);
+			if (read != decompressedLength || is.read() != -1)
+			{
+				throw new IOException("decompressed length mismatch, expected " + decompressedLength);
+			}
+
+			return out;
+		}
+	}
+
+	/**
+	 * The header is not stored with the data, so supply it ahead of the
+	 * data rather than copying the data after it.
+	 */
+	private static InputStream withHeader(byte[] bytes, int offset, int len)
+	{
+		return new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER), new ByteArrayInputStream(bytes, offset, len));
+	}
 }
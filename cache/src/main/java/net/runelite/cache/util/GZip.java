@@ -30,8 +30,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +43,15 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	// gzip header flags
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	// inflaters hold native state which is costly to create per archive
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -64,4 +76,116 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress data of a known decompressed length directly into an
+	 * array of that size, using an inflater kept for the current thread.
+	 *
+	 * @param bytes gzip data
+	 * @param offset
+	 * @param len length of the gzip data
+	 * @param decompressedLength
+	 * @return
+	 * @throws IOException if the data is not valid gzip data, or does not
+	 * decompress to exactly decompressedLength bytes
+	 */
+	public static byte[] decompress(byte[] bytes, int offset, int len, int decompressedLength) throws IOException
+	{
+		int end = offset + len;
+		int pos = skipHeader(bytes, offset, end);
+
+		byte[] out = new byte[decompressedLength];
+
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(bytes, pos, end - pos);
+
+		try
+		{
+			int read = 0;
+			while (read < out.length)
+			{
+				int n = inflater.inflate(out, read, out.length - read);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IOException("decompressed length mismatch, expected " + decompressedLength + ", got " + read);
+				}
+				read += n;
+			}
+
+			// consume the end of the final block, which must not produce more data
+			if (!inflater.finished() && (inflater.inflate(new byte[1]) != 0 || !inflater.finished()))
+			{
+				throw new IOException("decompressed data is longer than " + decompressedLength);
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new IOException(ex);
+		}
+
+		// trailer: crc32 and size of the uncompressed data, little endian
+		pos = end - inflater.getRemaining();
+		if (end - pos < 8)
+		{
+			throw new IOException("truncated gzip trailer");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(out, 0, out.length);
+
+		if (readIntLE(bytes, pos) != (int) crc.getValue() || readIntLE(bytes, pos + 4) != decompressedLength)
+		{
+			throw new IOException("gzip trailer mismatch");
+		}
+
+		return out;
+	}
+
+	/**
+	 * @return the offset of the deflate data following the gzip header
+	 */
+	private static int skipHeader(byte[] bytes, int pos, int end) throws IOException
+	{
+		if (end - pos < 10 || (bytes[pos] & 0xFF) != 0x1F || (bytes[pos + 1] & 0xFF) != 0x8B)
+		{
+			throw new IOException("Not in GZIP format");
+		}
+
+		if (bytes[pos + 2] != 8)
+		{
+			throw new IOException("Unsupported compression method");
+		}
+
+		int flags = bytes[pos + 3] & 0xFF;
+		pos += 10; // magic, method, flags, mtime, extra flags, os
+
+		if ((flags & FEXTRA) != 0 && pos + 2 <= end)
+		{
+			pos += 2 + ((bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8);
+		}
+		if ((flags & FNAME) != 0)
+		{
+			while (pos < end && bytes[pos++] != 0);
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			while (pos < end && bytes[pos++] != 0);
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+
+		if (pos > end)
+		{
+			throw new IOException("truncated gzip header");
+		}
+		return pos;
+	}
+
+	private static int readIntLE(byte[] bytes, int pos)
+	{
+		return (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8 | (bytes[pos + 2] & 0xFF) << 16 | (bytes[pos + 3] & 0xFF) << 24;
+	}
 }
@@ -31,25 +31,33 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 public class Whirlpool
 {
-	private static MessageDigest messageDigest;
-
-	static
+	// digests are not thread safe, so each thread hashes with its own
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() ->
 	{
-		Security.addProvider(new BouncyCastleProvider());
-
 		try
 		{
-			messageDigest = MessageDigest.getInstance("Whirlpool");
+			return MessageDigest.getInstance("Whirlpool");
 		}
 		catch (NoSuchAlgorithmException ex)
 		{
 			throw new RuntimeException(ex);
 		}
+	});
+
+	static
+	{
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	public static byte[] getHash(byte[] data, int len)
+	{
+		return getHash(data, 0, len);
 	}
 
-	public static synchronized byte[] getHash(byte[] data, int len)
+	public static byte[] getHash(byte[] data, int offset, int len)
 	{
-		messageDigest.update(data, 0, len);
+		MessageDigest messageDigest = DIGEST.get();
+		messageDigest.update(data, offset, len);
 		return messageDigest.digest();
 	}
 }
@@ -25,78 +25,135 @@
 
 package net.runelite.cache.util;
 
-import java.nio.ByteBuffer;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.Security;
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.spec.SecretKeySpec;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.util.Arrays;
-
+/**
+ * XTEA in ECB mode with 32 cycles, as used to encrypt map data. Data is
+ * processed in 8 byte blocks, and any trailing bytes which do not make
+ * up a whole block are left unencrypted.
+ */
 public class Xtea
 {
-	static
-	{
-		Security.addProvider(new BouncyCastleProvider());
-	}
-	
-	private final Cipher cipher;
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+	private static final int ROUNDS = 32;
+
 	private final int[] keys;
 
-	public Xtea(int[] keys) throws NoSuchAlgorithmException, NoSuchPaddingException
+	public Xtea(int[] keys)
 	{
-		this.cipher = Cipher.getInstance("XTEA/ECB/NoPadding");
 		this.keys = keys;
 	}
 
-	private static byte[] packKey(int[] key)
+	/**
+	 * Encrypt data into a new array.
+	 *
+	 * @param data
+	 * @param len
+	 * @return
+	 */
+	public byte[] encrypt(byte[] data, int len)
 	{
-		ByteBuffer buffer = ByteBuffer.allocate(4 * key.length);
-		for (int i : key)
-			buffer.putInt(i);
-		return buffer.array();
+		byte[] out = new byte[len];
+		System.arraycopy(data, 0, out, 0, len);
+		encrypt(out, 0, len);
+		return out;
 	}
 
-	public byte[] encrypt(byte[] data, int len) throws InvalidKeyException, IllegalBlockSizeException, BadPaddingException
+	/**
+	 * Decrypt data into a new array.
+	 *
+	 * @param data
+	 * @param len
+	 * @return
+	 */
+	public byte[] decrypt(byte[] data, int len)
 	{
-		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(packKey(keys), cipher.getAlgorithm()));
-		byte[] out = cipher.update(data, 0, len - (len % cipher.getBlockSize()));
-		cipher.doFinal();
+		byte[] out = new byte[len];
+		decrypt(data, 0, len, out, 0);
+		return out;
+	}
 
-		// add remaining data, which is not encrypted
-		if (out.length != len)
+	/**
+	 * Encrypt data in place.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param len
+	 */
+	public void encrypt(byte[] data, int offset, int len)
+	{
+		int end = offset + (len & ~7);
+		for (int pos = offset; pos < end; pos += 8)
 		{
-			assert len > out.length;
-			
-			byte[] padded = Arrays.copyOf(out, len);
-			System.arraycopy(data, out.length, padded, out.length, len - out.length);
-
-			out = padded;
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
+			int sum = 0;
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + keys[sum & 3]);
+				sum += GOLDEN_RATIO;
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + keys[(sum >>> 11) & 3]);
+			}
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
 		}
-
-		return out;
 	}
 
-	public byte[] decrypt(byte[] data, int len) throws InvalidKeyException, IllegalBlockSizeException, BadPaddingException
+	/**
+	 * Decrypt data in place.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param len
+	 */
+	public void decrypt(byte[] data, int offset, int len)
 	{
-		cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(packKey(keys), cipher.getAlgorithm()));
-		byte[] out = cipher.update(data, 0, len - (len % cipher.getBlockSize()));
-		cipher.doFinal();
+		decrypt(data, offset, len, data, offset);
+	}
 
-		if (out.length != len)
+	/**
+	 * Decrypt data into a caller supplied buffer, which may be the input.
+	 *
+	 * @param in
+	 * @param inOffset
+	 * @param len
+	 * @param out
+	 * @param outOffset
+	 */
+	public void decrypt(byte[] in, int inOffset, int len, byte[] out, int outOffset)
+	{
+		int blocks = len >>> 3;
+		for (int block = 0; block < blocks; ++block)
 		{
-			assert len > out.length;
-
-			byte[] padded = Arrays.copyOf(out, len);
-			System.arraycopy(data, out.length, padded, out.length, len - out.length);
+			int v0 = getInt(in, inOffset + block * 8);
+			int v1 = getInt(in, inOffset + block * 8 + 4);
+			int sum = GOLDEN_RATIO * ROUNDS;
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + keys[(sum >>> 11) & 3]);
+				sum -= GOLDEN_RATIO;
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + keys[sum & 3]);
+			}
+			putInt(out, outOffset + block * 8, v0);
+			putInt(out, outOffset + block * 8 + 4, v1);
+		}
 
-			out = padded;
+		// remaining data, which is not encrypted
+		int done = blocks << 3;
+		if (in != out || inOffset != outOffset)
+		{
+			System.arraycopy(in, inOffset + done, out, outOffset + done, len - done);
 		}
+	}
 
-		return out;
+	private static int getInt(byte[] b, int pos)
+	{
+		return (b[pos] & 0xFF) << 24 | (b[pos + 1] & 0xFF) << 16 | (b[pos + 2] & 0xFF) << 8 | (b[pos + 3] & 0xFF);
+	}
+
+	private static void putInt(byte[] b, int pos, int value)
+	{
+		b[pos] = (byte) (value >>> 24);
+		b[pos + 1] = (byte) (value >>> 16);
+		b[pos + 2] = (byte) (value >>> 8);
+		b[pos + 3] = (byte) value;
 	}
 }
@@ -25,51 +25,263 @@
 
 package net.runelite.cache.util;
 
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Properties;
-import java.util.stream.Stream;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class XteaKeyManager
 {
 	private static final Logger logger = LoggerFactory.getLogger(XteaKeyManager.class);
-	
-	private final Map<Integer, Integer[]> keys = new HashMap<>();
 
+	private static final int BINARY_MAGIC = 0x58544541; // XTEA
+
+	private final IntHashMap<int[]> keys = new IntHashMap<>();
+
+	/**
+	 * Load the bundled keys.
+	 *
+	 * @throws IOException
+	 */
 	public void loadKeys() throws IOException
 	{
-		Properties properties = new Properties();
-		properties.load(XteaKeyManager.class.getResourceAsStream("/keys.properties"));
+		try (InputStream in = XteaKeyManager.class.getResourceAsStream("/keys.properties"))
+		{
+			loadProperties(in);
+		}
+
+		logger.info("Loaded {} keys", keys.size());
+	}
+
+	/**
+	 * Load keys from lines of region=key1,key2,key3,key4. Blank lines and
+	 * lines starting with # are ignored.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void loadProperties(InputStream in) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
 
-		for (Object key : properties.keySet())
+		String line;
+		while ((line = reader.readLine()) != null)
 		{
-			int region = Integer.parseInt((String) key);
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#')
+			{
+				continue;
+			}
+
+			int eq = line.indexOf('=');
+			if (eq == -1)
+			{
+				throw new IOException("malformed key line: " + line);
+			}
 
-			String[] values = properties.getProperty((String) key).split(",");
+			int[] k = new int[4];
+			int start = eq + 1;
+			for (int i = 0; i < 4; ++i)
+			{
+				int end = i < 3 ? line.indexOf(',', start) : line.length();
+				if (end == -1)
+				{
+					throw new IOException("malformed key line: " + line);
+				}
 
-			assert values.length == 4;
+				k[i] = Integer.parseInt(line.substring(start, end).trim());
+				start = end + 1;
+			}
+
+			keys.put(Integer.parseInt(line.substring(0, eq).trim()), k);
+		}
+	}
 
-			Integer[] k = (Integer[]) Stream.of(values)
-				.map(i -> Integer.parseInt(i))
-				.toArray(Integer[]::new);
+	/**
+	 * Load keys in the format written by {@link #saveBinary(OutputStream)}.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void loadBinary(InputStream in) throws IOException
+	{
+		DataInputStream din = new DataInputStream(in);
+
+		if (din.readInt() != BINARY_MAGIC)
+		{
+			throw new IOException("not an xtea key file");
+		}
+
+		int count = din.readInt();
+		for (int i = 0; i < count; ++i)
+		{
+			int region = din.readInt();
+			int[] k = new int[4];
+			for (int j = 0; j < 4; ++j)
+			{
+				k[j] = din.readInt();
+			}
 
 			keys.put(region, k);
 		}
+	}
 
-		logger.info("Loaded {} keys", keys.size());
+	/**
+	 * Write the keys as a magic number and count, followed by the region id
+	 * and four keys of each region, all as big endian ints.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void saveBinary(OutputStream out) throws IOException
+	{
+		// sorted, so that the same keys always produce the same file
+		int[] regions = keys.keys();
+		Arrays.sort(regions);
+
+		DataOutputStream dout = new DataOutputStream(out);
+		dout.writeInt(BINARY_MAGIC);
+		dout.writeInt(regions.length);
+
+		for (int region : regions)
+		{
+			dout.writeInt(region);
+			for (int k : keys.get(region))
+			{
+				dout.writeInt(k);
+			}
+		}
+
+		dout.flush();
 	}
 
+	/**
+	 * Load keys from the json returned by the xtea endpoint of the http
+	 * service, a list of objects with a region and an array of keys. An
+	 * empty or null document has no keys.
+	 *
+	 * @param reader
+	 */
+	public void loadJson(Reader reader)
+	{
+		JsonKey[] json = new Gson().fromJson(reader, JsonKey[].class);
+		if (json == null)
+		{
+			return; // empty document, or null
+		}
+
+		for (JsonKey key : json)
+		{
+			if (key == null)
+			{
+				continue;
+			}
+
+			if (key.keys == null || key.keys.length != 4)
+			{
+				logger.warn("Ignoring malformed keys for region {}", key.region);
+				continue;
+			}
+
+			keys.put(key.region, key.keys);
+		}
+	}
+
+	/**
+	 * Load the keys for a revision from a directory of json files named by
+	 * revision, such as 142.json. The files of earlier revisions are loaded
+	 * first, so a region whose keys are not known for the revision uses
+	 * the most recent keys known for it.
+	 *
+	 * @param dir
+	 * @param revision
+	 * @throws IOException
+	 */
+	public void loadRevisions(File dir, int revision) throws IOException
+	{
+		File[] files = dir.listFiles();
+		if (files == null)
+		{
+			throw new IOException("unable to list " + dir);
+		}
+
+		Map<Integer, File> revisions = new TreeMap<>();
+		for (File file : files)
+		{
+			String name = file.getName();
+			if (!name.endsWith(".json"))
+			{
+				continue;
+			}
+
+			try
+			{
+				int rev = Integer.parseInt(name.substring(0, name.length() - 5));
+				if (rev <= revision)
+				{
+					revisions.put(rev, file);
+				}
+			}
+			catch (NumberFormatException ex)
+			{
+				logger.debug("Skipping {}", file);
+			}
+		}
+
+		for (File file : revisions.values())
+		{
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+			{
+				loadJson(reader);
+			}
+		}
+
+		logger.info("Loaded {} keys from {} revisions", keys.size(), revisions.size());
+	}
+
+	/**
+	 * Get the keys of a region. The returned array is shared and must not
+	 * be modified.
+	 *
+	 * @param region
+	 * @return the keys, or null if they are not known
+	 */
 	public int[] getKeys(int region)
 	{
-		Integer[] k = keys.get(region);
-		if (k == null)
-			return null;
+		return keys.get(region);
+	}
 
-		return Stream.of(k)
-			.mapToInt(Integer::intValue)
-			.toArray();
+	public void setKeys(int region, int[] k)
+	{
+		if (k.length != 4)
+		{
+			throw new IllegalArgumentException("xtea keys must be 4 ints");
+		}
+
+		keys.put(region, k.clone());
+	}
+
+	public int size()
+	{
+		return keys.size();
+	}
+
+	private static class JsonKey
+	{
+		int region;
+		int[] keys;
 	}
 }
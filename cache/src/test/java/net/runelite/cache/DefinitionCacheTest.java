@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.stream.IntStream;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefinitionCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testItems() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			for (int i = 0; i < IndexType.CONFIGS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index index = store.addIndex(IndexType.CONFIGS.getNumber());
+			Archive archive = index.addArchive(ConfigType.ITEM.getId());
+			addItem(archive, 0, "Dwarf remains");
+			addItem(archive, 1, "Toolkit");
+			addItem(archive, 5, "Cannonball");
+
+			store.save();
+		}
+
+		try (Store store = new Store(folder.getRoot()))
+		{
+			store.load();
+
+			DefinitionCache cache = new DefinitionCache(store);
+
+			ItemDefinition item = cache.getItem(5);
+			Assert.assertEquals("Cannonball", item.name);
+			Assert.assertSame(item, cache.getItem(5));
+
+			Assert.assertNull(cache.getItem(3));
+			Assert.assertNull(cache.getItem(6));
+			Assert.assertNull(cache.getItem(-1));
+
+			List<String> names = new ArrayList<>();
+			for (ItemDefinition def : cache.getItems())
+			{
+				names.add(def.name);
+			}
+			Assert.assertEquals(3, names.size());
+			Assert.assertEquals("Toolkit", names.get(1));
+
+			// concurrent lookups all see the same definition
+			Set<ItemDefinition> seen = ConcurrentHashMap.newKeySet();
+			IntStream.range(0, 100).parallel().forEach(i -> seen.add(cache.getItem(1)));
+			Assert.assertEquals(1, seen.size());
+
+			// managers given the cache share its definitions
+			ItemManager manager = new ItemManager(cache);
+			manager.load();
+			Assert.assertSame(item, manager.getItems().get(2));
+
+			// otherwise they have their own
+			manager = new ItemManager(store);
+			manager.load();
+			Assert.assertNotSame(item, manager.getItems().get(2));
+
+			cache.clear();
+			Assert.assertNotSame(item, cache.getItem(5));
+
+			// archives which do not exist have no definitions
+			Assert.assertNull(cache.getNpc(0));
+			Assert.assertTrue(cache.getObjects().isEmpty());
+			Assert.assertNull(cache.getTexture(0));
+		}
+	}
+
+	@Test
+	public void testSoft() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			for (int i = 0; i < IndexType.CONFIGS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index index = store.addIndex(IndexType.CONFIGS.getNumber());
+			Archive archive = index.addArchive(ConfigType.ITEM.getId());
+			addItem(archive, 0, "Dwarf remains");
+
+			store.save();
+		}
+
+		try (Store store = new Store(folder.getRoot()))
+		{
+			store.load();
+
+			DefinitionCache cache = new DefinitionCache(store, true);
+			Assert.assertTrue(cache.isSoft());
+			Assert.assertEquals("Dwarf remains", cache.getItem(0).name);
+			Assert.assertEquals(1, cache.getItems().size());
+		}
+	}
+
+	@Test
+	public void testSnapshot() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			for (int i = 0; i < IndexType.CONFIGS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index index = store.addIndex(IndexType.CONFIGS.getNumber());
+			Archive archive = index.addArchive(ConfigType.ITEM.getId());
+			addItem(archive, 0, "Dwarf remains");
+			addItem(archive, 5, "Cannonball");
+
+			store.save();
+		}
+
+		java.io.File snapshots = folder.newFolder();
+
+		try (Store store = new Store(folder.getRoot()))
+		{
+			store.load();
+
+			// the first use makes the snapshot
+			DefinitionCache cache = new DefinitionCache(store);
+			cache.setSnapshotDirectory(snapshots);
+			Assert.assertEquals("Cannonball", cache.getItem(5).name);
+			Assert.assertEquals(1, snapshots.list().length);
+
+			// which is then read instead of the archive
+			cache = new DefinitionCache(store);
+			cache.setSnapshotDirectory(snapshots);
+			Assert.assertEquals("Cannonball", cache.getItem(5).name);
+			Assert.assertNull(cache.getItem(1));
+			Assert.assertEquals(2, cache.getItems().size());
+
+			// changing the archive remakes it
+			Archive archive = store.getIndex(IndexType.CONFIGS).getArchive(ConfigType.ITEM.getId());
+			addItem(archive, 6, "Ball of wool");
+			store.save();
+
+			cache = new DefinitionCache(store);
+			cache.setSnapshotDirectory(snapshots);
+			Assert.assertEquals("Ball of wool", cache.getItem(6).name);
+			Assert.assertEquals(1, snapshots.list().length);
+
+			cache = new DefinitionCache(store);
+			cache.setSnapshotDirectory(snapshots);
+			Assert.assertEquals(3, cache.getItems().size());
+		}
+	}
+
+	private static void addItem(Archive archive, int id, String name)
+	{
+		byte[] b = new byte[name.length() + 3];
+		b[0] = 2; // name
+		for (int i = 0; i < name.length(); ++i)
+		{
+			b[i + 1] = (byte) name.charAt(i);
+		}
+		// string terminator and end of definition are both 0
+
+		archive.addFile(id).setContents(b);
+	}
+}
@@ -67,4 +67,22 @@ public class MapImageDumperTest
 			}
 		}
 	}
+
+	@Test
+	public void extractTiles() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			MapImageDumper dumper = new MapImageDumper(store);
+			dumper.load();
+
+			dumper.drawTiles(0, 256, outDir);
+			logger.info("Wrote tiles to {}", outDir);
+		}
+	}
 }
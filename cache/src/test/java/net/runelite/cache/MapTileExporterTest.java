@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.Set;
+import net.runelite.cache.MapTileExporter.Manifest;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Djb2;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapTileExporterTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testChangedRegions() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			Index index = store.addIndex(IndexType.MAPS.getNumber());
+			addRegion(index, 50, 50, 0);
+			addRegion(index, 50, 51, 2);
+			addRegion(index, 51, 50, 4);
+			store.save();
+
+			Manifest first = MapTileExporter.buildManifest(index);
+			Assert.assertEquals(3, first.regions.size());
+
+			// nothing exported yet
+			Assert.assertEquals(3, MapTileExporter.changedRegions(null, first).size());
+			Assert.assertTrue(MapTileExporter.changedRegions(first, first).isEmpty());
+
+			// modify one region and remove another, by renaming its archives
+			index.findArchiveByName("m50_51").getFiles().get(0).setContents(new byte[] { 42 });
+			index.findArchiveByName("m51_50").setNameHash(Djb2.hash("removed_m"));
+			index.findArchiveByName("l51_50").setNameHash(Djb2.hash("removed_l"));
+			store.save();
+
+			Manifest second = MapTileExporter.buildManifest(index);
+			Assert.assertEquals(2, second.regions.size());
+
+			Set<Integer> changed = MapTileExporter.changedRegions(first, second);
+			Assert.assertEquals(2, changed.size());
+			Assert.assertTrue(changed.contains(50 << 8 | 51));
+			Assert.assertTrue(changed.contains(51 << 8 | 50));
+		}
+	}
+
+	@Test
+	public void testGetTiles()
+	{
+		MapTileExporter exporter = new MapTileExporter(null);
+
+		// a region is 128px, so two fit in a tile. This region is in the
+		// south west corner of tile 25,102, and its icons may overlap the
+		// neighbouring tiles
+		Set<Integer> tiles = exporter.getTiles(50 << 8 | 50);
+		Assert.assertEquals(4, tiles.size());
+		Assert.assertTrue(tiles.contains(24 << 16 | 102));
+		Assert.assertTrue(tiles.contains(25 << 16 | 102));
+		Assert.assertTrue(tiles.contains(24 << 16 | 103));
+		Assert.assertTrue(tiles.contains(25 << 16 | 103));
+
+		exporter.setTileSize(1024);
+		Assert.assertEquals(1, exporter.getTiles(50 << 8 | 50).size());
+	}
+
+	private static void addRegion(Index index, int x, int y, int id)
+	{
+		Archive map = index.addArchive(id);
+		map.setNameHash(Djb2.hash("m" + x + "_" + y));
+		map.addFile(0).setContents(new byte[] { 1 });
+
+		Archive land = index.addArchive(id + 1);
+		land.setNameHash(Djb2.hash("l" + x + "_" + y));
+		land.addFile(0).setContents(new byte[] { 2 });
+	}
+}
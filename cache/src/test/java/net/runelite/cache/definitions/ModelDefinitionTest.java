@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions;
+
+import net.runelite.cache.models.Vector3f;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModelDefinitionTest
+{
+	@Test
+	public void testComputeNormals()
+	{
+		ModelDefinition model = square();
+		model.computeNormals();
+
+		// both faces lie in the x-y plane, so every normal is along z
+		for (int i = 0; i < model.vertexCount; ++i)
+		{
+			Assert.assertEquals(0, model.vertexNormalsX[i]);
+			Assert.assertEquals(0, model.vertexNormalsY[i]);
+			Assert.assertNotEquals(0, model.vertexNormalsZ[i]);
+		}
+
+		// vertices 0 and 2 are shared by both faces
+		Assert.assertEquals(2, model.vertexNormalsMagnitude[0]);
+		Assert.assertEquals(1, model.vertexNormalsMagnitude[1]);
+		Assert.assertEquals(2 * model.vertexNormalsZ[1], model.vertexNormalsZ[2]);
+		Assert.assertNull(model.faceNormalsX);
+
+		Vector3f normal = model.getVertexNormal(0);
+		Assert.assertEquals(1f, Math.abs(normal.z), 0f);
+	}
+
+	@Test
+	public void testFaceNormals()
+	{
+		ModelDefinition model = square();
+		model.faceRenderTypes = new byte[] { 0, 1 };
+		model.computeNormals();
+
+		Assert.assertEquals(1, model.vertexNormalsMagnitude[0]);
+		Assert.assertEquals(0, model.vertexNormalsMagnitude[3]);
+		Assert.assertEquals(0, model.faceNormalsZ[0]);
+		Assert.assertEquals(model.vertexNormalsZ[1], model.faceNormalsZ[1]);
+	}
+
+	@Test
+	public void testComputeTextureUVCoordinates()
+	{
+		ModelDefinition model = square();
+		model.computeTextureUVCoordinates();
+		Assert.assertNull(model.faceTextureUCoordinates);
+
+		model.faceTextures = new short[] { 5, 5 };
+		model.computeTextureUVCoordinates();
+
+		// faces without texture coordinates use the default mapping
+		Assert.assertArrayEquals(new float[] { 0f, 1f, 0f, 0f, 1f, 0f }, model.faceTextureUCoordinates, 0f);
+		Assert.assertArrayEquals(new float[] { 1f, 1f, 0f, 1f, 1f, 0f }, model.faceTextureVCoordinates, 0f);
+	}
+
+	private static ModelDefinition square()
+	{
+		ModelDefinition model = new ModelDefinition();
+		model.vertexCount = 4;
+		model.vertexPositionsX = new int[] { 0, 128, 128, 0 };
+		model.vertexPositionsY = new int[] { 0, 0, 128, 128 };
+		model.vertexPositionsZ = new int[] { 0, 0, 0, 0 };
+		model.faceCount = 2;
+		model.faceVertexIndices1 = new int[] { 0, 0 };
+		model.faceVertexIndices2 = new int[] { 1, 2 };
+		model.faceVertexIndices3 = new int[] { 2, 3 };
+		return model;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.exporters;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.definitions.ItemDefinition;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JsonExporterTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Gson gson = new Gson();
+
+	@Test
+	public void testExportFiles() throws IOException
+	{
+		List<ItemDefinition> items = items(50);
+
+		File outDir = new File(folder.getRoot(), "items");
+		JsonExporter.export(items, outDir, def -> def.id);
+
+		Assert.assertEquals(50, outDir.list().length);
+
+		String json = new String(Files.readAllBytes(new File(outDir, "7.json").toPath()), StandardCharsets.UTF_8);
+		Assert.assertEquals(new ItemExporter(items.get(7)).export(), json);
+		Assert.assertEquals("Item 7", gson.fromJson(json, ItemDefinition.class).name);
+	}
+
+	@Test
+	public void testExportLines() throws IOException
+	{
+		List<ItemDefinition> items = items(50);
+
+		File file = folder.newFile("items.ndjson");
+		JsonExporter.export(items, file, JsonExporter.Format.NDJSON);
+
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		Assert.assertEquals(50, lines.size());
+		for (int i = 0; i < lines.size(); ++i)
+		{
+			Assert.assertEquals(i, gson.fromJson(lines.get(i), ItemDefinition.class).id);
+		}
+	}
+
+	@Test
+	public void testExportArray() throws IOException
+	{
+		List<ItemDefinition> items = items(3);
+
+		File file = folder.newFile("items.json");
+		JsonExporter.export(items, file, JsonExporter.Format.ARRAY);
+
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		ItemDefinition[] read = gson.fromJson(json, ItemDefinition[].class);
+		Assert.assertEquals(3, read.length);
+		Assert.assertEquals("Item 2", read[2].name);
+	}
+
+	private static List<ItemDefinition> items(int count)
+	{
+		List<ItemDefinition> items = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+		{
+			ItemDefinition def = new ItemDefinition(i);
+			def.name = "Item " + i;
+			items.add(def);
+		}
+		return items;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.loaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.io.OutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures decoding the item, npc and object definitions.
+ * <p>
+ * By default a corpus of generated definitions is used. Set the system
+ * property cache.benchmark.store to the folder of a real cache to decode
+ * all of its definitions instead.
+ */
+public class LoaderBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(LoaderBenchmark.class);
+
+	private static final long DURATION = 2_000L; // ms per measurement
+	private static final int GENERATED = 20_000; // definitions of each type
+
+	@Test
+	public void benchmark() throws IOException
+	{
+		List<byte[]> items = new ArrayList<>();
+		List<byte[]> npcs = new ArrayList<>();
+		List<byte[]> objects = new ArrayList<>();
+
+		String location = System.getProperty("cache.benchmark.store");
+		if (location == null)
+		{
+			for (int i = 0; i < GENERATED; ++i)
+			{
+				items.add(generateItem(i));
+				npcs.add(generateNpc(i));
+				objects.add(generateObject(i));
+			}
+		}
+		else
+		{
+			try (Store store = new Store(new File(location)))
+			{
+				store.load();
+
+				loadCorpus(store, ConfigType.ITEM, items);
+				loadCorpus(store, ConfigType.NPC, npcs);
+				loadCorpus(store, ConfigType.OBJECT, objects);
+			}
+		}
+
+		Assert.assertFalse(items.isEmpty());
+		logger.info("Decoding {} items, {} npcs and {} objects", items.size(), npcs.size(), objects.size());
+
+		ItemLoader itemLoader = new ItemLoader();
+		NpcLoader npcLoader = new NpcLoader();
+		ObjectLoader objectLoader = new ObjectLoader();
+
+		for (int round = 0; round < 2; ++round) // the first round is warmup
+		{
+			long itemRate = measure(items, itemLoader::load);
+			long npcRate = measure(npcs, npcLoader::load);
+			long objectRate = measure(objects, objectLoader::load);
+
+			logger.info("items: {}/s, npcs: {}/s, objects: {}/s", itemRate, npcRate, objectRate);
+		}
+	}
+
+	private static long measure(List<byte[]> corpus, BiFunction<Integer, byte[], ?> loader)
+	{
+		long start = System.currentTimeMillis();
+		long end = start + DURATION;
+		long decoded = 0;
+		int hash = 0;
+
+		long now;
+		do
+		{
+			for (int i = 0; i < corpus.size(); ++i)
+			{
+				// keep the result live so decoding can't be eliminated
+				hash += loader.apply(i, corpus.get(i)).hashCode();
+			}
+			decoded += corpus.size();
+		}
+		while ((now = System.currentTimeMillis()) < end);
+
+		logger.trace("{}", hash);
+		return decoded * 1000L / Math.max(now - start, 1);
+	}
+
+	private static void loadCorpus(Store store, ConfigType type, List<byte[]> corpus)
+	{
+		Archive archive = store.getIndex(IndexType.CONFIGS).getArchive(type.getId());
+		for (net.runelite.cache.fs.File file : archive.getFiles())
+		{
+			corpus.add(file.getContents());
+		}
+	}
+
+	private static byte[] generateItem(int id)
+	{
+		OutputStream out = new OutputStream();
+		out.writeByte(1); // inventory model
+		out.writeShort(id);
+		writeCommon(out, id);
+		out.writeByte(4); // zoom
+		out.writeShort(2000);
+		out.writeByte(0);
+		return out.flip();
+	}
+
+	private static byte[] generateNpc(int id)
+	{
+		OutputStream out = new OutputStream();
+		out.writeByte(1); // models
+		out.writeByte(2);
+		out.writeShort(id);
+		out.writeShort(id + 1);
+		writeCommon(out, id);
+		out.writeByte(12); // size
+		out.writeByte(1);
+		out.writeByte(0);
+		return out.flip();
+	}
+
+	private static byte[] generateObject(int id)
+	{
+		OutputStream out = new OutputStream();
+		out.writeByte(1); // models and types
+		out.writeByte(1);
+		out.writeShort(id);
+		out.writeByte(10);
+		writeCommon(out, id);
+		out.writeByte(14); // size
+		out.writeByte(2);
+		out.writeByte(15);
+		out.writeByte(2);
+		out.writeByte(0);
+		return out.flip();
+	}
+
+	private static void writeCommon(OutputStream out, int id)
+	{
+		out.writeByte(2); // name
+		writeString(out, "Definition " + id);
+		out.writeByte(30); // first option
+		writeString(out, "Use");
+		out.writeByte(40); // recolors
+		out.writeByte(2);
+		for (int i = 0; i < 4; ++i)
+		{
+			out.writeShort(id + i);
+		}
+	}
+
+	private static void writeString(OutputStream out, String s)
+	{
+		out.writeBytes(s.getBytes(StandardCharsets.ISO_8859_1));
+		out.writeByte(0);
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.loaders;
+
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.KitDefinition;
+import net.runelite.cache.io.InputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OpcodeTableTest
+{
+	@Test
+	public void testDecode()
+	{
+		int[] values = new int[4];
+
+		OpcodeTable<int[]> table = new OpcodeTable<>("test");
+		table.add(1, (def, stream, opcode) -> def[0] = stream.readUnsignedByte());
+		table.add(10, 13, (def, stream, opcode) -> def[opcode - 9] = stream.readUnsignedShort());
+
+		Assert.assertTrue(table.decode(0, values, new InputStream(new byte[]
+		{
+			1, 42, 11, 1, 0, 12, 0, 7, 0
+		})));
+		Assert.assertArrayEquals(new int[] { 42, 0, 256, 7 }, values);
+	}
+
+	@Test
+	public void testUnknownOpcode()
+	{
+		int[] values = new int[2];
+
+		OpcodeTable<int[]> table = new OpcodeTable<>("test");
+		table.add(1, (def, stream, opcode) -> def[0] = stream.readUnsignedByte());
+		table.add(2, (def, stream, opcode) -> def[1] = stream.readUnsignedByte());
+
+		// decoding stops at the unknown opcode instead of reading its
+		// values as opcodes
+		Assert.assertFalse(table.decode(0, values, new InputStream(new byte[]
+		{
+			1, 5, 3, 2, 6, 0
+		})));
+		Assert.assertArrayEquals(new int[] { 5, 0 }, values);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateOpcode()
+	{
+		OpcodeTable<int[]> table = new OpcodeTable<>("test");
+		table.add(5, 10, (def, stream, opcode) ->
+		{
+		});
+		table.add(9, (def, stream, opcode) ->
+		{
+		});
+	}
+
+	@Test
+	public void testItemLoader()
+	{
+		ItemDefinition def = new ItemLoader().load(4151, new byte[]
+		{
+			2, 'W', 'h', 'i', 'p', 0, // name
+			7, (byte) 0xff, (byte) 0xfe, // xOffset2d
+			16, // members
+			31, 'W', 'i', 'e', 'l', 'd', 0, // option 1
+			32, 'H', 'i', 'd', 'd', 'e', 'n', 0, // option 2
+			101, 0, 1, 0, 2, // count 1
+			0
+		});
+
+		Assert.assertEquals(4151, def.id);
+		Assert.assertEquals("Whip", def.name);
+		Assert.assertEquals(-2, def.xOffset2d);
+		Assert.assertTrue(def.members);
+		Assert.assertEquals("Wield", def.options[1]);
+		Assert.assertNull(def.options[2]);
+		Assert.assertEquals(1, def.countObj[1]);
+		Assert.assertEquals(2, def.countCo[1]);
+	}
+
+	@Test
+	public void testKitLoader()
+	{
+		KitDefinition def = new KitLoader().load(3, new byte[]
+		{
+			1, 4, // body part
+			2, 2, 0, 10, 0, 11, // models
+			61, 0, 5, // head model 1
+			0
+		});
+
+		Assert.assertEquals(4, def.bodyPartId);
+		Assert.assertArrayEquals(new int[] { 10, 11 }, def.modelIds);
+		Assert.assertEquals(5, def.models[1]);
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.OverlayDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.UnderlayDefinition;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefinitionSnapshotTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSnapshot() throws IOException
+	{
+		Map<Integer, ItemDefinition> items = new HashMap<>();
+		for (int id : new int[] { 9, 2, 4 })
+		{
+			ItemDefinition def = new ItemDefinition(id);
+			def.name = "Item " + id;
+			def.options = new String[] { null, "Wield", null, null, "Drop" };
+			def.colorFind = new short[] { 1, -2 };
+			def.countObj = new int[] { id, 100 };
+			items.put(id, def);
+		}
+
+		File file = folder.newFile();
+		DefinitionSnapshot.write(file, ItemDefinition.class, 1234, items);
+
+		DefinitionSnapshot<ItemDefinition> snapshot = DefinitionSnapshot.load(file, ItemDefinition.class, ItemDefinition::new, 1234);
+		Assert.assertNotNull(snapshot);
+		Assert.assertEquals(3, snapshot.size());
+		Assert.assertEquals(9, snapshot.getMaxId());
+		Assert.assertNull(snapshot.get(3));
+
+		ItemDefinition def = snapshot.get(4);
+		Assert.assertEquals(4, def.id);
+		Assert.assertEquals("Item 4", def.name);
+		Assert.assertArrayEquals(new String[] { null, "Wield", null, null, "Drop" }, def.options);
+		Assert.assertArrayEquals(new short[] { 1, -2 }, def.colorFind);
+		Assert.assertArrayEquals(new int[] { 4, 100 }, def.countObj);
+		Assert.assertNull(def.colorReplace);
+
+		Assert.assertEquals(9, snapshot.getAll().get(2).id);
+
+		// a snapshot of another archive is out of date
+		Assert.assertNull(DefinitionSnapshot.load(file, ItemDefinition.class, ItemDefinition::new, 1235));
+		// as is one of another type
+		Assert.assertNull(DefinitionSnapshot.load(file, NpcDefinition.class, NpcDefinition::new, 1234));
+
+		// and a truncated one is ignored
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(raf.length() - 1);
+		}
+		Assert.assertNull(DefinitionSnapshot.load(file, ItemDefinition.class, ItemDefinition::new, 1234));
+
+		Assert.assertNull(DefinitionSnapshot.load(new File(folder.getRoot(), "missing"), ItemDefinition.class, ItemDefinition::new, 1234));
+	}
+
+	@Test
+	public void testDefinitionTypes()
+	{
+		// every snapshotted definition type can be encoded
+		new DefinitionCodec<>(ItemDefinition.class);
+		new DefinitionCodec<>(NpcDefinition.class);
+		new DefinitionCodec<>(ObjectDefinition.class);
+		new DefinitionCodec<>(UnderlayDefinition.class);
+		new DefinitionCodec<>(OverlayDefinition.class);
+		new DefinitionCodec<>(TextureDefinition.class);
+	}
+}
@@ -26,6 +26,11 @@ package net.runelite.cache.fs;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.runelite.cache.StoreLocation;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -170,4 +175,64 @@ public class DataFileTest
 			Assert.assertEquals(42, res2.revision);
 		}
 	}
+
+	@Test
+	public void testMemoryMapped() throws Exception
+	{
+		File file = folder.newFile();
+
+		try (Store store = new Store(folder.getRoot());
+			DataFile df = new DataFile(store, file))
+		{
+			byte[][] contents = new byte[16][];
+			DataFileWriteResult[] results = new DataFileWriteResult[contents.length];
+			for (int i = 0; i < contents.length; ++i)
+			{
+				byte[] b = new byte[1000 * (i + 1)];
+				for (int j = 0; j < b.length; ++j)
+				{
+					b[j] = (byte) (i + j);
+				}
+
+				contents[i] = DataFile.compress(b, CompressionType.NONE, -1, null);
+				results[i] = df.write(42, i * 0x1000, contents[i], -1);
+			}
+
+			df.setMemoryMapped(true);
+
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try
+			{
+				List<Future<byte[]>> futures = new ArrayList<>();
+				for (int i = 0; i < contents.length * 4; ++i)
+				{
+					int id = i % contents.length;
+					futures.add(executor.submit(() -> df.read(42, id * 0x1000, results[id].sector, results[id].compressedLength)));
+				}
+
+				for (int i = 0; i < futures.size(); ++i)
+				{
+					Assert.assertArrayEquals(contents[i % contents.length], futures.get(i).get());
+				}
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+
+			// header checks still apply
+			Assert.assertNull(df.read(41, 0, results[0].sector, results[0].compressedLength));
+			Assert.assertNull(df.read(42, 0x1000, results[0].sector, results[0].compressedLength));
+
+			// data written after the file was mapped is visible
+			byte[] compressedData = DataFile.compress("test".getBytes(), CompressionType.NONE, 0, null);
+			DataFileWriteResult res = df.write(42, 0x1FFFF, compressedData, 0);
+			Assert.assertArrayEquals(compressedData, df.read(42, 0x1FFFF, res.sector, res.compressedLength));
+
+			// truncation waits for mapped readers, and later reads remap
+			df.clear();
+			res = df.write(42, 0x1FFFF, compressedData, 0);
+			Assert.assertArrayEquals(compressedData, df.read(42, 0x1FFFF, res.sector, res.compressedLength));
+		}
+	}
 }
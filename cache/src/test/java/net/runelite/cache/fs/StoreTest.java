@@ -25,8 +25,12 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import net.runelite.cache.StoreLocation;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.XteaKeyManager;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -157,4 +161,378 @@ public class StoreTest
 			}
 		}
 	}
+
+	@Test
+	public void testLookup() throws IOException
+	{
+		java.io.File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 100; ++i)
+			{
+				Archive archive = index.addArchive(i * 3);
+				archive.setNameHash(Djb2.hash("m" + i));
+
+				File file = archive.addFile(0);
+				file.setNameHash(Djb2.hash("file" + i));
+				file.setContents(new byte[] { (byte) i });
+			}
+
+			Assert.assertEquals(99 * 3, index.getArchive(99 * 3).getArchiveId());
+			Assert.assertNull(index.getArchive(1));
+			Assert.assertEquals(42 * 3, index.findArchiveByName("m42").getArchiveId());
+
+			// renaming an archive updates the lookup
+			index.getArchive(42 * 3).setNameHash(Djb2.hash("renamed"));
+			Assert.assertNull(index.findArchiveByName("m42"));
+			Assert.assertEquals(42 * 3, index.findArchiveByName("renamed").getArchiveId());
+
+			Archive archive = index.addArchive(1000);
+			File five = archive.addFile(5);
+			five.setNameHash(Djb2.hash("five"));
+			five.setContents(new byte[] { 5 });
+			Assert.assertSame(archive, index.getArchive(1000));
+			Assert.assertEquals(5, archive.getFile(5).getFileId());
+			Assert.assertEquals(5, archive.findFileByName("five").getFileId());
+			Assert.assertNull(archive.getFile(0));
+
+			store.save();
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+
+				Index index2 = store2.findIndex(0);
+				Assert.assertEquals(index.getArchives().size(), index2.getArchives().size());
+				Assert.assertEquals(7 * 3, index2.findArchiveByName("m7").getArchiveId());
+				Assert.assertEquals(7, index2.getArchive(7 * 3).findFileByName("file7").getContents()[0]);
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalSave() throws IOException
+	{
+		Random random = new Random(44L);
+		java.io.File root = folder.newFolder();
+		java.io.File dat = new java.io.File(root, "main_file_cache.dat2");
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 16; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				File file = archive.addFile(0);
+				byte[] data = new byte[4096];
+				random.nextBytes(data);
+				file.setContents(data);
+			}
+
+			store.save();
+			Assert.assertFalse(index.isDirty());
+
+			long length = dat.length();
+
+			// unchanged stores write nothing
+			store.save();
+			Assert.assertEquals(length, dat.length());
+
+			// same size contents reuse the existing sectors
+			byte[] data = new byte[4096];
+			random.nextBytes(data);
+			index.getArchive(3).getFiles().get(0).setContents(data);
+			Assert.assertTrue(index.isDirty());
+
+			store.save();
+			Assert.assertEquals(length, dat.length());
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+				Assert.assertEquals(store, store2);
+				Assert.assertFalse(store2.findIndex(0).isDirty());
+			}
+
+			// larger contents extend the chain, leaving the rest in place
+			data = new byte[8192];
+			random.nextBytes(data);
+			index.getArchive(5).getFiles().get(0).setContents(data);
+
+			store.save();
+			Assert.assertTrue(dat.length() > length);
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+				Assert.assertEquals(store, store2);
+			}
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException
+	{
+		Random random = new Random(45L);
+		java.io.File root = folder.newFolder();
+		java.io.File dat = new java.io.File(root, "main_file_cache.dat2");
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 16; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				File file = archive.addFile(0);
+				byte[] data = new byte[4096];
+				random.nextBytes(data);
+				file.setContents(data);
+			}
+
+			store.save();
+
+			long length = dat.length();
+
+			// shrink an archive, orphaning most of its sectors
+			index.getArchive(7).getFiles().get(0).setContents(new byte[16]);
+			store.save();
+			Assert.assertEquals(length, dat.length());
+
+			store.compact();
+			Assert.assertTrue(dat.length() < length);
+
+			for (String name : root.list())
+			{
+				Assert.assertFalse(name, name.endsWith(".tmp") || name.endsWith(".bak"));
+			}
+
+			// the store keeps working on the swapped in files
+			index.getArchive(3).getFiles().get(0).setContents(new byte[32]);
+			store.save();
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+				Assert.assertEquals(store, store2);
+			}
+		}
+	}
+
+	@Test
+	public void testCompactRecovery() throws IOException
+	{
+		Random random = new Random(46L);
+		java.io.File compacted = folder.newFolder();
+		java.io.File root = folder.newFolder();
+
+		try (Store store = new Store(compacted); Store old = new Store(root))
+		{
+			for (Store s : new Store[] { store, old })
+			{
+				Index index = s.addIndex(0);
+				for (int i = 0; i < 4; ++i)
+				{
+					byte[] data = new byte[1024];
+					random.nextBytes(data);
+					index.addArchive(i).addFile(0).setContents(data);
+				}
+				s.save();
+			}
+
+			// an interrupted compaction which never committed is discarded
+			for (java.io.File f : compacted.listFiles())
+			{
+				java.nio.file.Files.copy(f.toPath(), new java.io.File(root, f.getName() + ".tmp").toPath());
+			}
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+				Assert.assertEquals(old, store2);
+			}
+			Assert.assertEquals(compacted.list().length, root.list().length);
+
+			// and one which did is finished
+			for (java.io.File f : compacted.listFiles())
+			{
+				java.nio.file.Files.copy(f.toPath(), new java.io.File(root, f.getName() + ".tmp").toPath());
+			}
+			new java.io.File(root, "main_file_cache.compact").createNewFile();
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+				Assert.assertEquals(store, store2);
+			}
+			Assert.assertEquals(compacted.list().length, root.list().length);
+		}
+	}
+
+	@Test
+	public void testParallelLoad() throws IOException
+	{
+		Random random = new Random(46L);
+		java.io.File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			for (int i = 0; i < 4; ++i)
+			{
+				Index index = store.addIndex(i);
+
+				for (int j = 0; j < 64; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setCompression(j % 3);
+
+					for (int k = 0; k < 4; ++k)
+					{
+						File file = archive.addFile(k);
+						byte[] data = new byte[random.nextInt(2048)];
+						random.nextBytes(data);
+						file.setContents(data);
+					}
+				}
+			}
+
+			store.save();
+
+			ForkJoinPool pool = new ForkJoinPool(4);
+			try (Store store2 = new Store(root))
+			{
+				store2.load(pool);
+
+				Assert.assertEquals(store, store2);
+				for (Index index : store2.getIndexes())
+				{
+					Assert.assertFalse(index.isDirty());
+				}
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testLazyLoad() throws IOException
+	{
+		Random random = new Random(47L);
+		java.io.File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 32; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setCompression(i % 3);
+
+				for (int j = 0; j < 4; ++j)
+				{
+					File file = archive.addFile(j);
+					byte[] data = new byte[1024];
+					random.nextBytes(data);
+					file.setContents(data);
+				}
+			}
+
+			store.save();
+
+			// room for two decoded archives
+			ArchiveCache cache = new ArchiveCache(2 * 4 * 1024);
+
+			try (Store store2 = new Store(root))
+			{
+				store2.setArchiveCache(cache);
+				store2.load();
+
+				Index index2 = store2.findIndex(0);
+				for (Archive archive : index2.getArchives())
+				{
+					Assert.assertFalse(archive.isLoaded());
+				}
+
+				Assert.assertEquals(store, store2);
+				Assert.assertEquals(32, cache.getMisses());
+				Assert.assertEquals(30, cache.getEvictions());
+				Assert.assertEquals(2, cache.getCount());
+				Assert.assertFalse(index2.getArchives().get(0).isLoaded());
+				Assert.assertTrue(index2.getArchives().get(31).isLoaded());
+
+				// modified archives are kept until they are saved
+				byte[] data = new byte[100];
+				random.nextBytes(data);
+				index2.getArchive(0).getFile(1).setContents(data);
+				index.getArchive(0).getFile(1).setContents(data);
+
+				Assert.assertEquals(store, store2);
+				Assert.assertTrue(index2.getArchive(0).isLoaded());
+
+				store2.save();
+			}
+
+			try (Store store3 = new Store(root))
+			{
+				store3.load();
+				Assert.assertEquals(store, store3);
+			}
+		}
+	}
+
+	@Test
+	public void testLazyLoadKeyed() throws IOException
+	{
+		Random random = new Random(48L);
+		java.io.File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 8; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setCompression(1);
+
+				byte[] data = new byte[4096];
+				random.nextBytes(data);
+				archive.addFile(0).setContents(data);
+			}
+
+			store.save();
+
+			// room for one decoded archive
+			ArchiveCache cache = new ArchiveCache(4096);
+
+			try (Store store2 = new Store(root))
+			{
+				// as with the maps, archives aren't decoded until keys are given
+				store2.findIndex(0).setXteaManager(new XteaKeyManager());
+				store2.setArchiveCache(cache);
+				store2.load();
+
+				Index index2 = store2.findIndex(0);
+				for (Archive archive : index2.getArchives())
+				{
+					List<byte[]> contents = archive.decompressAndLoad(null);
+					Assert.assertArrayEquals(index.getArchive(archive.getArchiveId()).getFiles().get(0).getContents(), contents.get(0));
+					Assert.assertEquals(4096, cache.getSize());
+				}
+
+				// evicted archives are decoded again with the keys they were decoded with
+				Archive archive = index2.getArchive(0);
+				Assert.assertFalse(archive.isLoaded());
+				Assert.assertArrayEquals(index.getArchive(0).getFiles().get(0).getContents(), archive.getFiles().get(0).getContents());
+				Assert.assertArrayEquals(index.getArchive(0).getFiles().get(0).getContents(), archive.decompressAndLoad(null).get(0));
+			}
+		}
+	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Djb2;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RegionLoaderTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testLoadRegions() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			for (int i = 0; i < IndexType.MAPS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index index = store.addIndex(IndexType.MAPS.getNumber());
+			addRegion(index, 50, 50);
+			addRegion(index, 52, 48);
+			addRegion(index, 49, 53);
+
+			// a map archive without a landscape is not a region
+			Archive map = index.addArchive(index.getArchives().size());
+			map.setNameHash(Djb2.hash("m60_60"));
+			map.addFile(0).setContents(new byte[Region.Z * Region.X * Region.Y]);
+
+			store.save();
+		}
+
+		try (Store store = new Store(folder.getRoot()))
+		{
+			store.load();
+
+			RegionLoader loader = new RegionLoader(store);
+			Assert.assertEquals(Arrays.asList(49 << 8 | 53, 50 << 8 | 50, 52 << 8 | 48), loader.getRegionIds());
+
+			// bounds are known without loading any region
+			loader.calculateBounds();
+			Assert.assertEquals(49 << 6, loader.getLowestX());
+			Assert.assertEquals(48 << 6, loader.getLowestY());
+			Assert.assertEquals(52 << 6, loader.getHighestX());
+			Assert.assertEquals(53 << 6, loader.getHighestY());
+			Assert.assertTrue(loader.getRegions().isEmpty());
+
+			// and are calculated on demand
+			RegionLoader loader2 = new RegionLoader(store);
+			Assert.assertEquals(49 << 6, loader2.getLowestX());
+			Assert.assertEquals(53 << 6, loader2.getHighestY());
+
+			Set<Integer> streamed = ConcurrentHashMap.newKeySet();
+			loader.forEachRegion(region -> streamed.add(region.getRegionID()));
+			Assert.assertEquals(3, streamed.size());
+			Assert.assertTrue(loader.getRegions().isEmpty());
+
+			loader.loadRegions();
+			List<Region> regions = loader.getRegions();
+			Assert.assertEquals(3, regions.size());
+			Assert.assertEquals(49 << 8 | 53, regions.get(0).getRegionID());
+			Assert.assertEquals(0, regions.get(0).getTileHeight(1, 0, 0) - regions.get(0).getTileHeight(0, 0, 0) + 240);
+		}
+	}
+
+	private static void addRegion(Index index, int x, int y)
+	{
+		int id = index.getArchives().size();
+
+		// every tile has default attributes
+		Archive map = index.addArchive(id);
+		map.setNameHash(Djb2.hash("m" + x + "_" + y));
+		map.addFile(0).setContents(new byte[Region.Z * Region.X * Region.Y]);
+
+		Archive land = index.addArchive(id + 1);
+		land.setNameHash(Djb2.hash("l" + x + "_" + y));
+		land.addFile(0).setContents(new byte[] { 0 });
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.util.List;
+import net.runelite.cache.io.OutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegionTest
+{
+	@Test
+	public void testLoadTerrain()
+	{
+		OutputStream out = new OutputStream();
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					if (z == 0 && x == 1 && y == 2)
+					{
+						out.writeByte(2 + 3 * 4 + 1); // overlay path 3 rotation 1
+						out.writeByte(200); // overlay id
+						out.writeByte(49 + 6); // render rule
+						out.writeByte(81 + 5); // underlay id
+						out.writeByte(1); // height
+						out.writeByte(10);
+					}
+					else
+					{
+						out.writeByte(0);
+					}
+				}
+			}
+		}
+
+		Region region = new Region(50, 50);
+		region.loadTerrain(out.flip());
+
+		Assert.assertEquals(200, region.getOverlayId(0, 1, 2));
+		Assert.assertEquals(3, region.getOverlayPath(0, 1, 2));
+		Assert.assertEquals(1, region.getOverlayRotation(0, 1, 2));
+		Assert.assertEquals(6, region.getRenderRule(0, 1, 2));
+		Assert.assertEquals(5, region.getUnderlayId(0, 1, 2));
+		Assert.assertEquals(-80, region.getTileHeight(0, 1, 2));
+		Assert.assertEquals(-80 - 240, region.getTileHeight(1, 1, 2));
+
+		Assert.assertEquals(0, region.getOverlayId(0, 2, 1));
+		Assert.assertEquals(0, region.getUnderlayId(1, 1, 2));
+	}
+
+	@Test
+	public void testLoadLocations()
+	{
+		OutputStream out = new OutputStream();
+		out.writeShort(0x8000 + 30000); // id 29999
+		out.writeShort(0x8000 + (1 << 12 | 3 << 6 | 4) + 1); // z 1, x 3, y 4
+		out.writeByte(10 << 2 | 3); // type 10, orientation 3
+		out.writeByte(2); // positions are relative to the previous, so z 1, x 3, y 5
+		out.writeByte(22 << 2);
+		out.writeByte(0);
+		out.writeShort(0x8000 + 12000); // id 41999
+		out.writeShort(0x8000 + (3 << 12 | 63 << 6 | 63) + 1);
+		out.writeByte(1);
+		out.writeByte(0);
+		out.writeByte(0);
+
+		Region region = new Region(50, 51);
+		region.loadLocations(out.flip());
+
+		Assert.assertEquals(3, region.getLocationCount());
+
+		Assert.assertEquals(29999, region.getLocationId(0));
+		Assert.assertEquals(10, region.getLocationType(0));
+		Assert.assertEquals(3, region.getLocationOrientation(0));
+		Assert.assertEquals(50 * 64 + 3, region.getLocationX(0));
+		Assert.assertEquals(51 * 64 + 4, region.getLocationY(0));
+		Assert.assertEquals(1, region.getLocationZ(0));
+
+		List<Location> locations = region.getLocations();
+		Assert.assertEquals(new Location(29999, 22, 0, new Position(50 * 64 + 3, 51 * 64 + 5, 1)), locations.get(1));
+		Assert.assertEquals(new Location(41999, 0, 1, new Position(50 * 64 + 63, 51 * 64 + 63, 3)), locations.get(2));
+	}
+}
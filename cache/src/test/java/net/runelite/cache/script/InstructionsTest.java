@@ -24,14 +24,17 @@
  */
 package net.runelite.cache.script;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 public class InstructionsTest
 {
 	@Test
-	public void testInit()
+	public void testFind()
 	{
-		Instructions.init();
+		Instruction load = Instructions.find(Opcodes.LOAD_INT);
+		Assert.assertNotNull(load);
+		Assert.assertSame(load, Instructions.find("load_int"));
 	}
 
 }
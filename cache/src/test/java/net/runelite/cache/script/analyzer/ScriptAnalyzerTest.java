@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.analyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.script.Opcodes;
+import net.runelite.cache.script.assembler.Assembler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScriptAnalyzerTest
+{
+	@Test
+	public void testBranches()
+	{
+		// 0: load_int 1
+		// 1: load_int 2
+		// 2: if_icmpeq +2 (to 5)
+		// 3: load_string "a"
+		// 4: jump +1 (to 6)
+		// 5: load_string "b"
+		// 6: pop_string
+		// 7: jump -8 (to 0)
+		ScriptDefinition script = script(
+			new int[] { Opcodes.LOAD_INT, Opcodes.LOAD_INT, Opcodes.IF_ICMPEQ, Opcodes.LOAD_STRING, Opcodes.JUMP, Opcodes.LOAD_STRING, Opcodes.POP_STRING, Opcodes.JUMP },
+			new int[] { 1, 2, 2, 0, 1, 0, 0, -8 },
+			new String[] { null, null, null, "a", null, "b", null, null }
+		);
+
+		ScriptSummary summary = new ScriptAnalyzer().analyze(script);
+
+		// the loop keeps the same stack shape, so ends once each state is seen
+		Assert.assertTrue(summary.getErrors().toString(), summary.isComplete());
+		Assert.assertEquals(8, summary.getReachableInstructions());
+		Assert.assertEquals(8, summary.getStates());
+		Assert.assertEquals(2, summary.getMaxIntStack());
+		Assert.assertEquals(1, summary.getMaxStringStack());
+		Assert.assertArrayEquals(new int[] { Opcodes.LOAD_INT, Opcodes.LOAD_STRING, Opcodes.JUMP, Opcodes.IF_ICMPEQ, Opcodes.POP_STRING }, summary.getOpcodes());
+		Assert.assertEquals(Arrays.asList("a", "b"), summary.getStrings());
+	}
+
+	@Test
+	public void testErrors()
+	{
+		ScriptDefinition script = script(
+			new int[] { Opcodes.LOAD_INT, Opcodes.IF_ICMPEQ, Opcodes.RETURN, -1 },
+			new int[] { 0, 0, 0, 0 },
+			new String[4]
+		);
+
+		ScriptSummary summary = new ScriptAnalyzer().analyze(script);
+
+		Assert.assertFalse(summary.isComplete());
+		Assert.assertEquals(Arrays.asList("stack underflow at pc 1"), summary.getErrors());
+		Assert.assertEquals(2, summary.getReachableInstructions());
+	}
+
+	@Test
+	public void testReport() throws IOException
+	{
+		InputStream in = ScriptAnalyzerTest.class.getResourceAsStream("/net/runelite/cache/script/interpreter/397.rs2asm");
+		Assert.assertNotNull(in);
+
+		ScriptDefinition script = new Assembler().assemble(in);
+		script.setId(397);
+
+		ScriptAnalyzer analyzer = new ScriptAnalyzer();
+		List<ScriptSummary> summaries = analyzer.analyze(Arrays.asList(script));
+		Assert.assertEquals(1, summaries.size());
+		Assert.assertTrue(summaries.get(0).isComplete());
+		Assert.assertEquals(summaries.get(0).getInstructions(), summaries.get(0).getReachableInstructions());
+
+		StringWriter writer = new StringWriter();
+		analyzer.writeReport(summaries, writer);
+		Assert.assertTrue(writer.toString().contains("\"id\": 397"));
+	}
+
+	private static ScriptDefinition script(int[] instructions, int[] iops, String[] sops)
+	{
+		ScriptDefinition script = new ScriptDefinition();
+		script.setInstructions(instructions);
+		script.setIntOperands(iops);
+		script.setStringOperands(sops);
+		return script;
+	}
+}
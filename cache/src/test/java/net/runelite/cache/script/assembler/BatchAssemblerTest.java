@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.assembler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.cache.script.assembler.BatchAssembler.Result;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchAssemblerTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAssemble() throws IOException
+	{
+		File script395 = copy("/net/runelite/cache/script/assembler/395.rs2asm");
+		File script397 = copy("/net/runelite/cache/script/interpreter/397.rs2asm");
+		File bad = folder.newFile("bad.rs2asm");
+		Files.write(bad.toPath(), "not_an_instruction\n".getBytes(StandardCharsets.UTF_8));
+
+		BatchAssembler assembler = new BatchAssembler();
+		List<File> files = Arrays.asList(script395, script397, bad);
+
+		List<Result> first = assembler.assemble(files);
+		Assert.assertEquals(3, first.size());
+		Assert.assertNotNull(first.get(0).getScript());
+		Assert.assertNotNull(first.get(1).getScript());
+		Assert.assertFalse(first.get(0).isCached());
+		Assert.assertNull(first.get(2).getScript());
+		Assert.assertNotNull(first.get(2).getError());
+		Assert.assertEquals(2, assembler.getCacheSize());
+
+		// change one file, the other is unchanged
+		Files.write(script397.toPath(), "return\n".getBytes(StandardCharsets.UTF_8));
+
+		List<Result> second = assembler.assemble(files);
+		Assert.assertTrue(second.get(0).isCached());
+		Assert.assertSame(first.get(0).getScript(), second.get(0).getScript());
+		Assert.assertFalse(second.get(1).isCached());
+		Assert.assertEquals(1, second.get(1).getScript().getInstructions().length);
+
+		// the old contents of 397 are no longer cached
+		Assert.assertEquals(2, assembler.getCacheSize());
+	}
+
+	private File copy(String resource) throws IOException
+	{
+		File file = folder.newFile(resource.substring(resource.lastIndexOf('/') + 1));
+		try (InputStream in = BatchAssemblerTest.class.getResourceAsStream(resource))
+		{
+			Files.write(file.toPath(), IOUtils.toByteArray(in));
+		}
+		return file;
+	}
+}
@@ -34,7 +34,6 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.File;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
-import net.runelite.cache.script.Instructions;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -54,8 +53,6 @@ public class DisassemblerTest
 		java.io.File outDir = folder.newFolder();
 		int count = 0;
 
-		Instructions.init();
-
 		try (Store store = new Store(StoreLocation.LOCATION))
 		{
 			store.load();
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.script.interpreter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.definitions.loaders.ScriptLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.script.assembler.Assembler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures interpreting a corpus of scripts, both compiling each script on
+ * every run and compiling them once up front, and without tracking stack
+ * values.
+ * <p>
+ * By default the scripts bundled with the tests are used. Set the system
+ * property cache.benchmark.store to the folder of a real cache to use all
+ * of its client scripts instead.
+ */
+public class InterpreterBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(InterpreterBenchmark.class);
+
+	private static final long DURATION = 2_000L; // ms per measurement
+
+	@Test
+	public void benchmark() throws IOException
+	{
+		List<ScriptDefinition> corpus = loadCorpus();
+
+		// drop scripts the interpreter can't run, such as those using
+		// instructions with a variable number of pops
+		List<ScriptDefinition> scripts = new ArrayList<>();
+		List<CompiledScript> compiled = new ArrayList<>();
+		for (ScriptDefinition script : corpus)
+		{
+			try
+			{
+				CompiledScript c = CompiledScript.compile(script);
+				new Interpreter().run(c);
+
+				scripts.add(script);
+				compiled.add(c);
+			}
+			catch (RuntimeException ex)
+			{
+				logger.debug("Skipping script {}", script.getId(), ex);
+			}
+		}
+
+		Assert.assertFalse(scripts.isEmpty());
+		logger.info("Interpreting {} of {} scripts", scripts.size(), corpus.size());
+
+		for (int round = 0; round < 2; ++round) // the first round is warmup
+		{
+			long uncompiled = measure(() ->
+			{
+				for (ScriptDefinition script : scripts)
+				{
+					new Interpreter().run(script);
+				}
+			});
+
+			long precompiled = measure(() ->
+			{
+				for (CompiledScript script : compiled)
+				{
+					new Interpreter().run(script);
+				}
+			});
+
+			long untracked = measure(() ->
+			{
+				for (CompiledScript script : compiled)
+				{
+					new Interpreter(false).run(script);
+				}
+			});
+
+			logger.info("compiled per run: {} corpus/s, compiled once: {} corpus/s, untracked: {} corpus/s", uncompiled, precompiled, untracked);
+		}
+	}
+
+	private static long measure(Runnable corpus)
+	{
+		long start = System.currentTimeMillis();
+		long end = start + DURATION;
+		long runs = 0;
+
+		long now;
+		do
+		{
+			corpus.run();
+			++runs;
+		}
+		while ((now = System.currentTimeMillis()) < end);
+
+		return runs * 1000L / Math.max(now - start, 1);
+	}
+
+	private static List<ScriptDefinition> loadCorpus() throws IOException
+	{
+		List<ScriptDefinition> scripts = new ArrayList<>();
+
+		String location = System.getProperty("cache.benchmark.store");
+		if (location == null)
+		{
+			Assembler assembler = new Assembler();
+			for (String name : new String[] { "/net/runelite/cache/script/assembler/395.rs2asm", "/net/runelite/cache/script/interpreter/397.rs2asm" })
+			{
+				try (InputStream in = InterpreterBenchmark.class.getResourceAsStream(name))
+				{
+					scripts.add(assembler.assemble(in));
+				}
+			}
+			return scripts;
+		}
+
+		try (Store store = new Store(new File(location)))
+		{
+			store.load();
+
+			Index index = store.getIndex(IndexType.CLIENTSCRIPT);
+			ScriptLoader loader = new ScriptLoader();
+
+			for (Archive archive : index.getArchives())
+			{
+				net.runelite.cache.fs.File file = archive.getFiles().get(0);
+				scripts.add(loader.load(file.getFileId(), file.getContents()));
+			}
+		}
+
+		return scripts;
+	}
+}
@@ -27,6 +27,7 @@ package net.runelite.cache.script.interpreter;
 import java.io.IOException;
 import java.io.InputStream;
 import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.script.Opcodes;
 import net.runelite.cache.script.assembler.Assembler;
 import org.junit.Assert;
 import org.junit.Test;
@@ -46,4 +47,68 @@ public class InterpreterTest
 		interpreter.run(script);
 	}
 
+	@Test
+	public void testCompiled() throws IOException
+	{
+		InputStream in = InterpreterTest.class.getResourceAsStream("397.rs2asm");
+		Assert.assertNotNull(in);
+
+		Assembler assembler = new Assembler();
+		CompiledScript script = CompiledScript.compile(assembler.assemble(in));
+
+		// a compiled script may be run any number of times
+		new Interpreter().run(script);
+		new Interpreter().run(script);
+	}
+
+	@Test
+	public void testUntracked() throws IOException
+	{
+		InputStream in = InterpreterTest.class.getResourceAsStream("397.rs2asm");
+		Assert.assertNotNull(in);
+
+		Assembler assembler = new Assembler();
+		CompiledScript script = CompiledScript.compile(assembler.assemble(in));
+
+		Interpreter interpreter = new Interpreter(false);
+		Assert.assertFalse(interpreter.isTracking());
+		interpreter.run(script);
+
+		// constants are shared, and record nothing
+		int pc = 0;
+		while (script.getScript().getInstructions()[pc] != Opcodes.LOAD_INT)
+		{
+			++pc;
+		}
+		StackContext constant = script.getConstant(pc);
+		Assert.assertSame(constant, script.getConstant(pc));
+		Assert.assertEquals(script.getScript().getIntOperands()[pc], constant.getValue());
+		Assert.assertNull(constant.getPushed());
+		Assert.assertTrue(constant.getPopped().isEmpty());
+	}
+
+	@Test
+	public void testUnknownInstruction()
+	{
+		ScriptDefinition script = new ScriptDefinition();
+		script.setInstructions(new int[] { Opcodes.RETURN, -1 });
+		script.setIntOperands(new int[2]);
+		script.setStringOperands(new String[2]);
+
+		// unreachable unknown instructions are not an error
+		CompiledScript compiled = CompiledScript.compile(script);
+		Assert.assertNull(compiled.getInstruction(1));
+		new Interpreter().run(compiled);
+
+		script.setInstructions(new int[] { -1, Opcodes.RETURN });
+		try
+		{
+			new Interpreter().run(script);
+			Assert.fail();
+		}
+		catch (RuntimeException ex)
+		{
+			Assert.assertEquals("Unknown instruction -1 in script at pc 0", ex.getMessage());
+		}
+	}
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.downloader.CacheClient;
+import net.runelite.cache.downloader.FileResult;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load generator for the cache server. Starts a server on loopback and
+ * has simulated clients request archives, keeping a window of requests
+ * in flight, then reports throughput and the request latency
+ * distribution.
+ * <p>
+ * By default a generated store is served. Set the system property
+ * cache.benchmark.store to the folder of a real cache to serve that
+ * instead.
+ */
+public class CacheServerBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheServerBenchmark.class);
+
+	private static final int REVISION = 139;
+	private static final String HOST = "localhost";
+
+	private static final int REQUESTS = 20_000; // per client
+	private static final int WINDOW = 20;
+	private static final int MAX_CLIENTS = 32;
+
+	private enum Sequence
+	{
+		/**
+		 * uniformly random archives
+		 */
+		RANDOM,
+		/**
+		 * the order a new client downloads the cache in, the reference
+		 * tables followed by each index's archives
+		 */
+		DOWNLOAD;
+	}
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void benchmark() throws Exception
+	{
+		String location = System.getProperty("cache.benchmark.store");
+
+		try (Store store = new Store(location != null ? new File(location) : folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			if (location != null)
+			{
+				store.load();
+			}
+			else
+			{
+				generate(store);
+			}
+			store.rebuildCrc();
+
+			List<int[]> archives = new ArrayList<>();
+			for (Index index : store.getIndexes())
+			{
+				archives.add(new int[] { 255, index.getId() });
+				for (Archive archive : index.getArchives())
+				{
+					archives.add(new int[] { index.getId(), archive.getArchiveId() });
+				}
+			}
+
+			// every request in a window must be distinct, see request()
+			assert archives.size() > WINDOW;
+
+			server.start();
+
+			for (Sequence sequence : Sequence.values())
+			{
+				for (int clients = 1; clients <= MAX_CLIENTS; clients *= 2)
+				{
+					run(sequence, clients, archives);
+				}
+			}
+		}
+	}
+
+	private void generate(Store store) throws Exception
+	{
+		Random random = new Random(42L);
+
+		// a mix of many small archives, like configs, and fewer large ones, like models and maps
+		int[][] shapes =
+		{
+			// archives, max size
+			{ 4096, 512 },
+			{ 2048, 8 * 1024 },
+			{ 256, 128 * 1024 }
+		};
+
+		for (int i = 0; i < shapes.length; ++i)
+		{
+			Index index = store.addIndex(i);
+
+			for (int j = 0; j < shapes[i][0]; ++j)
+			{
+				byte[] contents = new byte[random.nextInt(shapes[i][1]) + 1];
+				random.nextBytes(contents);
+
+				Archive archive = index.addArchive(j);
+				archive.addFile(0).setContents(contents);
+			}
+		}
+
+		store.save();
+	}
+
+	private void run(Sequence sequence, int clients, List<int[]> archives) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		List<Store> stores = new ArrayList<>();
+		List<CacheClient> connected = new ArrayList<>();
+		try
+		{
+			for (int i = 0; i < clients; ++i)
+			{
+				Store clientStore = new Store(folder.newFolder());
+				stores.add(clientStore);
+
+				CacheClient client = new CacheClient(clientStore, HOST, REVISION);
+				client.connect();
+				client.handshake().get();
+				connected.add(client);
+			}
+
+			Histogram histogram = new Histogram();
+			AtomicLong bytes = new AtomicLong();
+
+			long start = System.nanoTime();
+
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < clients; ++i)
+			{
+				CacheClient client = connected.get(i);
+				Random random = new Random(i);
+				futures.add(executor.submit(() ->
+				{
+					request(client, sequence, random, archives, histogram, bytes);
+					return null;
+				}));
+			}
+
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+
+			long elapsed = System.nanoTime() - start;
+			double seconds = elapsed / 1_000_000_000.0;
+			long requests = (long) clients * REQUESTS;
+
+			logger.info("{} with {} clients: {} requests/s, {} MB/s, latency {}",
+				sequence, clients, (long) (requests / seconds),
+				String.format("%.1f", bytes.get() / seconds / (1024 * 1024)), histogram);
+		}
+		finally
+		{
+			for (CacheClient client : connected)
+			{
+				client.close();
+			}
+			for (Store clientStore : stores)
+			{
+				clientStore.close();
+			}
+			executor.shutdown();
+		}
+	}
+
+	private void request(CacheClient client, Sequence sequence, Random random, List<int[]> archives, Histogram histogram, AtomicLong bytes) throws Exception
+	{
+		Deque<CompletableFuture<FileResult>> window = new ArrayDeque<>(WINDOW);
+		// the client shares the response of a request already in flight
+		// rather than sending it again, so skip archives in the window to
+		// make every request reach the server
+		Deque<Integer> windowKeys = new ArrayDeque<>(WINDOW);
+		Set<Integer> inFlight = new HashSet<>();
+
+		for (int i = 0; i < REQUESTS; ++i)
+		{
+			if (window.size() >= WINDOW)
+			{
+				window.poll().get();
+				inFlight.remove(windowKeys.poll());
+			}
+
+			int[] archive;
+			int key;
+			int next = i;
+			do
+			{
+				archive = sequence == Sequence.RANDOM
+					? archives.get(random.nextInt(archives.size()))
+					: archives.get(next++ % archives.size());
+				key = archive[0] << 16 | archive[1];
+			}
+			while (inFlight.contains(key));
+
+			inFlight.add(key);
+			windowKeys.add(key);
+
+			long requested = System.nanoTime();
+			CompletableFuture<FileResult> future = client.requestFile(archive[0], archive[1]);
+			window.add(future.whenComplete((result, ex) ->
+			{
+				if (result != null)
+				{
+					histogram.record(System.nanoTime() - requested);
+					bytes.addAndGet(result.getCompressedData().length);
+				}
+			}));
+		}
+
+		while (!window.isEmpty())
+		{
+			window.poll().get();
+		}
+	}
+
+	/**
+	 * Latency histogram with power of two microsecond buckets.
+	 */
+	private static class Histogram
+	{
+		private final long[] buckets = new long[32];
+		private long count;
+		private long max;
+
+		synchronized void record(long nanos)
+		{
+			long micros = nanos / 1000;
+			int bucket = 64 - Long.numberOfLeadingZeros(micros);
+			++buckets[Math.min(bucket, buckets.length - 1)];
+			++count;
+			max = Math.max(max, micros);
+		}
+
+		/**
+		 * @param percentile
+		 * @return upper bound, in microseconds, of the bucket containing the
+		 * given percentile, or the maximum if lower
+		 */
+		synchronized long percentile(double percentile)
+		{
+			long target = (long) Math.ceil(count * percentile);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; ++i)
+			{
+				seen += buckets[i];
+				if (seen >= target)
+				{
+					return Math.min(1L << i, max);
+				}
+			}
+			return max;
+		}
+
+		@Override
+		public synchronized String toString()
+		{
+			int last = buckets.length - 1;
+			while (last > 0 && buckets[last] == 0)
+			{
+				--last;
+			}
+
+			return "p50 <=" + percentile(0.5) + "us, p99 <=" + percentile(0.99) + "us, max " + max + "us, buckets "
+				+ Arrays.toString(Arrays.copyOf(buckets, last + 1));
+		}
+	}
+}
@@ -24,9 +24,14 @@
  */
 package net.runelite.cache.server;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import java.io.FileNotFoundException;
+import java.util.Arrays;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.downloader.CacheClient;
+import net.runelite.cache.downloader.requests.HelloHandshake;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.File;
 import net.runelite.cache.fs.Index;
@@ -107,6 +112,282 @@ public class CacheServerTest
 		}
 	}
 
+	@Test
+	public void testPipelinedDownload() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 64; ++i)
+			{
+				// sizes span several 512 byte chunks
+				byte[] contents = new byte[i * 100 + 1];
+				Arrays.fill(contents, (byte) i);
+
+				Archive archive = index.addArchive(i);
+				archive.setRevision(i);
+				File file = archive.addFile(0);
+				file.setContents(contents);
+			}
+
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(folder.newFolder()); CacheClient client = new CacheClient(store2, HOST, REVISION))
+			{
+				client.setWindowSize(16);
+				client.connect();
+				client.handshake().get();
+				client.download();
+
+				Assert.assertEquals(store.findIndex(0), store2.findIndex(0));
+			}
+		}
+	}
+
+	@Test
+	public void testResponseCache() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 8; ++i)
+			{
+				byte[] contents = new byte[i * 300 + 1];
+				Arrays.fill(contents, (byte) i);
+
+				Archive archive = index.addArchive(i);
+				archive.setCompression(i % 3);
+				File file = archive.addFile(0);
+				file.setContents(contents);
+			}
+
+			// responses are served from the data file
+			store.save();
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(folder.newFolder()); CacheClient client = new CacheClient(store2, HOST, REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+				client.download();
+
+				Assert.assertEquals(store.findIndex(0), store2.findIndex(0));
+			}
+
+			// 8 archives, the index, and 255/255
+			Assert.assertEquals(10, server.getResponseCache().size());
+
+			// changing an archive replaces its response
+			Archive archive = index.getArchive(3);
+			archive.getFiles().get(0).setContents("changed".getBytes());
+			archive.setRevision(1);
+			store.save();
+			store.rebuildCrc();
+
+			try (Store store2 = new Store(folder.newFolder()); CacheClient client = new CacheClient(store2, HOST, REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+				client.download();
+
+				Assert.assertEquals(store.findIndex(0), store2.findIndex(0));
+				Assert.assertArrayEquals("changed".getBytes(), store2.findIndex(0).getArchive(3).getFiles().get(0).getContents());
+			}
+
+			Assert.assertEquals(10, server.getResponseCache().size());
+		}
+	}
+
+	@Test
+	public void testResponseCacheEviction() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 16; ++i)
+			{
+				byte[] contents = new byte[1000];
+				Arrays.fill(contents, (byte) i);
+				index.addArchive(i).addFile(0).setContents(contents);
+			}
+			store.save();
+			store.rebuildCrc();
+
+			ResponseCache cache = new ResponseCache(store, 4096);
+
+			ByteBuf first = cache.getArchive(0, 0);
+			for (int i = 1; i < 16; ++i)
+			{
+				cache.getArchive(0, i).release();
+				Assert.assertTrue(cache.getSize() <= cache.getMaxSize());
+			}
+
+			// the evicted response is released, but still valid for its holder
+			Assert.assertTrue(cache.size() < 16);
+			Assert.assertEquals(0, first.readUnsignedByte());
+			Assert.assertEquals(0, first.readUnsignedShort());
+			Assert.assertTrue(first.release());
+
+			// evicted responses are rebuilt
+			ByteBuf response = cache.getArchive(0, 0);
+			Assert.assertEquals(0, response.readUnsignedByte());
+			Assert.assertEquals(0, response.readUnsignedShort());
+			response.release();
+
+			cache.clear();
+			Assert.assertEquals(0, cache.size());
+			Assert.assertEquals(0, cache.getSize());
+		}
+	}
+
+	@Test
+	public void testRequestPriority() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 3; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.addFile(0).setContents(new byte[] { (byte) i });
+			}
+			store.rebuildCrc();
+
+			EmbeddedChannel channel = new EmbeddedChannel(new CacheServerHandler(server));
+
+			ByteBuf in = Unpooled.buffer();
+			in.writeByte(15); // handshake
+			in.writeInt(REVISION);
+			in.writeInt(3); // connection info
+			in.writeByte(0).writeByte(0).writeShort(0); // prefetch 0/0
+			in.writeByte(0).writeByte(0).writeShort(1); // prefetch 0/1
+			in.writeByte(1).writeByte(255).writeShort(0); // urgent 255/0
+			in.writeByte(0).writeByte(0).writeShort(2); // prefetch 0/2
+			channel.writeInbound(in);
+
+			ByteBuf handshake = channel.readOutbound();
+			Assert.assertEquals(HelloHandshake.RESPONSE_OK, handshake.readByte());
+			handshake.release();
+
+			int[][] expected =
+			{
+				{ 255, 0 }, { 0, 0 }, { 0, 1 }, { 0, 2 }
+			};
+			for (int[] e : expected)
+			{
+				ByteBuf response = channel.readOutbound();
+				Assert.assertEquals(e[0], response.readUnsignedByte());
+				Assert.assertEquals(e[1], response.readUnsignedShort());
+				response.release();
+			}
+
+			Assert.assertNull(channel.readOutbound());
+			channel.finish();
+		}
+	}
+
+	@Test
+	public void testUrgentWhileUnwritable() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 3; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.addFile(0).setContents(new byte[] { (byte) i });
+			}
+			store.rebuildCrc();
+
+			EmbeddedChannel channel = new EmbeddedChannel(new CacheServerHandler(server));
+
+			ByteBuf in = Unpooled.buffer();
+			in.writeByte(15); // handshake
+			in.writeInt(REVISION);
+			in.writeInt(3); // connection info
+			channel.writeInbound(in);
+
+			ByteBuf handshake = channel.readOutbound();
+			Assert.assertEquals(HelloHandshake.RESPONSE_OK, handshake.readByte());
+			handshake.release();
+
+			// requests are still read while the client isn't reading responses
+			channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+
+			in = Unpooled.buffer();
+			in.writeByte(0).writeByte(0).writeShort(0); // prefetch 0/0
+			in.writeByte(0).writeByte(0).writeShort(1); // prefetch 0/1
+			channel.writeInbound(in);
+
+			in = Unpooled.buffer();
+			in.writeByte(1).writeByte(0).writeShort(2); // urgent 0/2
+			channel.writeInbound(in);
+
+			Assert.assertNull(channel.readOutbound());
+
+			channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+			channel.runPendingTasks();
+
+			int[] expected = { 2, 0, 1 };
+			for (int e : expected)
+			{
+				ByteBuf response = channel.readOutbound();
+				Assert.assertEquals(0, response.readUnsignedByte());
+				Assert.assertEquals(e, response.readUnsignedShort());
+				response.release();
+			}
+
+			Assert.assertNull(channel.readOutbound());
+
+			// but the prefetches queued meanwhile are bounded
+			channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+
+			in = Unpooled.buffer();
+			for (int i = 0; i <= CacheServerHandler.MAX_QUEUED_PREFETCHES; ++i)
+			{
+				in.writeByte(0).writeByte(0).writeShort(0);
+			}
+			channel.writeInbound(in);
+
+			Assert.assertFalse(channel.isOpen());
+			channel.finish();
+		}
+	}
+
+	@Test
+	public void testEpoll() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			addInitialFilesToStore(store);
+
+			store.rebuildCrc();
+
+			// falls back to nio where epoll is unavailable
+			server.setEpoll(true);
+			server.setWorkerThreads(2);
+			server.start();
+
+			try (Store store2 = new Store(folder.newFolder()); CacheClient client = new CacheClient(store2, HOST, REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+				client.download();
+
+				Assert.assertEquals(store.findIndex(0), store2.findIndex(0));
+			}
+		}
+	}
+
 	private void addInitialFilesToStore(Store store) throws FileNotFoundException
 	{
 		Index index = store.addIndex(0);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -22,39 +22,43 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package net.runelite.cache.script.assembler;
+package net.runelite.cache.util;
 
-import java.util.HashMap;
-import java.util.Map;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
 
-public class LabelVisitor extends rs2asmBaseListener
+public class BZip2Test
 {
-	private static final Logger logger = LoggerFactory.getLogger(LabelVisitor.class);
+	private final Random random = new Random(42L);
 
-	private int pos;
-	private final Map<String, Integer> map = new HashMap<>();
-
-	@Override
-	public void exitInstruction(rs2asmParser.InstructionContext ctx)
+	@Test
+	public void test() throws IOException
 	{
-		++pos;
-	}
+		byte[] data = new byte[100_000];
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (byte) random.nextInt(16);
+		}
 
-	@Override
-	public void enterLabel(rs2asmParser.LabelContext ctx)
-	{
-		String text = ctx.getText();
-		text = text.substring(0, text.length() - 1); // remove trailing :
+		byte[] compressed = BZip2.compress(data);
+		Assert.assertArrayEquals(data, BZip2.decompress(compressed, compressed.length));
 
-		logger.debug("Label {} is on instruction {}", text, pos);
-
-		map.put(text, pos);
+		// decompress from within a larger array
+		byte[] padded = new byte[compressed.length + 10];
+		System.arraycopy(compressed, 0, padded, 7, compressed.length);
+		Assert.assertArrayEquals(data, BZip2.decompress(padded, 7, compressed.length, data.length));
 	}
 
-	public Integer getInstructionForLabel(String label)
+	@Test(expected = IOException.class)
+	public void testLengthMismatch() throws IOException
 	{
-		return map.get(label);
+		byte[] data = new byte[1000];
+		Arrays.fill(data, (byte) 1);
+
+		byte[] compressed = BZip2.compress(data);
+		BZip2.decompress(compressed, 0, compressed.length, data.length - 1);
 	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GZipTest
+{
+	private final Random random = new Random(42L);
+
+	@Test
+	public void test() throws IOException
+	{
+		byte[] data = new byte[100_000];
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (byte) random.nextInt(16);
+		}
+
+		byte[] compressed = GZip.compress(data);
+		Assert.assertArrayEquals(data, GZip.decompress(compressed, compressed.length));
+
+		// decompress from within a larger array
+		byte[] padded = new byte[compressed.length + 10];
+		System.arraycopy(compressed, 0, padded, 7, compressed.length);
+		Assert.assertArrayEquals(data, GZip.decompress(padded, 7, compressed.length, data.length));
+
+		// the inflater is reused
+		Assert.assertArrayEquals(data, GZip.decompress(compressed, 0, compressed.length, data.length));
+	}
+
+	@Test
+	public void testLengthMismatch() throws IOException
+	{
+		byte[] data = new byte[1000];
+		Arrays.fill(data, (byte) 1);
+
+		byte[] compressed = GZip.compress(data);
+
+		try
+		{
+			GZip.decompress(compressed, 0, compressed.length, data.length - 1);
+			Assert.fail();
+		}
+		catch (IOException ex)
+		{
+		}
+
+		try
+		{
+			GZip.decompress(compressed, 0, compressed.length, data.length + 1);
+			Assert.fail();
+		}
+		catch (IOException ex)
+		{
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException
+	{
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+
+		byte[] compressed = GZip.compress(data);
+		compressed[compressed.length - 6] ^= 1; // crc
+
+		GZip.decompress(compressed, 0, compressed.length, data.length);
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package net.runelite.cache.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntHashMapTest
+{
+	@Test
+	public void test()
+	{
+		IntHashMap<String> map = new IntHashMap<>();
+		Assert.assertNull(map.put(1, "one"));
+		Assert.assertNull(map.put(-1, "minus one"));
+		Assert.assertEquals("one", map.put(1, "uno"));
+		Assert.assertEquals("uno", map.putIfAbsent(1, "one"));
+
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("uno", map.get(1));
+		Assert.assertEquals("minus one", map.get(-1));
+		Assert.assertNull(map.get(2));
+
+		Assert.assertEquals("uno", map.remove(1));
+		Assert.assertFalse(map.containsKey(1));
+		Assert.assertEquals(1, map.size());
+		Assert.assertArrayEquals(new int[] { -1 }, map.keys());
+	}
+
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(42L);
+		IntHashMap<Integer> map = new IntHashMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+
+		for (int i = 0; i < 100000; ++i)
+		{
+			// small key range so keys collide and get removed often
+			int key = random.nextInt(4096) * 65536;
+			if (random.nextInt(3) == 0)
+			{
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			}
+			else
+			{
+				Assert.assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+
+		Assert.assertEquals(expected.size(), map.size());
+		for (int i = 0; i < 4096; ++i)
+		{
+			Assert.assertEquals(expected.get(i * 65536), map.get(i * 65536));
+		}
+	}
+}
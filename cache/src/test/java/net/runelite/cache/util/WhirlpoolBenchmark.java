@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class WhirlpoolBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(WhirlpoolBenchmark.class);
+
+	private static final int BUFFERS = 1024;
+	private static final int ITERATIONS = 5;
+
+	@Test
+	public void benchmark() throws Exception
+	{
+		Random random = new Random(42L);
+
+		// archive sized buffers
+		byte[][] buffers = new byte[BUFFERS][];
+		long bytes = 0;
+		for (int i = 0; i < BUFFERS; ++i)
+		{
+			buffers[i] = new byte[random.nextInt(16 * 1024) + 1];
+			random.nextBytes(buffers[i]);
+			bytes += buffers[i].length;
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int t = 1; t <= threads; t *= 2)
+		{
+			long ms = time(buffers, t);
+			logger.info("{} threads: {} ms, {} MB/s", t, ms, bytes * 1000 / Math.max(ms, 1) / (1024 * 1024));
+		}
+	}
+
+	private long time(byte[][] buffers, int threads) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			long start = System.nanoTime();
+
+			for (int it = 0; it < ITERATIONS; ++it)
+			{
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; ++t)
+				{
+					int offset = t;
+					futures.add(executor.submit(() ->
+					{
+						for (int i = offset; i < buffers.length; i += threads)
+						{
+							Whirlpool.getHash(buffers[i], buffers[i].length);
+						}
+					}));
+				}
+
+				for (Future<?> future : futures)
+				{
+					future.get();
+				}
+			}
+
+			return (System.nanoTime() - start) / 1_000_000L / ITERATIONS;
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
@@ -24,6 +24,11 @@
  */
 package net.runelite.cache.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.runelite.cache.util.Whirlpool;
 import org.junit.Assert;
 import org.junit.Test;
@@ -51,4 +56,35 @@ public class WhirlpoolTest
 		Assert.assertArrayEquals(out, result);
 	}
 
+	@Test
+	public void testConcurrent() throws Exception
+	{
+		byte[] data = "runelite".getBytes();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<byte[]>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; ++i)
+			{
+				futures.add(executor.submit(() -> Whirlpool.getHash(data, data.length)));
+			}
+
+			for (Future<byte[]> future : futures)
+			{
+				Assert.assertArrayEquals(result, future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testOffset()
+	{
+		byte[] data = "xxrunelitexx".getBytes();
+		Assert.assertArrayEquals(result, Whirlpool.getHash(data, 2, 8));
+	}
 }
@@ -24,12 +24,23 @@
  */
 package net.runelite.cache.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class XteaKeyManagerTest
 {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void test() throws IOException
 	{
@@ -43,5 +54,65 @@ public class XteaKeyManagerTest
 		};
 
 		Assert.assertArrayEquals(expected, keys);
+
+		// keys are shared, not copied per call
+		Assert.assertSame(keys, xt.getKeys(4883));
+		Assert.assertNull(xt.getKeys(-1));
+	}
+
+	@Test
+	public void testBinary() throws IOException
+	{
+		XteaKeyManager xt = new XteaKeyManager();
+		xt.loadKeys();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		xt.saveBinary(out);
+		Assert.assertEquals(8 + xt.size() * 20, out.size());
+
+		XteaKeyManager xt2 = new XteaKeyManager();
+		xt2.loadBinary(new ByteArrayInputStream(out.toByteArray()));
+
+		Assert.assertEquals(xt.size(), xt2.size());
+		for (int region = 0; region < 32768; ++region)
+		{
+			Assert.assertArrayEquals(xt.getKeys(region), xt2.getKeys(region));
+		}
+	}
+
+	@Test
+	public void testJson()
+	{
+		XteaKeyManager xt = new XteaKeyManager();
+		xt.loadJson(new StringReader("[{\"region\":12850,\"keys\":[1,2,3,-4]},{\"region\":12851,\"keys\":[1]}]"));
+
+		Assert.assertEquals(1, xt.size());
+		Assert.assertArrayEquals(new int[] { 1, 2, 3, -4 }, xt.getKeys(12850));
+	}
+
+	@Test
+	public void testJsonEmpty()
+	{
+		XteaKeyManager xt = new XteaKeyManager();
+		xt.loadJson(new StringReader(""));
+		xt.loadJson(new StringReader("null"));
+		xt.loadJson(new StringReader("[null]"));
+
+		Assert.assertEquals(0, xt.size());
+	}
+
+	@Test
+	public void testRevisions() throws IOException
+	{
+		File dir = folder.newFolder();
+		Files.write(new File(dir, "140.json").toPath(), "[{\"region\":1,\"keys\":[1,1,1,1]},{\"region\":2,\"keys\":[2,2,2,2]}]".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(dir, "141.json").toPath(), "[{\"region\":1,\"keys\":[3,3,3,3]}]".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(dir, "142.json").toPath(), "[{\"region\":1,\"keys\":[4,4,4,4]}]".getBytes(StandardCharsets.UTF_8));
+
+		XteaKeyManager xt = new XteaKeyManager();
+		xt.loadRevisions(dir, 141);
+
+		Assert.assertArrayEquals(new int[] { 3, 3, 3, 3 }, xt.getKeys(1));
+		Assert.assertArrayEquals(new int[] { 2, 2, 2, 2 }, xt.getKeys(2));
 	}
 }
@@ -26,6 +26,7 @@ package net.runelite.cache.util;
 
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Random;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -53,4 +54,45 @@ public class XteaTest
 
 		Assert.assertArrayEquals(data, decData);
 	}
+
+	@Test
+	public void testJce() throws InvalidKeyException, IllegalBlockSizeException, BadPaddingException, NoSuchAlgorithmException, NoSuchPaddingException
+	{
+		for (int i = 0; i < 100; ++i)
+		{
+			byte[] data = new byte[random.nextInt(2048)];
+			random.nextBytes(data);
+
+			int[] key = new int[] { random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt() };
+
+			byte[] expected = new JceXtea(key).encrypt(data, data.length);
+			Assert.assertArrayEquals(expected, new Xtea(key).encrypt(data, data.length));
+
+			Assert.assertArrayEquals(data, new JceXtea(key).decrypt(expected, expected.length));
+			Assert.assertArrayEquals(data, new Xtea(key).decrypt(expected, expected.length));
+		}
+	}
+
+	@Test
+	public void testInPlace()
+	{
+		byte[] data = new byte[1027];
+		random.nextBytes(data);
+
+		int[] key = new int[] { 4, 8, 15, 16 };
+		Xtea xtea = new Xtea(key);
+
+		byte[] buffer = new byte[data.length + 10];
+		System.arraycopy(data, 0, buffer, 5, data.length);
+
+		xtea.encrypt(buffer, 5, data.length);
+		Assert.assertArrayEquals(xtea.encrypt(data, data.length), Arrays.copyOfRange(buffer, 5, 5 + data.length));
+
+		byte[] out = new byte[data.length + 1];
+		xtea.decrypt(buffer, 5, data.length, out, 1);
+		Assert.assertArrayEquals(data, Arrays.copyOfRange(out, 1, out.length));
+
+		xtea.decrypt(buffer, 5, data.length);
+		Assert.assertArrayEquals(data, Arrays.copyOfRange(buffer, 5, 5 + data.length));
+	}
 }
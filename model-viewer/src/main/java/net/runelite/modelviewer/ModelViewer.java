@@ -47,7 +47,6 @@ import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.UnderlayDefinition;
 import net.runelite.cache.definitions.loaders.ModelLoader;
 import net.runelite.cache.models.Vector3f;
-import net.runelite.cache.models.VertexNormal;
 import net.runelite.cache.region.Location;
 import net.runelite.cache.region.Position;
 import net.runelite.cache.region.Region;
@@ -258,13 +257,9 @@ public class ModelViewer
 			int vertexB = md.faceVertexIndices2[i];
 			int vertexC = md.faceVertexIndices3[i];
 
-			VertexNormal normalVertexA = md.vertexNormals[vertexA];
-			VertexNormal normalVertexB = md.vertexNormals[vertexB];
-			VertexNormal normalVertexC = md.vertexNormals[vertexC];
-
-			Vector3f nA = normalVertexA.normalize();
-			Vector3f nB = normalVertexB.normalize();
-			Vector3f nC = normalVertexC.normalize();
+			Vector3f nA = md.getVertexNormal(vertexA);
+			Vector3f nB = md.getVertexNormal(vertexB);
+			Vector3f nC = md.getVertexNormal(vertexC);
 
 			// Invert y
 			nA.y = -nA.y;
@@ -286,8 +281,9 @@ public class ModelViewer
 			short textureId = md.faceTextures != null ? md.faceTextures[i] : -1;
 			Color color;
 
-			float[] u = null;
-			float[] v = null;
+			float[] u = md.faceTextureUCoordinates;
+			float[] v = md.faceTextureVCoordinates;
+			int uv = i * 3;
 
 			if (textureId != -1)
 			{
@@ -296,9 +292,6 @@ public class ModelViewer
 				Texture texture = getTexture(textureId);
 				assert texture != null;
 
-				u = md.faceTextureUCoordinates[i];
-				v = md.faceTextureVCoordinates[i];
-
 				int glTexture = texture.getOpenglId();
 
 				GL11.glEnable(GL11.GL_TEXTURE_2D);
@@ -339,21 +332,21 @@ public class ModelViewer
 			GL11.glNormal3f(nA.x, nA.y, nA.z);
 			if (textureId != -1)
 			{
-				GL11.glTexCoord2f(u[0], v[0]);
+				GL11.glTexCoord2f(u[uv], v[uv]);
 			}
 			GL11.glVertex3i(vertexAx, -vertexAy, vertexAz);
 
 			GL11.glNormal3f(nC.x, nC.y, nC.z);
 			if (textureId != -1)
 			{
-				GL11.glTexCoord2f(u[2], v[2]);
+				GL11.glTexCoord2f(u[uv + 2], v[uv + 2]);
 			}
 			GL11.glVertex3i(vertexCx, -vertexCy, vertexCz);
 
 			GL11.glNormal3f(nB.x, nB.y, nB.z);
 			if (textureId != -1)
 			{
-				GL11.glTexCoord2f(u[1], v[1]);
+				GL11.glTexCoord2f(u[uv + 1], v[uv + 1]);
 			}
 			GL11.glVertex3i(vertexBx, -vertexBy, vertexBz);
 